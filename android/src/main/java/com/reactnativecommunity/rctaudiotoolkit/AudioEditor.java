@@ -0,0 +1,175 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.content.Context;
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.net.Uri;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+
+/**
+ * Trims and concatenates audio files by copying their compressed frames, without decoding and
+ * encoding them again. Frames are streamed through a single reusable buffer, so memory use does not
+ * depend on the length of the files.
+ */
+class AudioEditor {
+    // Used when the track does not report its maximum frame size
+    private static final int DEFAULT_BUFFER_SIZE = 256 * 1024;
+
+    private AudioEditor() {
+    }
+
+    /**
+     * Copy the frames between `startUs` and `endUs` (or the end of the file if negative) into `output`.
+     * The cut happens at frame boundaries.
+     */
+    static void trim(Context context, Uri source, File output, int format, long startUs, long endUs) throws IOException {
+        MediaExtractor extractor = new MediaExtractor();
+        EncodedSink sink = null;
+
+        try {
+            extractor.setDataSource(context, source, null);
+            MediaFormat trackFormat = selectAudioTrack(extractor, source);
+
+            sink = EncodedSink.create(output, format, trackFormat);
+            sink.start(trackFormat);
+
+            extractor.seekTo(startUs, MediaExtractor.SEEK_TO_PREVIOUS_SYNC);
+            copyFrames(extractor, sink, allocateBuffer(trackFormat), startUs, endUs, -startUs);
+
+            sink.finish();
+        } finally {
+            if (sink != null) {
+                sink.close();
+            }
+            extractor.release();
+        }
+    }
+
+    /**
+     * Join files that share the same codec, sample rate and channel count into `output`.
+     */
+    static void concat(Context context, List<Uri> sources, File output, int format) throws IOException {
+        if (sources.isEmpty()) {
+            throw new IOException("No files to concatenate");
+        }
+
+        EncodedSink sink = null;
+        MediaFormat firstFormat = null;
+        ByteBuffer buffer = null;
+        long offsetUs = 0;
+
+        try {
+            for (Uri source : sources) {
+                MediaExtractor extractor = new MediaExtractor();
+
+                try {
+                    extractor.setDataSource(context, source, null);
+                    MediaFormat trackFormat = selectAudioTrack(extractor, source);
+
+                    if (firstFormat == null) {
+                        firstFormat = trackFormat;
+                        buffer = allocateBuffer(trackFormat);
+                        sink = EncodedSink.create(output, format, trackFormat);
+                        sink.start(trackFormat);
+                    } else {
+                        checkCompatible(firstFormat, trackFormat, source);
+                        buffer = ensureCapacity(buffer, trackFormat);
+                    }
+
+                    offsetUs = copyFrames(extractor, sink, buffer, 0, -1, offsetUs);
+                } finally {
+                    extractor.release();
+                }
+            }
+
+            sink.finish();
+        } finally {
+            if (sink != null) {
+                sink.close();
+            }
+        }
+    }
+
+    /**
+     * Copy frames in [startUs, endUs) shifted by `offsetUs`, and return the shifted time right after
+     * the last frame.
+     */
+    private static long copyFrames(MediaExtractor extractor, EncodedSink sink, ByteBuffer buffer,
+                                   long startUs, long endUs, long offsetUs) throws IOException {
+        MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+        long lastTime = -1;
+        long frameDuration = 0;
+
+        while (true) {
+            buffer.clear();
+            int size = extractor.readSampleData(buffer, 0);
+            if (size < 0) {
+                break;
+            }
+
+            long time = extractor.getSampleTime();
+            if (endUs >= 0 && time >= endUs) {
+                break;
+            }
+
+            if (time >= startUs) {
+                if (lastTime >= 0) {
+                    frameDuration = time - lastTime;
+                }
+                lastTime = time;
+
+                boolean sync = (extractor.getSampleFlags() & MediaExtractor.SAMPLE_FLAG_SYNC) != 0;
+
+                buffer.position(0);
+                buffer.limit(size);
+                info.set(0, size, time + offsetUs, sync ? MediaCodec.BUFFER_FLAG_SYNC_FRAME : 0);
+                sink.write(buffer, info);
+            }
+
+            extractor.advance();
+        }
+
+        // The next file starts one frame after the last frame of this one
+        return lastTime < 0 ? offsetUs + Math.max(0, startUs) : lastTime + offsetUs + frameDuration;
+    }
+
+    private static MediaFormat selectAudioTrack(MediaExtractor extractor, Uri source) throws IOException {
+        for (int i = 0; i < extractor.getTrackCount(); i++) {
+            MediaFormat trackFormat = extractor.getTrackFormat(i);
+            String mime = trackFormat.getString(MediaFormat.KEY_MIME);
+            if (mime != null && mime.startsWith("audio/")) {
+                extractor.selectTrack(i);
+                return trackFormat;
+            }
+        }
+
+        throw new IOException("No audio track found in " + source);
+    }
+
+    private static void checkCompatible(MediaFormat first, MediaFormat other, Uri source) throws IOException {
+        if (!first.getString(MediaFormat.KEY_MIME).equals(other.getString(MediaFormat.KEY_MIME))
+                || first.getInteger(MediaFormat.KEY_SAMPLE_RATE) != other.getInteger(MediaFormat.KEY_SAMPLE_RATE)
+                || first.getInteger(MediaFormat.KEY_CHANNEL_COUNT) != other.getInteger(MediaFormat.KEY_CHANNEL_COUNT)) {
+            throw new IOException(source + " does not match the codec, sample rate or channel count of the first file");
+        }
+    }
+
+    private static ByteBuffer allocateBuffer(MediaFormat trackFormat) {
+        return ByteBuffer.allocateDirect(bufferSize(trackFormat));
+    }
+
+    private static ByteBuffer ensureCapacity(ByteBuffer buffer, MediaFormat trackFormat) {
+        int size = bufferSize(trackFormat);
+        return buffer.capacity() >= size ? buffer : ByteBuffer.allocateDirect(size);
+    }
+
+    private static int bufferSize(MediaFormat trackFormat) {
+        return trackFormat.containsKey(MediaFormat.KEY_MAX_INPUT_SIZE)
+                ? trackFormat.getInteger(MediaFormat.KEY_MAX_INPUT_SIZE) : DEFAULT_BUFFER_SIZE;
+    }
+}
@@ -0,0 +1,156 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.annotation.TargetApi;
+import android.media.AudioAttributes;
+import android.media.AudioFocusRequest;
+import android.media.AudioManager;
+import android.os.Build;
+import android.util.Log;
+
+import com.facebook.react.bridge.ReactContext;
+
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Holds audio focus on behalf of all players that don't mix with others. Focus is requested once
+ * when the first player starts and abandoned when the last one stops, instead of on every `play()`.
+ *
+ * Like the players it is shared with, it is only used from the native modules queue thread. Focus
+ * changes arrive on the main thread and are handed over to that thread before anything is touched.
+ */
+class AudioFocusManager implements AudioManager.OnAudioFocusChangeListener {
+    private static final String LOG_TAG = "AudioFocusManager";
+
+    interface Listener {
+        /**
+         * Focus was lost. If `isTransient` is true the holders are kept and `onFocusGain()`
+         * follows once focus is regained, otherwise all holders have been released.
+         */
+        void onFocusLoss(Set<Integer> playerIds, boolean isTransient);
+
+        void onDuck(Set<Integer> playerIds, boolean ducked);
+
+        void onFocusGain(Set<Integer> playerIds);
+    }
+
+    private final ReactContext context;
+    private final AudioManager audioManager;
+    private final Listener listener;
+    private final Set<Integer> holders = new HashSet<>();
+    private boolean hasFocus = false;
+    private Object focusRequest;
+
+    AudioFocusManager(ReactContext context, AudioManager audioManager, Listener listener) {
+        this.context = context;
+        this.audioManager = audioManager;
+        this.listener = listener;
+    }
+
+    /**
+     * Register a player as playing. Returns false if focus was denied.
+     */
+    boolean acquire(Integer playerId) {
+        if (!this.hasFocus) {
+            this.hasFocus = requestFocus();
+            if (!this.hasFocus) {
+                return false;
+            }
+        }
+
+        this.holders.add(playerId);
+        return true;
+    }
+
+    void release(Integer playerId) {
+        if (!this.holders.remove(playerId) || !this.holders.isEmpty()) {
+            return;
+        }
+
+        abandonFocus();
+    }
+
+    boolean isHolding(Integer playerId) {
+        return this.holders.contains(playerId);
+    }
+
+    @Override
+    public void onAudioFocusChange(final int focusChange) {
+        this.context.runOnNativeModulesQueueThread(new Runnable() {
+            @Override
+            public void run() {
+                handleFocusChange(focusChange);
+            }
+        });
+    }
+
+    private void handleFocusChange(int focusChange) {
+        Set<Integer> playerIds = new HashSet<>(this.holders);
+
+        switch (focusChange) {
+            case AudioManager.AUDIOFOCUS_LOSS:
+                this.holders.clear();
+                abandonFocus();
+                this.listener.onFocusLoss(playerIds, false);
+                break;
+            case AudioManager.AUDIOFOCUS_LOSS_TRANSIENT:
+                this.hasFocus = false;
+                this.listener.onFocusLoss(playerIds, true);
+                break;
+            case AudioManager.AUDIOFOCUS_LOSS_TRANSIENT_CAN_DUCK:
+                this.listener.onDuck(playerIds, true);
+                break;
+            case AudioManager.AUDIOFOCUS_GAIN:
+                this.hasFocus = true;
+                this.listener.onDuck(playerIds, false);
+                this.listener.onFocusGain(playerIds);
+                break;
+        }
+    }
+
+    private boolean requestFocus() {
+        int result;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            result = this.audioManager.requestAudioFocus(getFocusRequest());
+        } else {
+            result = this.audioManager.requestAudioFocus(this, AudioManager.STREAM_MUSIC, AudioManager.AUDIOFOCUS_GAIN);
+        }
+
+        if (result != AudioManager.AUDIOFOCUS_REQUEST_GRANTED) {
+            Log.w(LOG_TAG, "Audio focus request was not granted");
+            return false;
+        }
+
+        return true;
+    }
+
+    private void abandonFocus() {
+        this.hasFocus = false;
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            this.audioManager.abandonAudioFocusRequest(getFocusRequest());
+        } else {
+            this.audioManager.abandonAudioFocus(this);
+        }
+    }
+
+    @TargetApi(26)
+    private AudioFocusRequest getFocusRequest() {
+        if (this.focusRequest == null) {
+            AudioAttributes attributes = new AudioAttributes.Builder()
+                    .setUsage(AudioAttributes.USAGE_MEDIA)
+                    .setContentType(AudioAttributes.CONTENT_TYPE_MUSIC)
+                    .build();
+
+            // Ducking is handled by the players themselves so that it also works below API 26
+            this.focusRequest = new AudioFocusRequest.Builder(AudioManager.AUDIOFOCUS_GAIN)
+                    .setAudioAttributes(attributes)
+                    .setWillPauseWhenDucked(false)
+                    .setOnAudioFocusChangeListener(this)
+                    .build();
+        }
+
+        return (AudioFocusRequest) this.focusRequest;
+    }
+}
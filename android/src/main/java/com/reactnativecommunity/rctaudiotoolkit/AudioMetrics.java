@@ -0,0 +1,308 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.os.Build;
+import android.os.SystemClock;
+import android.os.Trace;
+import android.util.Log;
+
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.util.concurrent.atomic.AtomicIntegerArray;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Process-wide latency histograms and error counters for player and recorder operations.
+ *
+ * Recording is lock-free and allocation-free so it can be done on every operation. Histograms use
+ * log-linear buckets (16 per power of two) over microseconds, which keeps the relative error of
+ * reported percentiles below ~6%.
+ */
+class AudioMetrics {
+    private static final String LOG_TAG = "AudioMetrics";
+
+    static final int PLAYER_PREPARE = 0;
+    static final int PLAYER_PLAY = 1;
+    static final int PLAYER_SEEK = 2;
+    static final int RECORDER_PREPARE = 3;
+    static final int RECORDER_STOP = 4;
+    static final int EMIT_EVENT = 5;
+
+    static final int SOURCE_PLAYER = 0;
+    static final int SOURCE_RECORDER = 1;
+
+    private static final String[] OPERATION_NAMES = {
+            "prepare", "play", "seek", "recorderPrepare", "recorderStop", "emitEvent"
+    };
+    private static final String[] SOURCE_NAMES = {"player", "recorder"};
+
+    private static final int SUB_BUCKET_BITS = 4;
+    private static final int SUB_BUCKETS = 1 << SUB_BUCKET_BITS;
+    private static final int MAX_EXPONENT = 40;
+    private static final int BUCKETS = (MAX_EXPONENT - SUB_BUCKET_BITS + 2) * SUB_BUCKETS;
+
+    // Per operation: count, sum, max followed by the buckets
+    private static final int HEADER = 3;
+    private static final int STRIDE = HEADER + BUCKETS;
+    private static final AtomicLongArray histograms = new AtomicLongArray(OPERATION_NAMES.length * STRIDE);
+
+    // Open addressing table of (source, what, extra) keys. what and extra are kept whole in one long,
+    // the source in the slot state, which is written last so that a ready slot always has its key
+    private static final int ERROR_SLOTS = 64;
+    private static final int SLOT_EMPTY = 0;
+    private static final int SLOT_CLAIMED = 1;
+    private static final int SLOT_READY = 2;
+    private static final AtomicIntegerArray errorStates = new AtomicIntegerArray(ERROR_SLOTS);
+    private static final AtomicLongArray errorKeys = new AtomicLongArray(ERROR_SLOTS);
+    private static final AtomicLongArray errorCounts = new AtomicLongArray(ERROR_SLOTS);
+    private static final AtomicLong droppedErrors = new AtomicLong();
+
+    private static volatile boolean tracingEnabled = false;
+    private static final Method beginAsyncSection = asyncSectionMethod("beginAsyncSection");
+    private static final Method endAsyncSection = asyncSectionMethod("endAsyncSection");
+
+    private AudioMetrics() {
+    }
+
+    static long now() {
+        return SystemClock.elapsedRealtimeNanos();
+    }
+
+    /**
+     * Record the time elapsed since `startNanos` (as returned by `now()`) for an operation.
+     */
+    static void record(int operation, long startNanos) {
+        recordMicros(operation, Math.max(0, (now() - startNanos) / 1000));
+    }
+
+    static void recordMicros(int operation, long micros) {
+        int base = operation * STRIDE;
+
+        histograms.incrementAndGet(base);
+        histograms.addAndGet(base + 1, micros);
+
+        long max;
+        do {
+            max = histograms.get(base + 2);
+        } while (micros > max && !histograms.compareAndSet(base + 2, max, micros));
+
+        histograms.incrementAndGet(base + HEADER + bucketOf(micros));
+    }
+
+    static void recordError(int source, int what, int extra) {
+        int index = findError(source, what, extra, true);
+        if (index >= 0) {
+            errorCounts.incrementAndGet(index);
+        } else {
+            droppedErrors.incrementAndGet();
+        }
+    }
+
+    /**
+     * Number of errors recorded for a key.
+     */
+    static long errorCount(int source, int what, int extra) {
+        int index = findError(source, what, extra, false);
+        return index >= 0 ? errorCounts.get(index) : 0;
+    }
+
+    // Slot of the key, claiming an empty one for it if `add` is set, or -1
+    private static int findError(int source, int what, int extra, boolean add) {
+        long key = errorKey(what, extra);
+        int ready = SLOT_READY + source;
+        int slot = (int) ((key ^ (key >>> 32) ^ source) * 0x9E3779B9L >>> 26) & (ERROR_SLOTS - 1);
+
+        for (int i = 0; i < ERROR_SLOTS; i++) {
+            int index = (slot + i) & (ERROR_SLOTS - 1);
+            int state = errorStates.get(index);
+
+            if (state == SLOT_EMPTY) {
+                if (!add) {
+                    return -1;
+                }
+                if (errorStates.compareAndSet(index, SLOT_EMPTY, SLOT_CLAIMED)) {
+                    errorKeys.set(index, key);
+                    errorStates.set(index, ready);
+                    return index;
+                }
+                state = errorStates.get(index);
+            }
+
+            // Another thread is about to publish the key of this slot
+            while (state == SLOT_CLAIMED) {
+                state = errorStates.get(index);
+            }
+
+            if (state == ready && errorKeys.get(index) == key) {
+                return index;
+            }
+        }
+
+        return -1;
+    }
+
+    private static long errorKey(int what, int extra) {
+        return ((long) what << 32) | (extra & 0xFFFFFFFFL);
+    }
+
+    static void setTracingEnabled(boolean enabled) {
+        tracingEnabled = enabled;
+    }
+
+    static void beginSection(String name) {
+        if (tracingEnabled) {
+            Trace.beginSection(name);
+        }
+    }
+
+    static void endSection() {
+        if (tracingEnabled) {
+            Trace.endSection();
+        }
+    }
+
+    // Async sections can span callbacks, but are only available since API 29, so they are looked up
+    // reflectively instead of requiring a newer compile SDK
+    static void beginAsyncSection(String name, int cookie) {
+        if (tracingEnabled) {
+            invokeAsyncSection(beginAsyncSection, name, cookie);
+        }
+    }
+
+    static void endAsyncSection(String name, int cookie) {
+        if (tracingEnabled) {
+            invokeAsyncSection(endAsyncSection, name, cookie);
+        }
+    }
+
+    private static Method asyncSectionMethod(String name) {
+        if (Build.VERSION.SDK_INT < 29) {
+            return null;
+        }
+
+        try {
+            return Trace.class.getMethod(name, String.class, int.class);
+        } catch (NoSuchMethodException e) {
+            return null;
+        }
+    }
+
+    private static void invokeAsyncSection(Method method, String name, int cookie) {
+        if (method == null) {
+            return;
+        }
+
+        try {
+            method.invoke(null, name, cookie);
+        } catch (IllegalAccessException | InvocationTargetException e) {
+            Log.w(LOG_TAG, "Could not trace " + name + ": " + e.toString());
+        }
+    }
+
+    static void reset() {
+        for (int i = 0; i < histograms.length(); i++) {
+            histograms.set(i, 0);
+        }
+        for (int i = 0; i < ERROR_SLOTS; i++) {
+            errorStates.set(i, SLOT_EMPTY);
+            errorCounts.set(i, 0);
+            errorKeys.set(i, 0);
+        }
+        droppedErrors.set(0);
+    }
+
+    static WritableMap toMap() {
+        WritableMap operations = JsMaps.createMap();
+        for (int operation = 0; operation < OPERATION_NAMES.length; operation++) {
+            operations.putMap(OPERATION_NAMES[operation], histogramToMap(operation));
+        }
+
+        WritableArray errors = JsMaps.createArray();
+        for (int i = 0; i < ERROR_SLOTS; i++) {
+            int state = errorStates.get(i);
+            long count = errorCounts.get(i);
+            if (state < SLOT_READY || count == 0) {
+                continue;
+            }
+
+            long key = errorKeys.get(i);
+            WritableMap error = JsMaps.createMap();
+            error.putString("source", SOURCE_NAMES[state - SLOT_READY]);
+            error.putInt("what", (int) (key >> 32));
+            error.putInt("extra", (int) key);
+            error.putDouble("count", count);
+            errors.pushMap(error);
+        }
+
+        WritableMap metrics = JsMaps.createMap();
+        metrics.putMap("operations", operations);
+        metrics.putArray("errors", errors);
+        metrics.putDouble("droppedErrors", droppedErrors.get());
+
+        return metrics;
+    }
+
+    private static WritableMap histogramToMap(int operation) {
+        int base = operation * STRIDE;
+        long count = histograms.get(base);
+
+        // Latencies are reported in milliseconds
+        WritableMap map = JsMaps.createMap();
+        map.putDouble("count", count);
+        map.putDouble("mean", count > 0 ? histograms.get(base + 1) / (double) count / 1000.0 : 0);
+        map.putDouble("max", histograms.get(base + 2) / 1000.0);
+        map.putDouble("p50", percentile(operation, 0.50) / 1000.0);
+        map.putDouble("p90", percentile(operation, 0.90) / 1000.0);
+        map.putDouble("p99", percentile(operation, 0.99) / 1000.0);
+
+        return map;
+    }
+
+    /**
+     * Latency in microseconds below which `fraction` of the operations completed, rounded down to
+     * the start of its bucket.
+     */
+    static long percentile(int operation, double fraction) {
+        int base = operation * STRIDE;
+        long count = histograms.get(base);
+        if (count == 0) {
+            return 0;
+        }
+
+        long target = (long) Math.ceil(count * fraction);
+        long seen = 0;
+        for (int bucket = 0; bucket < BUCKETS; bucket++) {
+            seen += histograms.get(base + HEADER + bucket);
+            if (seen >= target) {
+                return valueOf(bucket);
+            }
+        }
+
+        return histograms.get(base + 2);
+    }
+
+    static int bucketOf(long value) {
+        if (value < SUB_BUCKETS) {
+            return (int) value;
+        }
+
+        int exponent = Math.min(63 - Long.numberOfLeadingZeros(value), MAX_EXPONENT);
+        int subBucket = (int) ((value >>> (exponent - SUB_BUCKET_BITS)) & (SUB_BUCKETS - 1));
+
+        return (exponent - SUB_BUCKET_BITS + 1) * SUB_BUCKETS + subBucket;
+    }
+
+    static long valueOf(int bucket) {
+        if (bucket < SUB_BUCKETS) {
+            return bucket;
+        }
+
+        int exponent = bucket / SUB_BUCKETS + SUB_BUCKET_BITS - 1;
+        int subBucket = bucket % SUB_BUCKETS;
+
+        return (long) (SUB_BUCKETS + subBucket) << (exponent - SUB_BUCKET_BITS);
+    }
+}
@@ -0,0 +1,258 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.annotation.TargetApi;
+import android.app.Notification;
+import android.app.NotificationChannel;
+import android.app.NotificationManager;
+import android.app.PendingIntent;
+import android.app.Service;
+import android.content.Context;
+import android.content.Intent;
+import android.media.session.MediaSession;
+import android.media.session.PlaybackState;
+import android.os.Build;
+import android.os.IBinder;
+
+/**
+ * Foreground service that keeps the app process alive while players continue in the background,
+ * so they don't have to be prepared again after the OS reclaims memory. Provides a MediaSession
+ * and a notification with transport controls, which are forwarded to the attached module.
+ */
+public class AudioPlaybackService extends Service {
+    static final String ACTION_UPDATE = "com.reactnativecommunity.rctaudiotoolkit.UPDATE";
+    static final String ACTION_PLAY = "com.reactnativecommunity.rctaudiotoolkit.PLAY";
+    static final String ACTION_PAUSE = "com.reactnativecommunity.rctaudiotoolkit.PAUSE";
+    static final String ACTION_STOP = "com.reactnativecommunity.rctaudiotoolkit.STOP";
+
+    private static final String EXTRA_TITLE = "title";
+    private static final String EXTRA_PLAYING = "playing";
+    private static final String CHANNEL_ID = "rctaudiotoolkit_playback";
+    private static final int NOTIFICATION_ID = 0x52415450;
+
+    // Called on the main thread
+    interface Listener {
+        void onRemotePlay();
+
+        void onRemotePause();
+
+        void onRemoteStop();
+    }
+
+    private static Listener listener;
+
+    private Object mediaSession;
+    private String title;
+    private boolean playing;
+
+    static void attach(Listener listener) {
+        AudioPlaybackService.listener = listener;
+    }
+
+    static void detach(Listener listener) {
+        if (AudioPlaybackService.listener == listener) {
+            AudioPlaybackService.listener = null;
+        }
+    }
+
+    /**
+     * Start the service, or update its notification if it is already running.
+     */
+    static void start(Context context, String title, boolean playing) {
+        Intent intent = new Intent(context, AudioPlaybackService.class);
+        intent.setAction(ACTION_UPDATE);
+        intent.putExtra(EXTRA_TITLE, title);
+        intent.putExtra(EXTRA_PLAYING, playing);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            context.startForegroundService(intent);
+        } else {
+            context.startService(intent);
+        }
+    }
+
+    static void stop(Context context) {
+        context.stopService(new Intent(context, AudioPlaybackService.class));
+    }
+
+    @Override
+    public void onCreate() {
+        super.onCreate();
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            createMediaSession();
+        }
+    }
+
+    @Override
+    public int onStartCommand(Intent intent, int flags, int startId) {
+        String action = intent != null ? intent.getAction() : null;
+
+        if (ACTION_PLAY.equals(action)) {
+            remotePlay();
+        } else if (ACTION_PAUSE.equals(action)) {
+            remotePause();
+        } else if (ACTION_STOP.equals(action)) {
+            remoteStop();
+            return START_NOT_STICKY;
+        } else if (intent != null) {
+            this.title = intent.getStringExtra(EXTRA_TITLE);
+            this.playing = intent.getBooleanExtra(EXTRA_PLAYING, true);
+        }
+
+        updateNotification();
+        return START_NOT_STICKY;
+    }
+
+    @Override
+    public void onDestroy() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && this.mediaSession != null) {
+            ((MediaSession) this.mediaSession).release();
+            this.mediaSession = null;
+        }
+
+        stopForeground(true);
+        super.onDestroy();
+    }
+
+    @Override
+    public IBinder onBind(Intent intent) {
+        return null;
+    }
+
+    private void remotePlay() {
+        this.playing = true;
+        if (listener != null) {
+            listener.onRemotePlay();
+        }
+    }
+
+    private void remotePause() {
+        this.playing = false;
+        if (listener != null) {
+            listener.onRemotePause();
+        }
+    }
+
+    private void remoteStop() {
+        this.playing = false;
+        if (listener != null) {
+            listener.onRemoteStop();
+        }
+        stopSelf();
+    }
+
+    @TargetApi(21)
+    private void createMediaSession() {
+        MediaSession session = new MediaSession(this, "RCTAudioToolkit");
+        session.setFlags(MediaSession.FLAG_HANDLES_MEDIA_BUTTONS | MediaSession.FLAG_HANDLES_TRANSPORT_CONTROLS);
+        session.setCallback(new MediaSession.Callback() {
+            @Override
+            public void onPlay() {
+                remotePlay();
+                updateNotification();
+            }
+
+            @Override
+            public void onPause() {
+                remotePause();
+                updateNotification();
+            }
+
+            @Override
+            public void onStop() {
+                remoteStop();
+            }
+        });
+        session.setActive(true);
+
+        this.mediaSession = session;
+    }
+
+    private void updateNotification() {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && this.mediaSession != null) {
+            updatePlaybackState();
+        }
+
+        startForeground(NOTIFICATION_ID, buildNotification());
+    }
+
+    @TargetApi(21)
+    private void updatePlaybackState() {
+        PlaybackState state = new PlaybackState.Builder()
+                .setActions(PlaybackState.ACTION_PLAY | PlaybackState.ACTION_PAUSE
+                        | PlaybackState.ACTION_PLAY_PAUSE | PlaybackState.ACTION_STOP)
+                .setState(this.playing ? PlaybackState.STATE_PLAYING : PlaybackState.STATE_PAUSED,
+                        PlaybackState.PLAYBACK_POSITION_UNKNOWN, 1.0f)
+                .build();
+
+        ((MediaSession) this.mediaSession).setPlaybackState(state);
+    }
+
+    @SuppressWarnings("deprecation")
+    private Notification buildNotification() {
+        Notification.Builder builder;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            createNotificationChannel();
+            builder = new Notification.Builder(this, CHANNEL_ID);
+        } else {
+            builder = new Notification.Builder(this);
+        }
+
+        CharSequence appName = getApplicationInfo().loadLabel(getPackageManager());
+
+        builder.setSmallIcon(R.drawable.rctaudiotoolkit_notification)
+                .setContentTitle(this.title != null ? this.title : appName)
+                .setOngoing(this.playing)
+                .setDeleteIntent(servicePendingIntent(ACTION_STOP));
+
+        Intent launchIntent = getPackageManager().getLaunchIntentForPackage(getPackageName());
+        if (launchIntent != null) {
+            builder.setContentIntent(PendingIntent.getActivity(this, 0, launchIntent, pendingIntentFlags()));
+        }
+
+        if (this.playing) {
+            builder.addAction(android.R.drawable.ic_media_pause, "Pause", servicePendingIntent(ACTION_PAUSE));
+        } else {
+            builder.addAction(android.R.drawable.ic_media_play, "Play", servicePendingIntent(ACTION_PLAY));
+        }
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP && this.mediaSession != null) {
+            setMediaStyle(builder);
+        }
+
+        return builder.build();
+    }
+
+    @TargetApi(21)
+    private void setMediaStyle(Notification.Builder builder) {
+        builder.setVisibility(Notification.VISIBILITY_PUBLIC)
+                .setStyle(new Notification.MediaStyle()
+                        .setMediaSession(((MediaSession) this.mediaSession).getSessionToken())
+                        .setShowActionsInCompactView(0));
+    }
+
+    @TargetApi(26)
+    private void createNotificationChannel() {
+        NotificationManager manager = (NotificationManager) getSystemService(Context.NOTIFICATION_SERVICE);
+        if (manager.getNotificationChannel(CHANNEL_ID) == null) {
+            NotificationChannel channel = new NotificationChannel(CHANNEL_ID, "Playback", NotificationManager.IMPORTANCE_LOW);
+            manager.createNotificationChannel(channel);
+        }
+    }
+
+    private PendingIntent servicePendingIntent(String action) {
+        Intent intent = new Intent(this, AudioPlaybackService.class);
+        intent.setAction(action);
+
+        return PendingIntent.getService(this, action.hashCode(), intent, pendingIntentFlags());
+    }
+
+    private static int pendingIntentFlags() {
+        int flags = PendingIntent.FLAG_UPDATE_CURRENT;
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M) {
+            flags |= PendingIntent.FLAG_IMMUTABLE;
+        }
+
+        return flags;
+    }
+}
@@ -1,6 +1,9 @@
 package com.reactnativecommunity.rctaudiotoolkit;
 
+import android.annotation.TargetApi;
+import android.content.ComponentCallbacks2;
 import android.content.Context;
+import android.content.res.Configuration;
 import android.media.AudioManager;
 import android.media.MediaPlayer;
 import android.media.PlaybackParams;
@@ -8,80 +11,184 @@ import android.media.AudioAttributes;
 import android.media.AudioAttributes.Builder;
 import android.os.Build;
 import android.os.Environment;
+import android.os.Handler;
+import android.os.Looper;
 import android.os.PowerManager;
+import android.os.SystemClock;
+import android.util.Base64;
 import android.util.Log;
 import android.net.Uri;
 import android.content.ContextWrapper;
 
-import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.LifecycleEventListener;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
-import com.facebook.react.bridge.WritableNativeMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 
 import java.io.IOException;
 import java.io.File;
 import java.lang.Thread;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.LinkedHashMap;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
-
-public class AudioPlayerModule extends ReactContextBaseJavaModule implements MediaPlayer.OnInfoListener,
-        MediaPlayer.OnErrorListener, MediaPlayer.OnCompletionListener, MediaPlayer.OnSeekCompleteListener,
-        MediaPlayer.OnBufferingUpdateListener, LifecycleEventListener, AudioManager.OnAudioFocusChangeListener {
+import java.util.Set;
+import java.util.TreeSet;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+
+public class AudioPlayerModule extends ReactContextBaseJavaModule implements PlayerBackend.Listener,
+        LifecycleEventListener, AudioFocusManager.Listener,
+        AudioPlaybackService.Listener, ComponentCallbacks2 {
     private static final String LOG_TAG = "AudioPlayerModule";
 
-    Map<Integer, MediaPlayer> playerPool = new HashMap<>();
+    // ReplayGain 2.0 reference level
+    private static final double DEFAULT_TARGET_LOUDNESS = -18.0;
+    private static final int PROBE_CACHE_SIZE = 1000;
+
+    // How a seek should trade accuracy for speed
+    private static final int SEEK_DEFAULT = 0;
+    private static final int SEEK_FAST = 1;
+    private static final int SEEK_PRECISE = 2;
+
+    // Volume factor applied while another app ducks our audio
+    private static final float DUCK_VOLUME = 0.2f;
+
+    // Loop regions are checked at most this far apart, and the seek back is started this early
+    private static final int LOOP_CHECK_INTERVAL = 250;
+    private static final int LOOP_SEEK_LEAD = 20;
+
+    Map<Integer, PlayerBackend> playerPool = new HashMap<>();
     Map<Integer, Boolean> playerAutoDestroy = new HashMap<>();
     Map<Integer, Boolean> playerContinueInBackground = new HashMap<>();
     Map<Integer, Callback> playerSeekCallback = new HashMap<>();
+    // Callbacks of prepares in progress, answered with an error if the player fails or is destroyed first
+    Map<Integer, Callback> playerPrepareCallback = new HashMap<>();
+    Map<Integer, Long> playerSeekStart = new HashMap<>();
+    Map<Integer, Boolean> playerScrubbing = new HashMap<>();
+    // Latest target requested while a scrubbing seek was still in progress
+    Map<Integer, Integer> playerPendingSeek = new HashMap<>();
+    Map<Integer, Integer> playerSeekTarget = new HashMap<>();
     Map<Integer, Float> playerSpeed = new HashMap<>();
+    Map<Integer, Float> playerPitch = new HashMap<>();
+    Map<Integer, Float> playerVolume = new HashMap<>();
+    Map<Integer, String> playerPath = new HashMap<>();
+    Map<Integer, PlayerEffects> playerEffects = new HashMap<>();
+    // Push mode players fed with PCM chunks from JS, also read from the JS thread by getCurrentTimeSync()
+    Map<Integer, StreamPlayer> streamPlayers = new ConcurrentHashMap<>();
+    Map<Integer, SpectrumAnalyzer> playerAnalyzers = new HashMap<>();
+
+    // Read from the JS thread by the synchronous query methods
+    Map<Integer, PlayerStatus> playerStatus = new ConcurrentHashMap<>();
+
+    // Normalization gains in millibels, cached per path so they don't need to be resent on every prepare
+    Map<String, Integer> pathGain = new HashMap<>();
+
+    // Loop settings, loop points in milliseconds with -1 for the end of the file
+    Map<Integer, Boolean> playerLooping = new HashMap<>();
+    Map<Integer, Integer> playerLoopStart = new HashMap<>();
+    Map<Integer, Integer> playerLoopEnd = new HashMap<>();
+    // Position and time of the last loop check, used to count the wraps of whole file loops
+    Map<Integer, Integer> playerLoopPosition = new HashMap<>();
+    Map<Integer, Long> playerLoopTime = new HashMap<>();
+    // Players seeking back to their loop start, which emits "looped" instead of "seeked"
+    Set<Integer> loopSeekPlayers = new HashSet<>();
+    private final Handler loopHandler = new Handler(Looper.getMainLooper());
+    private boolean loopCheckScheduled = false;
 
-    boolean looping = false;
     private ReactApplicationContext context;
-    private AudioManager mAudioManager;
-    private Integer lastPlayerId;
-    boolean mixWithOthers = false;
+    private final PlayerBackend.Factory playerFactory;
+    private AudioFocusManager focusManager;
+    Map<Integer, Boolean> playerMixWithOthers = new HashMap<>();
+    // Players paused by a transient focus loss, resumed when focus is regained
+    Set<Integer> focusPausedPlayers = new HashSet<>();
+    boolean ducked = false;
+
+    // Players that keep the playback service in the foreground while the app is in the background
+    Map<Integer, Boolean> playerForegroundService = new HashMap<>();
+    Map<Integer, String> playerTitle = new HashMap<>();
+    // Players paused from the notification or media buttons, resumed by a remote play command
+    Set<Integer> remotePausedPlayers = new HashSet<>();
+    private boolean hostPaused = false;
+
+    // Prepared players in least recently used order, candidates for eviction under memory pressure
+    Map<Integer, Boolean> playerUsage = new LinkedHashMap<>(16, 0.75f, true);
+    Set<Integer> preparedPlayers = new HashSet<>();
+    Map<Integer, ReadableMap> playerOptions = new HashMap<>();
+    Map<Integer, ReadableArray> playerEqualizer = new HashMap<>();
+    Map<Integer, EvictedPlayer> evictedPlayers = new HashMap<>();
+    // Maximum number of prepared players, 0 for no limit
+    private int maxPreparedPlayers = 0;
+    private ExecutorService analysisExecutor;
+    // Reports spectrum levels of all analyzers
+    private ScheduledExecutorService spectrumExecutor;
+    private LoudnessIndex loudnessIndex;
+    private SessionStore sessionStore;
+    // Sessions of the previous run, loaded on startup and dropped once restored, in the order
+    // getSessions() reports and restoreSessions() expects them
+    private List<SessionStore.Session> restorableSessions;
+    private MetadataProbe metadataProbe;
 
     public AudioPlayerModule(ReactApplicationContext reactContext) {
+        this(reactContext, PlayerBackend.Factory.MEDIA_PLAYER);
+    }
+
+    AudioPlayerModule(ReactApplicationContext reactContext, PlayerBackend.Factory playerFactory) {
         super(reactContext);
         this.context = reactContext;
+        this.playerFactory = playerFactory;
         reactContext.addLifecycleEventListener(this);
-        this.mAudioManager = (AudioManager) this.context.getSystemService(Context.AUDIO_SERVICE);
+        this.focusManager = new AudioFocusManager(this.context, (AudioManager) this.context.getSystemService(Context.AUDIO_SERVICE), this);
+        this.context.getApplicationContext().registerComponentCallbacks(this);
+
+        // Read the previous run's snapshot before players of this run start replacing it
+        this.restorableSessions = getSessionStore().load();
     }
 
     @Override
     public void onHostResume() {
         // Activity `onResume`
+        this.hostPaused = false;
+        this.remotePausedPlayers.clear();
+        AudioPlaybackService.detach(this);
+        AudioPlaybackService.stop(this.context);
     }
 
     @Override
     public void onHostPause() {
         // Need to create a copy here because it is possible for other code to modify playerPool
         // at the same time which will lead to a ConcurrentModificationException being thrown
-        Map<Integer, MediaPlayer> playerPoolCopy = new HashMap<>(this.playerPool);
+        Map<Integer, PlayerBackend> playerPoolCopy = new HashMap<>(this.playerPool);
 
-        for (Map.Entry<Integer, MediaPlayer> entry : playerPoolCopy.entrySet()) {
+        for (Map.Entry<Integer, PlayerBackend> entry : playerPoolCopy.entrySet()) {
             Integer playerId = entry.getKey();
 
             if (!this.playerContinueInBackground.get(playerId)) {
-                MediaPlayer player = entry.getValue();
+                PlayerBackend player = entry.getValue();
                 if (player == null) {
                     continue;
                 }
 
                 try {
                     player.pause();
+                    releaseFocus(playerId);
 
-                    WritableMap info = getInfo(player);
+                    WritableMap info = getInfo(playerId, player);
 
-                    WritableMap data = new WritableNativeMap();
+                    WritableMap data = JsMaps.createMap();
                     data.putString("message", "Playback paused due to onHostPause");
                     data.putMap("info", info);
 
@@ -91,6 +198,32 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements Med
                 }
             }
         }
+
+        for (Map.Entry<Integer, StreamPlayer> entry : this.streamPlayers.entrySet()) {
+            Integer playerId = entry.getKey();
+            StreamPlayer stream = entry.getValue();
+
+            if (continuesInBackground(playerId) || !stream.isPlaying()) {
+                continue;
+            }
+
+            stream.pause();
+            releaseFocus(playerId);
+
+            WritableMap data = JsMaps.createMap();
+            data.putString("message", "Playback paused due to onHostPause");
+            data.putMap("info", getStreamInfo(stream));
+
+            emitEvent(playerId, "pause", data);
+        }
+
+        this.hostPaused = true;
+        AudioPlaybackService.attach(this);
+        updatePlaybackService();
+
+        // Positions move on while playing, so take a fresh snapshot in case the app is killed
+        saveSessions();
+        getSessionStore().flush();
     }
 
     @Override
@@ -103,33 +236,73 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements Med
         return "RCTAudioPlayer";
     }
 
+    @Override
+    public void onCatalystInstanceDestroy() {
+        this.context.getApplicationContext().unregisterComponentCallbacks(this);
+        AudioPlaybackService.detach(this);
+        AudioPlaybackService.stop(this.context);
+
+        synchronized (this) {
+            if (this.analysisExecutor != null) {
+                this.analysisExecutor.shutdownNow();
+                this.analysisExecutor = null;
+            }
+            if (this.sessionStore != null) {
+                this.sessionStore.shutdown();
+            }
+        }
+
+        for (SpectrumAnalyzer analyzer : this.playerAnalyzers.values()) {
+            analyzer.release();
+        }
+        this.playerAnalyzers.clear();
+        synchronized (this) {
+            if (this.spectrumExecutor != null) {
+                this.spectrumExecutor.shutdownNow();
+                this.spectrumExecutor = null;
+            }
+        }
+
+        for (StreamPlayer stream : this.streamPlayers.values()) {
+            stream.release();
+        }
+        this.streamPlayers.clear();
+    }
+
     private void emitEvent(Integer playerId, String event, WritableMap data) {
-        WritableMap payload = new WritableNativeMap();
+        long start = AudioMetrics.now();
+        AudioMetrics.beginSection("RCTAudioPlayer.emitEvent");
+
+        WritableMap payload = JsMaps.createMap();
         payload.putString("event", event);
         payload.putMap("data", data);
 
         this.context
                 .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
                 .emit("RCTAudioPlayerEvent:" + playerId, payload);
+
+        AudioMetrics.endSection();
+        AudioMetrics.record(AudioMetrics.EMIT_EVENT, start);
     }
 
     private WritableMap errObj(final String code, final String message, final boolean enableLog) {
-        WritableMap err = Arguments.createMap();
-
-        String stackTraceString = "";
-        try {
-            StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
-            for (StackTraceElement e : stackTrace) {
-                stackTraceString += (e != null ? e.toString() : "null") + "\n";
-            }
-        } catch (Exception e) {
-            stackTraceString = "Exception occurred while parsing stack trace";
-        }
+        WritableMap err = JsMaps.createMap();
 
         err.putString("err", code);
         err.putString("message", message);
 
+        // Expected errors (e.g. superseded seeks) can be frequent, so skip collecting the stack trace for them
         if (enableLog) {
+            String stackTraceString = "";
+            try {
+                StackTraceElement[] stackTrace = Thread.currentThread().getStackTrace();
+                for (StackTraceElement e : stackTrace) {
+                    stackTraceString += (e != null ? e.toString() : "null") + "\n";
+                }
+            } catch (Exception e) {
+                stackTraceString = "Exception occurred while parsing stack trace";
+            }
+
             err.putString("stackTrace", stackTraceString);
             Log.e(LOG_TAG, message);
             Log.d(LOG_TAG, stackTraceString);
@@ -186,20 +359,81 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements Med
 
     @ReactMethod
     public void destroy(Integer playerId, Callback callback) {
-        MediaPlayer player = this.playerPool.get(playerId);
+        releaseAnalyzer(playerId);
+
+        StreamPlayer stream = this.streamPlayers.remove(playerId);
+        if (stream != null) {
+            stream.release();
+            releaseFocus(playerId);
+            this.playerVolume.remove(playerId);
+            this.playerSpeed.remove(playerId);
+            this.playerPitch.remove(playerId);
+            this.playerMixWithOthers.remove(playerId);
+            this.playerContinueInBackground.remove(playerId);
+            this.playerForegroundService.remove(playerId);
+            this.playerTitle.remove(playerId);
+            this.remotePausedPlayers.remove(playerId);
+            updatePlaybackService();
+
+            WritableMap data = JsMaps.createMap();
+            data.putString("message", "Destroyed player");
+
+            emitEvent(playerId, "info", data);
+        }
+
+        PlayerBackend player = this.playerPool.get(playerId);
+        EvictedPlayer evicted = this.evictedPlayers.remove(playerId);
+
+        if (player != null || evicted != null) {
+            Callback prepareCallback = this.playerPrepareCallback.remove(playerId);
+            if (prepareCallback != null) {
+                prepareCallback.invoke(errObj("prepare", "Player was destroyed while preparing"));
+            }
 
-        if (player != null) {
-            player.release();
+            releaseFocus(playerId);
+            if (player != null) {
+                player.release();
+            }
             this.playerPool.remove(playerId);
+            this.playerUsage.remove(playerId);
+            this.preparedPlayers.remove(playerId);
+            this.playerOptions.remove(playerId);
+            this.playerEqualizer.remove(playerId);
+            this.playerMixWithOthers.remove(playerId);
+            this.playerForegroundService.remove(playerId);
+            this.playerTitle.remove(playerId);
+            this.remotePausedPlayers.remove(playerId);
             this.playerAutoDestroy.remove(playerId);
             this.playerContinueInBackground.remove(playerId);
             this.playerSeekCallback.remove(playerId);
+            this.playerSeekStart.remove(playerId);
+            this.playerScrubbing.remove(playerId);
+            this.playerPendingSeek.remove(playerId);
+            this.playerSeekTarget.remove(playerId);
             this.playerSpeed.remove(playerId);
+            this.playerPitch.remove(playerId);
+            this.playerLooping.remove(playerId);
+            this.playerLoopStart.remove(playerId);
+            this.playerLoopEnd.remove(playerId);
+            this.playerLoopPosition.remove(playerId);
+            this.playerLoopTime.remove(playerId);
+            this.loopSeekPlayers.remove(playerId);
+            this.playerVolume.remove(playerId);
+            this.playerPath.remove(playerId);
+            this.playerStatus.remove(playerId);
+
+            PlayerEffects effects = this.playerEffects.remove(playerId);
+            if (effects != null) {
+                effects.release();
+            }
 
-            WritableMap data = new WritableNativeMap();
+            WritableMap data = JsMaps.createMap();
             data.putString("message", "Destroyed player");
 
             emitEvent(playerId, "info", data);
+
+            updatePlaybackService();
+            saveSessions();
         }
 
         if (callback != null) {
@@ -212,8 +446,17 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements Med
     }
 
     @ReactMethod
-    public void seek(Integer playerId, Integer position, Callback callback) {
-        MediaPlayer player = this.playerPool.get(playerId);
+    public void seek(final Integer playerId, final Integer position, final Callback callback) {
+        if (restoreIfEvicted(playerId, callback, new Runnable() {
+            @Override
+            public void run() {
+                seek(playerId, position, callback);
+            }
+        })) {
+            return;
+        }
+
+        PlayerBackend player = this.playerPool.get(playerId);
         if (player == null) {
             callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
             return;
@@ -228,22 +471,91 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements Med
             }
 
             this.playerSeekCallback.put(playerId, callback);
+
+            if (isScrubbing(playerId)) {
+                // Coalesce seeks while dragging: only the latest target is sought once the current seek completes
+                this.playerSeekTarget.put(playerId, position);
+                if (this.playerSeekStart.containsKey(playerId)) {
+                    this.playerPendingSeek.put(playerId, position);
+                } else {
+                    seekTo(playerId, player, position, SEEK_FAST);
+                }
+            } else {
+                seekTo(playerId, player, position, SEEK_DEFAULT);
+            }
+        }
+    }
+
+    private boolean isScrubbing(Integer playerId) {
+        Boolean scrubbing = this.playerScrubbing.get(playerId);
+        return scrubbing != null && scrubbing;
+    }
+
+    private void seekTo(Integer playerId, PlayerBackend player, int position, int mode) {
+        this.playerSeekStart.put(playerId, AudioMetrics.now());
+        this.playerLoopPosition.remove(playerId);
+        AudioMetrics.beginAsyncSection("RCTAudioPlayer.seek", playerId);
+
+        // Seek modes were only added in API 26
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && mode == SEEK_FAST) {
+            player.seekTo((long) position, MediaPlayer.SEEK_CLOSEST_SYNC);
+        } else if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O && mode == SEEK_PRECISE) {
+            player.seekTo((long) position, MediaPlayer.SEEK_CLOSEST);
+        } else {
             player.seekTo(position);
         }
     }
 
-    private WritableMap getInfo(MediaPlayer player) {
-        WritableMap info = Arguments.createMap();
+    // Leave scrub mode, finishing with a precise seek to the latest target
+    private void endScrubbing(Integer playerId, PlayerBackend player) {
+        this.playerScrubbing.put(playerId, false);
+
+        Integer target = this.playerSeekTarget.remove(playerId);
+        if (target == null) {
+            return;
+        }
+
+        if (this.playerSeekStart.containsKey(playerId)) {
+            // Issued in precise mode from onSeekComplete, as scrubbing is now off
+            this.playerPendingSeek.put(playerId, target);
+        } else {
+            seekTo(playerId, player, target, SEEK_PRECISE);
+        }
+    }
+
+    private WritableMap getInfo(Integer playerId, PlayerBackend player) {
+        WritableMap info = JsMaps.createMap();
 
         info.putDouble("duration", player.getDuration());
         info.putDouble("position", player.getCurrentPosition());
         info.putDouble("audioSessionId", player.getAudioSessionId());
 
+        updateStatus(playerId, player);
+        if (this.playerPool.containsKey(playerId)) {
+            this.playerUsage.put(playerId, true);
+        }
+
         return info;
     }
 
+    // Refresh the snapshot read by the synchronous query methods
+    private void updateStatus(Integer playerId, PlayerBackend player) {
+        PlayerStatus status = this.playerStatus.get(playerId);
+        if (status == null) {
+            return;
+        }
+
+        float speed = 1.0f;
+        Float speedValue = this.playerSpeed.get(playerId);
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && speedValue != null) {
+            speed = speedValue;
+        }
+
+        status.update(player.getDuration(), player.getCurrentPosition(), player.isPlaying(), speed);
+    }
+
     @ReactMethod
-    public void prepare(Integer playerId, String path, ReadableMap options, final Callback callback) {
+    public void prepare(final Integer playerId, String path, ReadableMap options, final Callback callback) {
         if (path == null || path.isEmpty()) {
             callback.invoke(errObj("nopath", "Provided path was empty"));
             return;
@@ -251,10 +563,8 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements Med
 
         // Release old player if exists
         destroy(playerId);
-        this.lastPlayerId = playerId;
 
-        //MediaPlayer player = MediaPlayer.create(this.context, uri, null, attributes);
-        MediaPlayer player = new MediaPlayer();
+        final PlayerBackend player = this.playerFactory.create();
 
         /*
         AudioAttributes attributes = new AudioAttributes.Builder()
@@ -283,20 +593,40 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements Med
             }
         }
 
-        player.setOnErrorListener(this);
-        player.setOnInfoListener(this);
-        player.setOnCompletionListener(this);
-        player.setOnSeekCompleteListener(this);
-        player.setOnPreparedListener(new MediaPlayer.OnPreparedListener() { // Async preparing, so we need to run the callback after preparing has finished
+        player.setListener(this);
+        final long prepareStart = AudioMetrics.now();
+        AudioMetrics.beginAsyncSection("RCTAudioPlayer.prepare", playerId);
 
+        // Async preparing, so we need to run the callback after preparing has finished
+        Runnable onPrepared = new Runnable() {
             @Override
-            public void onPrepared(MediaPlayer player) {
-                callback.invoke(null, getInfo(player));
+            public void run() {
+                AudioMetrics.record(AudioMetrics.PLAYER_PREPARE, prepareStart);
+                AudioMetrics.endAsyncSection("RCTAudioPlayer.prepare", playerId);
+                preparedPlayers.add(playerId);
+                playerPrepareCallback.remove(playerId);
+                callback.invoke(null, getInfo(playerId, player));
+                enforcePlayerBudget(playerId);
+                saveSessions();
             }
-
-        });
+        };
 
         this.playerPool.put(playerId, player);
+        this.playerStatus.put(playerId, new PlayerStatus());
+        this.playerPath.put(playerId, path);
+        this.playerOptions.put(playerId, options);
+
+        // Reapply a normalization gain that was previously set for this file, or
+        // use the result of an earlier loudness analysis if normalization was requested
+        Integer gain = this.pathGain.get(path);
+        if (gain == null && options.hasKey("normalizeLoudness") && options.getBoolean("normalizeLoudness")) {
+            gain = getStoredGain(path, getTargetLoudness(options));
+        }
+
+        if (gain != null) {
+            getEffects(playerId, player).setGain(gain);
+            applyVolume(playerId, player);
+        }
 
         // Auto destroy player by default
         boolean autoDestroy = true;
@@ -305,6 +635,20 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements Med
             autoDestroy = options.getBoolean("autoDestroy");
         }
 
+        this.playerAutoDestroy.put(playerId, autoDestroy);
+        storeBackgroundOptions(playerId, options);
+
+        try {
+            this.playerPrepareCallback.put(playerId, callback);
+            player.prepareAsync(onPrepared);
+        } catch (Exception e) {
+            this.playerPrepareCallback.remove(playerId);
+            callback.invoke(errObj("prepare", e.toString()));
+        }
+    }
+
+    // Options shared by players and streams: background playback and audio focus
+    private void storeBackgroundOptions(Integer playerId, ReadableMap options) {
         // Don't continue in background by default
         boolean continueInBackground = false;
 
@@ -313,266 +657,1090 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements Med
         }
 
         // Don't mix audio with others by default
-        this.mixWithOthers = false;
+        boolean mixWithOthers = false;
 
         if (options.hasKey("mixWithOthers")) {
-            this.mixWithOthers = options.getBoolean("mixWithOthers");
+            mixWithOthers = options.getBoolean("mixWithOthers");
         }
 
-        this.playerAutoDestroy.put(playerId, autoDestroy);
+        this.playerMixWithOthers.put(playerId, mixWithOthers);
         this.playerContinueInBackground.put(playerId, continueInBackground);
 
-        try {
-            player.prepareAsync();
-        } catch (Exception e) {
-            callback.invoke(errObj("prepare", e.toString()));
+        // Only keep the playback service running for players that opt in
+        if (options.hasKey("foregroundService")) {
+            this.playerForegroundService.put(playerId, options.getBoolean("foregroundService"));
+        }
+        if (options.hasKey("title")) {
+            this.playerTitle.put(playerId, options.getString("title"));
         }
     }
 
     @ReactMethod
-    public void set(Integer playerId, ReadableMap options, Callback callback) {
-        MediaPlayer player = this.playerPool.get(playerId);
-        if (player == null) {
-            callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
-            return;
-        }
-
-        if (options.hasKey("wakeLock")) {
-            // TODO: can we disable the wake lock also?
-            if (options.getBoolean("wakeLock")) {
-                player.setWakeMode(this.context, PowerManager.PARTIAL_WAKE_LOCK);
-            }
-        }
-
-        if (options.hasKey("autoDestroy")) {
-            this.playerAutoDestroy.put(playerId, options.getBoolean("autoDestroy"));
-        }
+    public void analyzeLoudness(ReadableArray paths, ReadableMap options, Callback callback) {
+        final double targetLoudness = getTargetLoudness(options);
+        final LoudnessIndex index = getLoudnessIndex();
 
-        if (options.hasKey("continuesToPlayInBackground")) {
-            this.playerContinueInBackground.put(playerId, options.getBoolean("continuesToPlayInBackground"));
-        }
+        runBatch(paths, "analyzefail", new BatchTask() {
+            @Override
+            public void run(String path, WritableMap result) throws Exception {
+                Uri uri = uriFromPath(path);
+                File file = "file".equals(uri.getScheme()) ? new File(uri.getPath()) : null;
+
+                LoudnessAnalyzer.Result loudness = file != null ? index.get(file) : null;
+                if (loudness == null) {
+                    loudness = LoudnessAnalyzer.analyze(context, uri);
+                    if (file != null) {
+                        index.put(file, loudness);
+                    }
+                }
 
-        if (options.hasKey("volume") && !options.isNull("volume")) {
-            double vol = options.getDouble("volume");
-            player.setVolume((float) vol, (float) vol);
-        }
+                result.putDouble("loudness", loudness.loudness);
+                result.putDouble("peak", loudness.peak);
+                result.putInt("gain", LoudnessAnalyzer.gainFor(loudness, targetLoudness));
+            }
 
-        if (options.hasKey("looping") && !options.isNull("looping")) {
-            this.looping = options.getBoolean("looping");
-        }
+            @Override
+            public void done() {
+                index.save();
+            }
+        }, callback);
+    }
 
-        // `PlaybackParams` was only added in API 23
-        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && (options.hasKey("speed") || options.hasKey("pitch"))) {
-            PlaybackParams params = new PlaybackParams();
+    @ReactMethod
+    public void probe(ReadableArray paths, Callback callback) {
+        final MetadataProbe probe = getMetadataProbe();
 
-            if (options.hasKey("speed") && !options.isNull("speed")) {
-                // If the player wasn't already playing, then setting the speed value to a non-zero value
-                // will start it playing and we don't want that so we store and apply it later
-                float speedValue = (float) options.getDouble("speed");
-                this.playerSpeed.put(playerId, speedValue);
-                // Apply param only if isPlaying. If not, we defer it on start
-                if (player.isPlaying()) params.setSpeed(speedValue);
+        runBatch(paths, "probefail", new BatchTask() {
+            @Override
+            public void run(String path, WritableMap result) throws Exception {
+                MetadataProbe.Result metadata = probe.probe(context, path, uriFromPath(path));
+
+                result.putDouble("duration", metadata.duration);
+                result.putString("codec", metadata.codec);
+                result.putInt("sampleRate", metadata.sampleRate);
+                result.putInt("channels", metadata.channels);
+                result.putInt("bitrate", metadata.bitrate);
             }
 
-            if (options.hasKey("pitch") && !options.isNull("pitch")) {
-                params.setPitch((float) options.getDouble("pitch"));
+            @Override
+            public void done() {
             }
+        }, callback);
+    }
 
-            player.setPlaybackParams(params);
-
-            if (needToPauseAfterSet && player.isPlaying()) {
-                player.pause();
-            }
-        }
+    private interface BatchTask {
+        void run(String path, WritableMap result) throws Exception;
 
-        callback.invoke();
+        void done();
     }
 
-    @ReactMethod
-    public void play(Integer playerId, Callback callback) {
-        MediaPlayer player = this.playerPool.get(playerId);
-        if (player == null) {
-            callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
+    // Run a task for every path on the analysis thread pool and invoke the callback
+    // once with an array containing the results in the same order as `paths`
+    private void runBatch(ReadableArray paths, final String errorCode, final BatchTask task, final Callback callback) {
+        final int count = paths.size();
+
+        if (count == 0) {
+            callback.invoke(null, JsMaps.createArray());
             return;
         }
 
-        try {
-            if (!this.mixWithOthers) {
-                this.mAudioManager.requestAudioFocus(this, AudioManager.STREAM_MUSIC, AudioManager.AUDIOFOCUS_GAIN);
-            }
+        final WritableMap[] results = new WritableMap[count];
+        final AtomicInteger remaining = new AtomicInteger(count);
 
-            // Let's start using setSpeed when supported
-            Float speedValue = this.playerSpeed.get(playerId);
-            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && speedValue != null) {
-                PlaybackParams params = new PlaybackParams();
-                params.setSpeed(speedValue);
-                player.setPlaybackParams(params);
+        for (int i = 0; i < count; i++) {
+            final int position = i;
+            final String path = paths.getString(i);
 
-                // Check if device is honoring android spec: when setSpeed player should start
-                // https://developer.android.com/reference/android/media/MediaPlayer#setPlaybackParams(android.media.PlaybackParams)
-                // If that is not happening, explicitly call start
-                if (!player.isPlaying()) {
-                    player.start();
-                }
-            } else {
-                player.start();
-            }
+            getAnalysisExecutor().execute(new Runnable() {
+                @Override
+                public void run() {
+                    WritableMap result = JsMaps.createMap();
+                    result.putString("path", path);
 
-            callback.invoke(null, getInfo(player));
-        } catch (Exception e) {
-            callback.invoke(errObj("playback", e.toString()));
+                    try {
+                        task.run(path, result);
+                    } catch (Exception e) {
+                        result.putMap("err", errObj(errorCode, e.toString()));
+                    }
+
+                    results[position] = result;
+
+                    if (remaining.decrementAndGet() == 0) {
+                        task.done();
+
+                        WritableArray array = JsMaps.createArray();
+                        for (WritableMap r : results) {
+                            array.pushMap(r);
+                        }
+                        callback.invoke(null, array);
+                    }
+                }
+            });
         }
     }
 
-    @ReactMethod
-    public void pause(Integer playerId, Callback callback) {
-        MediaPlayer player = this.playerPool.get(playerId);
-        if (player == null) {
-            callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
-            return;
+    private synchronized ExecutorService getAnalysisExecutor() {
+        if (this.analysisExecutor == null) {
+            int threads = Math.max(1, Runtime.getRuntime().availableProcessors() - 1);
+            this.analysisExecutor = Executors.newFixedThreadPool(threads);
         }
 
-        try {
+        return this.analysisExecutor;
+    }
 
-            player.pause();
+    private synchronized MetadataProbe getMetadataProbe() {
+        if (this.metadataProbe == null) {
+            this.metadataProbe = new MetadataProbe(PROBE_CACHE_SIZE);
+        }
 
-            WritableMap info = getInfo(player);
+        return this.metadataProbe;
+    }
 
-            WritableMap data = new WritableNativeMap();
-            data.putString("message", "Playback paused");
-            data.putMap("info", info);
+    // Streaming
 
-            emitEvent(playerId, "pause", data);
+    /**
+     * Create a push mode player for 16-bit PCM that is appended with `write()`. Options are
+     * `sampleRate`, `channels`, `bufferDuration` (capacity in ms) and `startThreshold` (ms buffered
+     * before playback starts or resumes after an underrun).
+     */
+    @ReactMethod
+    public void openStream(final Integer playerId, ReadableMap options, Callback callback) {
+        if (this.streamPlayers.containsKey(playerId) || this.playerPool.containsKey(playerId)) {
+            callback.invoke(errObj("invalidstate", "playerId " + playerId + " is already in use."));
+            return;
+        }
 
-            callback.invoke(null, getInfo(player));
+        int sampleRate = options.hasKey("sampleRate") ? options.getInt("sampleRate") : 44100;
+        int channels = options.hasKey("channels") ? options.getInt("channels") : 1;
+        int bufferDuration = options.hasKey("bufferDuration") ? options.getInt("bufferDuration") : 2000;
+        int startThreshold = options.hasKey("startThreshold") ? options.getInt("startThreshold") : 200;
 
-        } catch (Exception e) {
-            callback.invoke(errObj("pause", e.toString()));
+        if (channels != 1 && channels != 2) {
+            callback.invoke(errObj("invalidformat", "Streams must have 1 or 2 channels"));
+            return;
         }
-    }
 
-    @ReactMethod
-    public void stop(Integer playerId, Callback callback) {
-        MediaPlayer player = this.playerPool.get(playerId);
-        if (player == null) {
-            callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
+        if (sampleRate <= 0 || bufferDuration <= 0 || startThreshold <= 0) {
+            callback.invoke(errObj("invalidformat", "sampleRate, bufferDuration and startThreshold must be positive"));
             return;
         }
 
+        StreamPlayer stream;
         try {
-            if (this.playerAutoDestroy.get(playerId)) {
-                player.pause();
-                Log.d(LOG_TAG, "stop(): Autodestroying player...");
-                destroy(playerId);
-                callback.invoke();
-            } else {
-                // "Fake" stopping on Android by pausing and seeking to 0 so
-                // that we remain in prepared state
-                Callback oldCallback = this.playerSeekCallback.get(playerId);
-
-                if (oldCallback != null) {
-                    oldCallback.invoke(errObj("seekfail", "Playback stopped before seek operation could finish"));
-                    this.playerSeekCallback.remove(playerId);
-                }
-
-                this.playerSeekCallback.put(playerId, callback);
+            stream = new StreamPlayer(sampleRate, channels, bufferDuration, Math.min(startThreshold, bufferDuration),
+                    new StreamPlayer.Listener() {
+                        @Override
+                        public void onBufferLevel(int bufferedMs) {
+                            WritableMap data = JsMaps.createMap();
+                            data.putInt("buffered", bufferedMs);
+
+                            emitEvent(playerId, "bufferLevel", data);
+                        }
+
+                        @Override
+                        public void onUnderrun(int underruns) {
+                            WritableMap data = JsMaps.createMap();
+                            data.putString("message", "Stream ran out of data, buffering");
+                            data.putInt("underruns", underruns);
+
+                            emitEvent(playerId, "underrun", data);
+                        }
+
+                        @Override
+                        public void onEnded() {
+                            context.runOnNativeModulesQueueThread(new Runnable() {
+                                @Override
+                                public void run() {
+                                    releaseFocus(playerId);
+                                    updatePlaybackService();
+
+                                    WritableMap data = JsMaps.createMap();
+                                    data.putString("message", "Playback completed");
+
+                                    emitEvent(playerId, "ended", data);
+                                }
+                            });
+                        }
+                    });
+        } catch (IllegalArgumentException | IllegalStateException e) {
+            callback.invoke(errObj("invalidformat", e.toString()));
+            return;
+        }
 
-                player.seekTo(0);
-                player.pause();
-            }
-        } catch (Exception e) {
-            callback.invoke(errObj("stop", e.toString()));
+        this.streamPlayers.put(playerId, stream);
+        storeBackgroundOptions(playerId, options);
+        if (options.hasKey("volume") && !options.isNull("volume")) {
+            this.playerVolume.put(playerId, (float) options.getDouble("volume"));
         }
+        applyStreamVolume(playerId, stream);
+        setStreamRate(playerId, stream, options);
+
+        callback.invoke(null, getStreamInfo(stream));
     }
 
+    /**
+     * Append a base64 encoded PCM chunk. Chunks are accepted whole or not at all; a `bufferfull`
+     * error means the chunk should be written again once some of the buffer has been played.
+     */
     @ReactMethod
-    public void getCurrentTime(Integer playerId, Callback callback) {
-        MediaPlayer player = this.playerPool.get(playerId);
-        if (player == null) {
+    public void write(Integer playerId, String chunk, Callback callback) {
+        StreamPlayer stream = this.streamPlayers.get(playerId);
+        if (stream == null) {
             callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
             return;
         }
 
+        if (stream.isEnded()) {
+            callback.invoke(errObj("invalidstate", "Stream was ended, stop() it before writing again"));
+            return;
+        }
+
+        byte[] data;
         try {
-            callback.invoke(null, getInfo(player));
-        } catch (Exception e) {
-            callback.invoke(errObj("getCurrentTime", e.toString()));
+            data = Base64.decode(chunk, Base64.DEFAULT);
+        } catch (IllegalArgumentException e) {
+            callback.invoke(errObj("invalidchunk", e.toString()));
+            return;
         }
+
+        if (!stream.write(data)) {
+            callback.invoke(errObj("bufferfull", "Stream buffer has no room for " + data.length + " bytes", false));
+            return;
+        }
+
+        callback.invoke(null, getStreamInfo(stream));
     }
 
-    // Find playerId matching player from playerPool
-    private Integer getPlayerId(MediaPlayer player) {
-        for (Entry<Integer, MediaPlayer> entry : playerPool.entrySet()) {
-            if (equals(player, entry.getValue())) {
-                return entry.getKey();
-            }
+    /**
+     * Mark the end of the stream; "ended" is emitted once all buffered audio has been played.
+     */
+    @ReactMethod
+    public void endStream(Integer playerId, Callback callback) {
+        StreamPlayer stream = this.streamPlayers.get(playerId);
+        if (stream == null) {
+            callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
+            return;
         }
 
-        return null;
+        stream.end();
+        callback.invoke(null, getStreamInfo(stream));
     }
 
-    @Override
-    public void onBufferingUpdate(MediaPlayer player, int percent) {
-        Integer playerId = getPlayerId(player);
+    private WritableMap getStreamInfo(StreamPlayer stream) {
+        WritableMap info = JsMaps.createMap();
 
-        WritableMap data = new WritableNativeMap();
-        data.putString("message", "Status update for media stream buffering");
-        data.putInt("percent", percent);
-        emitEvent(playerId, "progress", data);
+        info.putDouble("duration", -1);
+        info.putDouble("position", stream.getPosition());
+        info.putDouble("audioSessionId", stream.getAudioSessionId());
+        info.putInt("buffered", stream.getBufferedMs());
+        info.putInt("capacity", stream.getCapacityMs());
+        info.putInt("underruns", stream.getUnderruns());
+
+        return info;
     }
 
-    @Override
-    public void onSeekComplete(MediaPlayer player) {
-        Integer playerId = getPlayerId(player);
+    // Streams change speed and pitch themselves, so unlike MediaPlayer this works below Android 6.0 too
+    private void setStreamRate(Integer playerId, StreamPlayer stream, ReadableMap options) {
+        if (!options.hasKey("speed") && !options.hasKey("pitch")) {
+            return;
+        }
 
-        // Invoke seek callback
-        Callback callback = this.playerSeekCallback.get(playerId);
-        if (callback != null) {
-            callback.invoke(null, getInfo(player));
-            this.playerSeekCallback.remove(playerId);
+        if (options.hasKey("speed") && !options.isNull("speed")) {
+            this.playerSpeed.put(playerId, (float) options.getDouble("speed"));
+        }
+        if (options.hasKey("pitch") && !options.isNull("pitch")) {
+            this.playerPitch.put(playerId, (float) options.getDouble("pitch"));
         }
 
-        // Emit "seeked" event
-        WritableMap data = new WritableNativeMap();
-        data.putString("message", "Seek operation completed");
-        emitEvent(playerId, "seeked", data);
+        Float speed = this.playerSpeed.get(playerId);
+        Float pitch = this.playerPitch.get(playerId);
+        stream.setRate(speed != null ? speed : 1.0f, pitch != null ? pitch : 1.0f);
     }
 
-    @Override
-    public void onCompletion(MediaPlayer player) {
-        Integer playerId = getPlayerId(player);
+    private void applyStreamVolume(Integer playerId, StreamPlayer stream) {
+        Float volume = this.playerVolume.get(playerId);
+        float vol = volume != null ? volume : 1.0f;
 
-        WritableMap data = new WritableNativeMap();
+        if (this.ducked && this.focusManager.isHolding(playerId)) {
+            vol *= DUCK_VOLUME;
+        }
 
-        player.seekTo(0);
-        if (this.looping) {
+        stream.setVolume(vol);
+    }
+
+    // Spectrum analysis
+
+    /**
+     * Report band levels of what the player plays as "spectrum" events. Options are `fftSize`,
+     * `window`, `bands` and `interval` (ms between events). Players other than streams are analyzed
+     * through a Visualizer, which needs the RECORD_AUDIO permission and captures at most 1024 samples.
+     */
+    @ReactMethod
+    public void startAnalyzer(final Integer playerId, ReadableMap options, Callback callback) {
+        releaseAnalyzer(playerId);
+
+        SpectrumAnalyzer.Listener listener = new SpectrumAnalyzer.Listener() {
+            @Override
+            public void onSpectrum(float[] bands) {
+                WritableArray levels = JsMaps.createArray();
+                for (float band : bands) {
+                    levels.pushDouble(band);
+                }
+
+                WritableMap data = JsMaps.createMap();
+                data.putArray("bands", levels);
+
+                emitEvent(playerId, "spectrum", data);
+            }
+        };
+
+        StreamPlayer stream = this.streamPlayers.get(playerId);
+        PlayerBackend player = this.playerPool.get(playerId);
+        if (stream == null && player == null) {
+            callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
+            return;
+        }
+
+        try {
+            SpectrumAnalyzer analyzer;
+            if (stream != null) {
+                // Streams already have the PCM at hand, so tap it directly
+                analyzer = SpectrumAnalyzer.forPcm(stream.getSampleRate(), options, getSpectrumExecutor(), listener);
+                stream.setTap(analyzer);
+            } else {
+                analyzer = SpectrumAnalyzer.forAudioSession(player.getAudioSessionId(), options,
+                        getSpectrumExecutor(), listener);
+            }
+            this.playerAnalyzers.put(playerId, analyzer);
+        } catch (RuntimeException e) {
+            callback.invoke(errObj("analyzerfail", e.toString()));
+            return;
+        }
+
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public void stopAnalyzer(Integer playerId, Callback callback) {
+        releaseAnalyzer(playerId);
+        callback.invoke();
+    }
+
+    private void releaseAnalyzer(Integer playerId) {
+        SpectrumAnalyzer analyzer = this.playerAnalyzers.remove(playerId);
+        if (analyzer == null) {
+            return;
+        }
+
+        StreamPlayer stream = this.streamPlayers.get(playerId);
+        if (stream != null) {
+            stream.setTap(null);
+        }
+        analyzer.release();
+    }
+
+    private synchronized ScheduledExecutorService getSpectrumExecutor() {
+        if (this.spectrumExecutor == null) {
+            this.spectrumExecutor = Executors.newSingleThreadScheduledExecutor();
+        }
+
+        return this.spectrumExecutor;
+    }
+
+    private synchronized SessionStore getSessionStore() {
+        if (this.sessionStore == null) {
+            this.sessionStore = new SessionStore(new File(this.context.getFilesDir(), "RCTAudioToolkitSessions.bin"));
+        }
+
+        return this.sessionStore;
+    }
+
+    // Sessions
+
+    // Snapshots are taken when a player changes state, i.e. is prepared, paused, seeked, set() or
+    // destroyed, and when the app goes to the background; SessionStore coalesces the writes
+    private void saveSessions() {
+        List<SessionStore.Session> sessions = new ArrayList<>();
+
+        for (Integer playerId : new TreeSet<>(this.playerPath.keySet())) {
+            String path = this.playerPath.get(playerId);
+            PlayerStatus status = this.playerStatus.get(playerId);
+
+            // Inline data can be large and is easy for the app to provide again
+            if (path == null || path.startsWith("data:") || status == null) {
+                continue;
+            }
+
+            Float speed = this.playerSpeed.get(playerId);
+            Float volume = this.playerVolume.get(playerId);
+
+            sessions.add(new SessionStore.Session(path, (int) Math.max(0, status.getPosition()),
+                    speed != null ? speed : 1.0f, volume != null ? volume : 1.0f, isLooping(playerId),
+                    getLoopStart(playerId), getLoopEnd(playerId)));
+        }
+
+        getSessionStore().save(sessions);
+    }
+
+    @ReactMethod
+    public void getSessions(Callback callback) {
+        WritableArray results = JsMaps.createArray();
+
+        // Sessions of the previous run, as loaded on startup, until they have been restored
+        if (this.restorableSessions == null) {
+            callback.invoke(null, results);
+            return;
+        }
+
+        for (SessionStore.Session session : this.restorableSessions) {
+            WritableMap result = JsMaps.createMap();
+            result.putString("path", session.path);
+            result.putInt("position", session.position);
+            result.putDouble("speed", session.speed);
+            result.putDouble("volume", session.volume);
+            result.putBoolean("looping", session.looping);
+            if (session.loopStart > 0) {
+                result.putInt("loopStart", session.loopStart);
+            }
+            if (session.loopEnd >= 0) {
+                result.putInt("loopEnd", session.loopEnd);
+            }
+            results.pushMap(result);
+        }
+
+        callback.invoke(null, results);
+    }
+
+    /**
+     * Prepare the players for the sessions returned by the latest getSessions() call in parallel,
+     * and seek each back to its position. `commands[i]` holds the playerId and prepare options
+     * for session `i`.
+     */
+    @ReactMethod
+    public void restoreSessions(ReadableArray commands, Callback callback) {
+        List<SessionStore.Session> sessions = this.restorableSessions;
+        int count = sessions != null ? Math.min(commands.size(), sessions.size()) : 0;
+        BatchCallback batch = new BatchCallback("playerId", count, callback);
+
+        for (int i = 0; i < count; i++) {
+            final SessionStore.Session session = sessions.get(i);
+            final Integer playerId = commands.getMap(i).getInt("playerId");
+            final Callback finish = batch.forItem(i, playerId);
+
+            prepare(playerId, session.path, commands.getMap(i).getMap("options"), new Callback() {
+                @Override
+                public void invoke(Object... args) {
+                    PlayerBackend player = playerPool.get(playerId);
+                    if ((args.length > 0 && args[0] != null) || player == null) {
+                        finish.invoke(args);
+                        return;
+                    }
+
+                    playerSpeed.put(playerId, session.speed);
+                    playerVolume.put(playerId, session.volume);
+                    playerLooping.put(playerId, session.looping);
+                    playerLoopStart.put(playerId, session.loopStart);
+                    playerLoopEnd.put(playerId, session.loopEnd);
+                    applyVolume(playerId, player);
+                    applyLooping(playerId, player);
+
+                    if (session.position > 0) {
+                        seek(playerId, session.position, finish);
+                    } else {
+                        finish.invoke(args);
+                    }
+                }
+            });
+        }
+
+        this.restorableSessions = null;
+    }
+
+    private synchronized LoudnessIndex getLoudnessIndex() {
+        if (this.loudnessIndex == null) {
+            this.loudnessIndex = new LoudnessIndex(new File(this.context.getFilesDir(), "RCTAudioToolkitLoudness.idx"));
+        }
+
+        return this.loudnessIndex;
+    }
+
+    private double getTargetLoudness(ReadableMap options) {
+        if (options != null && options.hasKey("targetLoudness") && !options.isNull("targetLoudness")) {
+            return options.getDouble("targetLoudness");
+        }
+
+        return DEFAULT_TARGET_LOUDNESS;
+    }
+
+    // Look up the gain for a local file from the loudness index, without analyzing it
+    private Integer getStoredGain(String path, double targetLoudness) {
+        Uri uri = uriFromPath(path);
+        if (!"file".equals(uri.getScheme())) {
+            return null;
+        }
+
+        LoudnessAnalyzer.Result loudness = getLoudnessIndex().get(new File(uri.getPath()));
+        if (loudness == null) {
+            return null;
+        }
+
+        return LoudnessAnalyzer.gainFor(loudness, targetLoudness);
+    }
+
+    @ReactMethod
+    public void set(final Integer playerId, final ReadableMap options, final Callback callback) {
+        if (restoreIfEvicted(playerId, callback, new Runnable() {
+            @Override
+            public void run() {
+                set(playerId, options, callback);
+            }
+        })) {
+            return;
+        }
+
+        StreamPlayer stream = this.streamPlayers.get(playerId);
+        if (stream != null) {
+            if (options.hasKey("volume") && !options.isNull("volume")) {
+                this.playerVolume.put(playerId, (float) options.getDouble("volume"));
+                applyStreamVolume(playerId, stream);
+            }
+            if (options.hasKey("continuesToPlayInBackground")) {
+                this.playerContinueInBackground.put(playerId, options.getBoolean("continuesToPlayInBackground"));
+            }
+            setStreamRate(playerId, stream, options);
+            callback.invoke();
+            return;
+        }
+
+        PlayerBackend player = this.playerPool.get(playerId);
+        if (player == null) {
+            callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
+            return;
+        }
+
+        if (options.hasKey("wakeLock")) {
+            // TODO: can we disable the wake lock also?
+            if (options.getBoolean("wakeLock")) {
+                player.setWakeMode(this.context, PowerManager.PARTIAL_WAKE_LOCK);
+            }
+        }
+
+        if (options.hasKey("autoDestroy")) {
+            this.playerAutoDestroy.put(playerId, options.getBoolean("autoDestroy"));
+        }
+
+        if (options.hasKey("continuesToPlayInBackground")) {
+            this.playerContinueInBackground.put(playerId, options.getBoolean("continuesToPlayInBackground"));
+        }
+
+        if (options.hasKey("scrubbing") && !options.isNull("scrubbing")) {
+            if (options.getBoolean("scrubbing")) {
+                this.playerScrubbing.put(playerId, true);
+            } else if (isScrubbing(playerId)) {
+                endScrubbing(playerId, player);
+            }
+        }
+
+        if (options.hasKey("volume") && !options.isNull("volume")) {
+            this.playerVolume.put(playerId, (float) options.getDouble("volume"));
+            applyVolume(playerId, player);
+        }
+
+        if (options.hasKey("equalizer")) {
+            this.playerEqualizer.put(playerId, options.isNull("equalizer") ? null : options.getArray("equalizer"));
+            getEffects(playerId, player).setEqualizer(options.isNull("equalizer") ? null : options.getArray("equalizer"));
+        }
+
+        if (options.hasKey("gain")) {
+            int gain = options.isNull("gain") ? 0 : (int) options.getDouble("gain");
+            getEffects(playerId, player).setGain(gain);
+            applyVolume(playerId, player);
+
+            String path = this.playerPath.get(playerId);
+            if (gain == 0) {
+                this.pathGain.remove(path);
+            } else {
+                this.pathGain.put(path, gain);
+            }
+        }
+
+        if (options.hasKey("looping") || options.hasKey("loopStart") || options.hasKey("loopEnd")) {
+            if (options.hasKey("looping") && !options.isNull("looping")) {
+                this.playerLooping.put(playerId, options.getBoolean("looping"));
+            }
+            if (options.hasKey("loopStart")) {
+                this.playerLoopStart.put(playerId, options.isNull("loopStart") ? 0 : options.getInt("loopStart"));
+            }
+            if (options.hasKey("loopEnd")) {
+                this.playerLoopEnd.put(playerId, options.isNull("loopEnd") ? -1 : options.getInt("loopEnd"));
+            }
+
+            applyLooping(playerId, player);
+        }
+
+        if (options.hasKey("speed") || options.hasKey("pitch")) {
+            if (options.hasKey("speed") && !options.isNull("speed")) {
+                this.playerSpeed.put(playerId, (float) options.getDouble("speed"));
+            }
+
+            if (options.hasKey("pitch") && !options.isNull("pitch")) {
+                this.playerPitch.put(playerId, (float) options.getDouble("pitch"));
+            }
+
+            // `PlaybackParams` was only added in API 23
+            if (Build.VERSION.SDK_INT < Build.VERSION_CODES.M) {
+                if (hasCustomPlaybackParams(playerId)) {
+                    Log.w(LOG_TAG, "Playback speed and pitch require Android 6.0+, ignoring for playerId " + playerId);
+                }
+            } else if (player.isPlaying()) {
+                // If the player wasn't already playing, then setting playback params would
+                // start it playing and we don't want that, so they are applied in play() instead
+                player.setPlaybackParams(getPlaybackParams(playerId));
+                updateStatus(playerId, player);
+                startLoopCheck(playerId);
+            }
+        }
+
+        saveSessions();
+        callback.invoke();
+    }
+
+    private PlayerEffects getEffects(Integer playerId, PlayerBackend player) {
+        PlayerEffects effects = this.playerEffects.get(playerId);
+        if (effects == null) {
+            effects = new PlayerEffects(player.getAudioSessionId());
+            this.playerEffects.put(playerId, effects);
+        }
+
+        return effects;
+    }
+
+    // Apply user volume combined with any attenuation needed for loudness normalization
+    private void applyVolume(Integer playerId, PlayerBackend player) {
+        Float volume = this.playerVolume.get(playerId);
+        float vol = volume != null ? volume : 1.0f;
+
+        PlayerEffects effects = this.playerEffects.get(playerId);
+        if (effects != null) {
+            vol *= effects.getVolumeScale();
+        }
+
+        if (this.ducked && this.focusManager.isHolding(playerId)) {
+            vol *= DUCK_VOLUME;
+        }
+
+        player.setVolume(vol, vol);
+    }
+
+    private boolean hasCustomPlaybackParams(Integer playerId) {
+        Float speed = this.playerSpeed.get(playerId);
+        Float pitch = this.playerPitch.get(playerId);
+
+        return (speed != null && speed != 1.0f) || (pitch != null && pitch != 1.0f);
+    }
+
+    @TargetApi(23)
+    private PlaybackParams getPlaybackParams(Integer playerId) {
+        PlaybackParams params = new PlaybackParams();
+
+        Float speed = this.playerSpeed.get(playerId);
+        if (speed != null) {
+            params.setSpeed(speed);
+        }
+
+        Float pitch = this.playerPitch.get(playerId);
+        if (pitch != null) {
+            params.setPitch(pitch);
+        }
+
+        return params;
+    }
+
+    @ReactMethod
+    public void play(final Integer playerId, final Callback callback) {
+        if (restoreIfEvicted(playerId, callback, new Runnable() {
+            @Override
+            public void run() {
+                play(playerId, callback);
+            }
+        })) {
+            return;
+        }
+
+        StreamPlayer stream = this.streamPlayers.get(playerId);
+        if (stream != null) {
+            acquireFocus(playerId);
+            this.focusPausedPlayers.remove(playerId);
+            stream.play();
+            updatePlaybackService();
+            callback.invoke(null, getStreamInfo(stream));
+            return;
+        }
+
+        PlayerBackend player = this.playerPool.get(playerId);
+        if (player == null) {
+            callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
+            return;
+        }
+
+        long start = AudioMetrics.now();
+        AudioMetrics.beginSection("RCTAudioPlayer.play");
+
+        try {
+            acquireFocus(playerId);
+            this.focusPausedPlayers.remove(playerId);
+
+            // Let's start using setSpeed when supported
+            if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.M && hasCustomPlaybackParams(playerId)) {
+                player.setPlaybackParams(getPlaybackParams(playerId));
+
+                // Check if device is honoring android spec: when setSpeed player should start
+                // https://developer.android.com/reference/android/media/MediaPlayer#setPlaybackParams(android.media.PlaybackParams)
+                // If that is not happening, explicitly call start
+                if (!player.isPlaying()) {
+                    player.start();
+                }
+            } else {
+                player.start();
+            }
+
+            AudioMetrics.record(AudioMetrics.PLAYER_PLAY, start);
+            startLoopCheck(playerId);
+            updatePlaybackService();
+            callback.invoke(null, getInfo(playerId, player));
+        } catch (Exception e) {
+            callback.invoke(errObj("playback", e.toString()));
+        } finally {
+            AudioMetrics.endSection();
+        }
+    }
+
+    @ReactMethod
+    public void pause(Integer playerId, Callback callback) {
+        StreamPlayer stream = this.streamPlayers.get(playerId);
+        if (stream != null) {
+            stream.pause();
+            releaseFocus(playerId);
+
+            WritableMap data = JsMaps.createMap();
+            data.putString("message", "Playback paused");
+            data.putMap("info", getStreamInfo(stream));
+
+            emitEvent(playerId, "pause", data);
+            updatePlaybackService();
+
+            callback.invoke(null, getStreamInfo(stream));
+            return;
+        }
+
+        PlayerBackend player = this.playerPool.get(playerId);
+
+        // Evicted players are paused already
+        EvictedPlayer evicted = this.evictedPlayers.get(playerId);
+        if (evicted != null) {
+            WritableMap data = JsMaps.createMap();
+            data.putString("message", "Playback paused");
+            data.putMap("info", evicted.getInfo());
+
+            emitEvent(playerId, "pause", data);
+
+            callback.invoke(null, evicted.getInfo());
+            return;
+        }
+
+        if (player == null) {
+            callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
+            return;
+        }
+
+        try {
+
+            player.pause();
+            releaseFocus(playerId);
+
+            WritableMap info = getInfo(playerId, player);
+
+            WritableMap data = JsMaps.createMap();
+            data.putString("message", "Playback paused");
+            data.putMap("info", info);
+
+            emitEvent(playerId, "pause", data);
+            updatePlaybackService();
+            saveSessions();
+
+            callback.invoke(null, getInfo(playerId, player));
+
+        } catch (Exception e) {
+            callback.invoke(errObj("pause", e.toString()));
+        }
+    }
+
+    @ReactMethod
+    public void stop(Integer playerId, Callback callback) {
+        StreamPlayer stream = this.streamPlayers.get(playerId);
+        if (stream != null) {
+            // Drops whatever is buffered, so the player can be fed a new stream
+            stream.stop();
+            releaseFocus(playerId);
+            updatePlaybackService();
+            callback.invoke();
+            return;
+        }
+
+        PlayerBackend player = this.playerPool.get(playerId);
+
+        EvictedPlayer evicted = this.evictedPlayers.get(playerId);
+        if (evicted != null) {
+            if (this.playerAutoDestroy.get(playerId)) {
+                destroy(playerId);
+            } else {
+                evicted.position = 0;
+            }
+            callback.invoke();
+            return;
+        }
+
+        if (player == null) {
+            callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
+            return;
+        }
+
+        try {
+            if (this.playerAutoDestroy.get(playerId)) {
+                player.pause();
+                Log.d(LOG_TAG, "stop(): Autodestroying player...");
+                destroy(playerId);
+                callback.invoke();
+            } else {
+                // "Fake" stopping on Android by pausing and seeking to 0 so
+                // that we remain in prepared state
+                Callback oldCallback = this.playerSeekCallback.get(playerId);
+
+                if (oldCallback != null) {
+                    oldCallback.invoke(errObj("seekfail", "Playback stopped before seek operation could finish"));
+                    this.playerSeekCallback.remove(playerId);
+                }
+
+                this.playerSeekCallback.put(playerId, callback);
+                this.playerPendingSeek.remove(playerId);
+                this.playerSeekTarget.remove(playerId);
+
+                seekTo(playerId, player, 0, SEEK_DEFAULT);
+                player.pause();
+                releaseFocus(playerId);
+            }
+        } catch (Exception e) {
+            callback.invoke(errObj("stop", e.toString()));
+        }
+    }
+
+    @ReactMethod
+    public void getCurrentTime(Integer playerId, Callback callback) {
+        PlayerBackend player = this.playerPool.get(playerId);
+
+        EvictedPlayer evicted = this.evictedPlayers.get(playerId);
+        if (evicted != null) {
+            callback.invoke(null, evicted.getInfo());
+            return;
+        }
+
+        if (player == null) {
+            callback.invoke(errObj("notfound", "playerId " + playerId + " not found."));
+            return;
+        }
+
+        try {
+            callback.invoke(null, getInfo(playerId, player));
+        } catch (Exception e) {
+            callback.invoke(errObj("getCurrentTime", e.toString()));
+        }
+    }
+
+    @ReactMethod
+    public void getMetrics(Callback callback) {
+        callback.invoke(null, AudioMetrics.toMap());
+    }
+
+    @ReactMethod
+    public void resetMetrics(Callback callback) {
+        AudioMetrics.reset();
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public void setTracingEnabled(boolean enabled) {
+        AudioMetrics.setTracingEnabled(enabled);
+    }
+
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public double getCurrentTimeSync(Integer playerId) {
+        StreamPlayer stream = this.streamPlayers.get(playerId);
+        if (stream != null) {
+            return stream.getPosition();
+        }
+
+        PlayerStatus status = this.playerStatus.get(playerId);
+        return status != null ? status.getPosition() : -1;
+    }
+
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public WritableMap getStatusSync(Integer playerId) {
+        PlayerStatus status = this.playerStatus.get(playerId);
+        if (status == null) {
+            return null;
+        }
+
+        WritableMap info = JsMaps.createMap();
+        info.putDouble("duration", status.getDuration());
+        info.putDouble("position", status.getPosition());
+        info.putBoolean("isPlaying", status.isPlaying());
+
+        return info;
+    }
+
+    @ReactMethod
+    public void playMany(ReadableArray playerIds, Callback callback) {
+        BatchCallback batch = new BatchCallback("playerId", playerIds.size(), callback);
+
+        for (int i = 0; i < playerIds.size(); i++) {
+            Integer playerId = playerIds.getInt(i);
+            play(playerId, batch.forItem(i, playerId));
+        }
+    }
+
+    @ReactMethod
+    public void pauseMany(ReadableArray playerIds, Callback callback) {
+        BatchCallback batch = new BatchCallback("playerId", playerIds.size(), callback);
+
+        for (int i = 0; i < playerIds.size(); i++) {
+            Integer playerId = playerIds.getInt(i);
+            pause(playerId, batch.forItem(i, playerId));
+        }
+    }
+
+    @ReactMethod
+    public void setMany(ReadableArray commands, Callback callback) {
+        BatchCallback batch = new BatchCallback("playerId", commands.size(), callback);
+
+        for (int i = 0; i < commands.size(); i++) {
+            ReadableMap command = commands.getMap(i);
+            Integer playerId = command.getInt("playerId");
+            set(playerId, command.getMap("options"), batch.forItem(i, playerId));
+        }
+    }
+
+    @ReactMethod
+    public void destroyMany(ReadableArray playerIds, Callback callback) {
+        BatchCallback batch = new BatchCallback("playerId", playerIds.size(), callback);
+
+        for (int i = 0; i < playerIds.size(); i++) {
+            Integer playerId = playerIds.getInt(i);
+            destroy(playerId, batch.forItem(i, playerId));
+        }
+    }
+
+    // Find playerId matching player from playerPool
+    private Integer getPlayerId(PlayerBackend player) {
+        for (Entry<Integer, PlayerBackend> entry : playerPool.entrySet()) {
+            if (equals(player, entry.getValue())) {
+                return entry.getKey();
+            }
+        }
+
+        return null;
+    }
+
+    @Override
+    public void onSeekComplete(PlayerBackend player) {
+        Integer playerId = getPlayerId(player);
+
+        Long seekStart = this.playerSeekStart.remove(playerId);
+        if (seekStart != null) {
+            AudioMetrics.record(AudioMetrics.PLAYER_SEEK, seekStart);
+            AudioMetrics.endAsyncSection("RCTAudioPlayer.seek", playerId);
+        }
+
+        // A newer target arrived while seeking, so the seek that just completed is already stale
+        Integer pendingSeek = this.playerPendingSeek.remove(playerId);
+        if (pendingSeek != null) {
+            seekTo(playerId, player, pendingSeek, isScrubbing(playerId) ? SEEK_FAST : SEEK_PRECISE);
+            return;
+        }
+
+        // Seeking back to the loop start is internal, and completes exactly one loop
+        if (this.loopSeekPlayers.remove(playerId) && !this.playerSeekCallback.containsKey(playerId)) {
+            updateStatus(playerId, player);
+            emitLooped(playerId);
+            return;
+        }
+
+        // Invoke seek callback
+        Callback callback = this.playerSeekCallback.get(playerId);
+        if (callback != null) {
+            callback.invoke(null, getInfo(playerId, player));
+            this.playerSeekCallback.remove(playerId);
+        }
+
+        updateStatus(playerId, player);
+        saveSessions();
+
+        // Emit "seeked" event
+        WritableMap data = JsMaps.createMap();
+        data.putString("message", "Seek operation completed");
+        emitEvent(playerId, "seeked", data);
+    }
+
+    @Override
+    public void onCompletion(PlayerBackend player) {
+        Integer playerId = getPlayerId(player);
+
+        // Whole file loops are handled by MediaPlayer, so this is a loop region running to the end of the
+        // file. "looped" is emitted once the seek back completes.
+        if (isLooping(playerId)) {
+            loopSeek(playerId, player);
             player.start();
-            data.putString("message", "Media playback looped");
-            emitEvent(playerId, "looped", data);
-        } else {
-            data.putString("message", "Playback completed");
-            emitEvent(playerId, "ended", data);
+            updateStatus(playerId, player);
+            return;
         }
 
-        if (!this.looping && this.playerAutoDestroy.get(playerId)) {
+        WritableMap data = JsMaps.createMap();
+        player.seekTo(0);
+        updateStatus(playerId, player);
+        releaseFocus(playerId);
+        data.putString("message", "Playback completed");
+        emitEvent(playerId, "ended", data);
+        updatePlaybackService();
+
+        if (this.playerAutoDestroy.get(playerId)) {
             Log.d(LOG_TAG, "onCompletion(): Autodestroying player...");
             destroy(playerId);
         }
     }
 
     @Override
-    public boolean onError(MediaPlayer player, int what, int extra) {
+    public boolean onError(PlayerBackend player, int what, int extra) {
         Integer playerId = getPlayerId(player);
 
+        AudioMetrics.recordError(AudioMetrics.SOURCE_PLAYER, what, extra);
+
         // TODO: translate these codes into english
-        WritableMap err = new WritableNativeMap();
+        WritableMap err = JsMaps.createMap();
         err.putInt("what", what);
         err.putInt("extra", extra);
 
-        WritableMap data = new WritableNativeMap();
+        WritableMap data = JsMaps.createMap();
         data.putMap("err", err);
         data.putString("message", "Android MediaPlayer error");
 
+        // A prepare in progress fails with the error, so that batches waiting for it don't hang
+        Callback prepareCallback = this.playerPrepareCallback.remove(playerId);
+        if (prepareCallback != null) {
+            WritableMap prepareErr = errObj("prepare", "Android MediaPlayer error");
+            prepareErr.putInt("what", what);
+            prepareErr.putInt("extra", extra);
+            prepareCallback.invoke(prepareErr);
+        }
+
         emitEvent(playerId, "error", data);
 
         destroy(playerId);
@@ -580,15 +1748,15 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements Med
     }
 
     @Override
-    public boolean onInfo(MediaPlayer player, int what, int extra) {
+    public boolean onInfo(PlayerBackend player, int what, int extra) {
         Integer playerId = getPlayerId(player);
 
         // TODO: translate these codes into english
-        WritableMap info = new WritableNativeMap();
+        WritableMap info = JsMaps.createMap();
         info.putInt("what", what);
         info.putInt("extra", extra);
 
-        WritableMap data = new WritableNativeMap();
+        WritableMap data = JsMaps.createMap();
         data.putMap("info", info);
         data.putString("message", "Android MediaPlayer info");
 
@@ -598,21 +1766,576 @@ public class AudioPlayerModule extends ReactContextBaseJavaModule implements Med
     }
 
     // Audio Focus
-    public void onAudioFocusChange(int focusChange)
-    {
-        switch (focusChange)
-        {
-            case AudioManager.AUDIOFOCUS_LOSS:
-            case AudioManager.AUDIOFOCUS_LOSS_TRANSIENT:
-                //MediaPlayer player = this.playerPool.get(this.lastPlayerId);
-                WritableMap data = new WritableNativeMap();
+    @Override
+    public void onFocusLoss(Set<Integer> playerIds, boolean isTransient) {
+        for (Integer playerId : playerIds) {
+            StreamPlayer stream = this.streamPlayers.get(playerId);
+            if (stream != null && stream.isPlaying()) {
+                stream.pause();
+                if (isTransient) {
+                    this.focusPausedPlayers.add(playerId);
+                }
+
+                WritableMap data = JsMaps.createMap();
                 data.putString("message", "Lost audio focus, playback paused");
+                data.putMap("info", getStreamInfo(stream));
+
+                emitEvent(playerId, "forcePause", data);
+                continue;
+            }
+
+            PlayerBackend player = this.playerPool.get(playerId);
+            if (player == null || !player.isPlaying()) {
+                continue;
+            }
+
+            player.pause();
+            updateStatus(playerId, player);
+            if (isTransient) {
+                this.focusPausedPlayers.add(playerId);
+            }
+
+            WritableMap data = JsMaps.createMap();
+            data.putString("message", "Lost audio focus, playback paused");
+            data.putMap("info", getInfo(playerId, player));
+
+            emitEvent(playerId, "forcePause", data);
+        }
+    }
+
+    @Override
+    public void onDuck(Set<Integer> playerIds, boolean ducked) {
+        this.ducked = ducked;
+
+        for (Integer playerId : playerIds) {
+            PlayerBackend player = this.playerPool.get(playerId);
+            if (player != null) {
+                applyVolume(playerId, player);
+            }
+
+            StreamPlayer stream = this.streamPlayers.get(playerId);
+            if (stream != null) {
+                applyStreamVolume(playerId, stream);
+            }
+        }
+    }
+
+    @Override
+    public void onFocusGain(Set<Integer> playerIds) {
+        for (Integer playerId : playerIds) {
+            StreamPlayer stream = this.streamPlayers.get(playerId);
+            if (stream != null && this.focusPausedPlayers.remove(playerId)) {
+                stream.play();
+
+                WritableMap data = JsMaps.createMap();
+                data.putString("message", "Regained audio focus, playback resumed");
+                data.putMap("info", getStreamInfo(stream));
+
+                emitEvent(playerId, "resume", data);
+                continue;
+            }
+
+            PlayerBackend player = this.playerPool.get(playerId);
+            if (player == null || !this.focusPausedPlayers.remove(playerId)) {
+                continue;
+            }
+
+            player.start();
+            startLoopCheck(playerId);
+
+            WritableMap data = JsMaps.createMap();
+            data.putString("message", "Regained audio focus, playback resumed");
+            data.putMap("info", getInfo(playerId, player));
+
+            emitEvent(playerId, "resume", data);
+        }
+    }
+
+    // Players that mix with others play without taking audio focus
+    private void acquireFocus(Integer playerId) {
+        Boolean mixWithOthers = this.playerMixWithOthers.get(playerId);
+        if (mixWithOthers == null || !mixWithOthers) {
+            this.focusManager.acquire(playerId);
+        }
+    }
+
+    // Player no longer plays, so it doesn't need audio focus anymore
+    private void releaseFocus(Integer playerId) {
+        this.focusPausedPlayers.remove(playerId);
+        this.focusManager.release(playerId);
+    }
+
+
+    // Background playback
+    private boolean continuesInBackground(Integer playerId) {
+        Boolean continueInBackground = this.playerContinueInBackground.get(playerId);
+        return continueInBackground != null && continueInBackground;
+    }
+
+    private boolean usesPlaybackService(Integer playerId) {
+        Boolean foregroundService = this.playerForegroundService.get(playerId);
+        return foregroundService != null && foregroundService && continuesInBackground(playerId);
+    }
+
+    // Ids of file players and streams
+    private List<Integer> getPlayerIds() {
+        List<Integer> playerIds = new ArrayList<>(this.playerPool.keySet());
+        playerIds.addAll(this.streamPlayers.keySet());
+        return playerIds;
+    }
+
+    private boolean isPlaying(Integer playerId) {
+        StreamPlayer stream = this.streamPlayers.get(playerId);
+        if (stream != null) {
+            return stream.isPlaying();
+        }
+
+        PlayerBackend player = this.playerPool.get(playerId);
+        return player != null && player.isPlaying();
+    }
+
+    // Keep the playback service running while the app is in the background and an opted-in player is
+    // playing or was paused remotely (so that it can be resumed from the notification)
+    private void updatePlaybackService() {
+        if (!this.hostPaused) {
+            return;
+        }
+
+        String title = null;
+        boolean playing = false;
+
+        for (Integer playerId : getPlayerIds()) {
+            if (!usesPlaybackService(playerId)) {
+                continue;
+            }
+
+            if (isPlaying(playerId)) {
+                playing = true;
+                title = this.playerTitle.get(playerId);
+                break;
+            }
+
+            if (this.remotePausedPlayers.contains(playerId) && title == null) {
+                title = this.playerTitle.get(playerId);
+            }
+        }
+
+        if (playing || !this.remotePausedPlayers.isEmpty()) {
+            AudioPlaybackService.start(this.context, title, playing);
+        } else {
+            AudioPlaybackService.stop(this.context);
+        }
+    }
+
+    // Remote controls arrive on the main thread, but players are only touched on the native modules queue
+    @Override
+    public void onRemotePlay() {
+        this.context.runOnNativeModulesQueueThread(new Runnable() {
+            @Override
+            public void run() {
+                resumeRemotePaused();
+            }
+        });
+    }
+
+    @Override
+    public void onRemotePause() {
+        this.context.runOnNativeModulesQueueThread(new Runnable() {
+            @Override
+            public void run() {
+                pauseForRemote();
+            }
+        });
+    }
+
+    @Override
+    public void onRemoteStop() {
+        this.context.runOnNativeModulesQueueThread(new Runnable() {
+            @Override
+            public void run() {
+                pauseForRemote();
+                remotePausedPlayers.clear();
+            }
+        });
+    }
+
+    private void resumeRemotePaused() {
+        for (Integer playerId : new HashSet<>(this.remotePausedPlayers)) {
+            StreamPlayer stream = this.streamPlayers.get(playerId);
+            if (stream != null) {
+                acquireFocus(playerId);
+                stream.play();
+
+                WritableMap data = JsMaps.createMap();
+                data.putString("message", "Playback resumed by remote control");
+                data.putMap("info", getStreamInfo(stream));
+
+                emitEvent(playerId, "resume", data);
+                continue;
+            }
+
+            PlayerBackend player = this.playerPool.get(playerId);
+            if (player == null) {
+                continue;
+            }
+
+            acquireFocus(playerId);
+            player.start();
+            startLoopCheck(playerId);
+
+            WritableMap data = JsMaps.createMap();
+            data.putString("message", "Playback resumed by remote control");
+            data.putMap("info", getInfo(playerId, player));
+
+            emitEvent(playerId, "resume", data);
+        }
+
+        this.remotePausedPlayers.clear();
+    }
+
+    private void pauseForRemote() {
+        for (Map.Entry<Integer, StreamPlayer> entry : this.streamPlayers.entrySet()) {
+            Integer playerId = entry.getKey();
+            StreamPlayer stream = entry.getValue();
+            if (!usesPlaybackService(playerId) || !stream.isPlaying()) {
+                continue;
+            }
+
+            stream.pause();
+            releaseFocus(playerId);
+            this.remotePausedPlayers.add(playerId);
+
+            WritableMap data = JsMaps.createMap();
+            data.putString("message", "Playback paused by remote control");
+            data.putMap("info", getStreamInfo(stream));
+
+            emitEvent(playerId, "pause", data);
+        }
+
+        for (Map.Entry<Integer, PlayerBackend> entry : new HashMap<>(this.playerPool).entrySet()) {
+            Integer playerId = entry.getKey();
+            PlayerBackend player = entry.getValue();
+            if (!usesPlaybackService(playerId) || !player.isPlaying()) {
+                continue;
+            }
+
+            player.pause();
+            releaseFocus(playerId);
+            this.remotePausedPlayers.add(playerId);
+
+            WritableMap data = JsMaps.createMap();
+            data.putString("message", "Playback paused by remote control");
+            data.putMap("info", getInfo(playerId, player));
+
+            emitEvent(playerId, "pause", data);
+        }
+    }
+
+    // Looping
+
+    private boolean isLooping(Integer playerId) {
+        Boolean looping = this.playerLooping.get(playerId);
+        return looping != null && looping;
+    }
+
+    private int getLoopStart(Integer playerId) {
+        Integer loopStart = this.playerLoopStart.get(playerId);
+        return loopStart != null ? loopStart : 0;
+    }
+
+    private int getLoopEnd(Integer playerId) {
+        Integer loopEnd = this.playerLoopEnd.get(playerId);
+        return loopEnd != null ? loopEnd : -1;
+    }
+
+    private boolean isWholeFileLoop(Integer playerId) {
+        return getLoopStart(playerId) <= 0 && getLoopEnd(playerId) < 0;
+    }
+
+    // Whole file loops are left to MediaPlayer, which loops without a gap, and counted by the loop check
+    // as the position wraps around. Loop regions seek back to their start, at the end of the file in
+    // onCompletion() or shortly before an earlier loop end in the loop check, which may leave a short gap.
+    private void applyLooping(Integer playerId, PlayerBackend player) {
+        player.setLooping(isLooping(playerId) && isWholeFileLoop(playerId));
+        startLoopCheck(playerId);
+    }
+
+    // Playback started or changed speed, so wraps are counted from the current position again
+    private void startLoopCheck(Integer playerId) {
+        this.playerLoopPosition.remove(playerId);
+        scheduleLoopCheck(0);
+    }
+
+    private void loopSeek(Integer playerId, PlayerBackend player) {
+        int position = getLoopStart(playerId);
+        this.loopSeekPlayers.add(playerId);
+
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.O) {
+            player.seekTo((long) position, MediaPlayer.SEEK_CLOSEST);
+        } else {
+            player.seekTo(position);
+        }
+    }
+
+    private void scheduleLoopCheck(long delay) {
+        if (this.loopCheckScheduled) {
+            return;
+        }
+
+        this.loopCheckScheduled = true;
+        this.loopHandler.postDelayed(new Runnable() {
+            @Override
+            public void run() {
+                // Players are only touched from the native modules thread
+                context.runOnNativeModulesQueueThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        loopCheckScheduled = false;
+                        checkLoops();
+                    }
+                });
+            }
+        }, delay);
+    }
+
+    private void checkLoops() {
+        long nextCheck = -1;
+
+        for (Entry<Integer, Boolean> entry : this.playerLooping.entrySet()) {
+            Integer playerId = entry.getKey();
+            PlayerBackend player = this.playerPool.get(playerId);
+            if (!entry.getValue() || player == null) {
+                continue;
+            }
+            if (!player.isPlaying()) {
+                this.playerLoopPosition.remove(playerId);
+                continue;
+            }
+
+            long delay = LOOP_CHECK_INTERVAL;
+            int loopEnd = getLoopEnd(playerId);
+
+            if (isWholeFileLoop(playerId)) {
+                delay = countWraps(playerId, player);
+            } else if (loopEnd < 0) {
+                // A region running to the end of the file is handled by onCompletion()
+                continue;
+            } else if (!this.loopSeekPlayers.contains(playerId) && !this.playerSeekStart.containsKey(playerId)) {
+                // Positions before the loop start are left alone, so that seeking there still plays into the loop
+                int position = player.getCurrentPosition();
+                if (position >= loopEnd - LOOP_SEEK_LEAD) {
+                    loopSeek(playerId, player);
+                } else {
+                    Float speed = this.playerSpeed.get(playerId);
+                    delay = Math.min(delay, (long) ((loopEnd - LOOP_SEEK_LEAD - position) / (speed != null ? speed : 1.0f)));
+                }
+            } else {
+                // Look again shortly after the seek completes, as a short region may already end soon after
+                delay = LOOP_SEEK_LEAD;
+            }
+
+            nextCheck = nextCheck < 0 ? delay : Math.min(nextCheck, delay);
+        }
+
+        if (nextCheck >= 0) {
+            scheduleLoopCheck(Math.max(nextCheck, 0));
+        }
+    }
 
-                this.emitEvent(this.lastPlayerId, "forcePause", data);
+    // Emit "looped" for every time MediaPlayer wrapped around since the last check, and return the delay
+    // until shortly after the next wrap, so that even clips shorter than the check interval are seen
+    // wrapping every time. Several wraps between two checks are told apart by how far the position fell
+    // behind the time played.
+    private long countWraps(Integer playerId, PlayerBackend player) {
+        int duration = player.getDuration();
+        if (duration <= 0 || this.playerSeekStart.containsKey(playerId)) {
+            this.playerLoopPosition.remove(playerId);
+            return LOOP_CHECK_INTERVAL;
+        }
+
+        int position = player.getCurrentPosition();
+        long now = SystemClock.elapsedRealtime();
+        Float speed = this.playerSpeed.get(playerId);
+        float rate = speed != null ? speed : 1.0f;
+
+        Integer lastPosition = this.playerLoopPosition.put(playerId, position);
+        Long lastTime = this.playerLoopTime.put(playerId, now);
+        if (lastPosition != null && lastTime != null && position < lastPosition) {
+            double behind = lastPosition + (now - lastTime) * rate - position;
+            int wraps = Math.max(1, (int) Math.round(behind / duration));
+
+            updateStatus(playerId, player);
+            for (int i = 0; i < wraps; i++) {
+                emitLooped(playerId);
+            }
+        }
+
+        return Math.min(LOOP_CHECK_INTERVAL, (long) ((duration - position) / rate) + LOOP_SEEK_LEAD);
+    }
+
+    private void emitLooped(Integer playerId) {
+        WritableMap data = JsMaps.createMap();
+        data.putString("message", "Media playback looped");
+        emitEvent(playerId, "looped", data);
+    }
+
+    // Eviction
+    static class EvictedPlayer {
+        final String path;
+        final ReadableMap options;
+        final double duration;
+        int position;
+
+        EvictedPlayer(String path, ReadableMap options, double duration, int position) {
+            this.path = path;
+            this.options = options;
+            this.duration = duration;
+            this.position = position;
+        }
+
+        WritableMap getInfo() {
+            WritableMap info = JsMaps.createMap();
+            info.putDouble("duration", this.duration);
+            info.putDouble("position", this.position);
+
+            return info;
+        }
+    }
+
+    @ReactMethod
+    public void setMaxPreparedPlayers(int maxPreparedPlayers) {
+        this.maxPreparedPlayers = Math.max(0, maxPreparedPlayers);
+        enforcePlayerBudget(null);
+    }
+
+    @Override
+    public void onTrimMemory(int level) {
+        // UI_HIDDEN alone only means the app went to the background
+        if (level >= TRIM_MEMORY_RUNNING_LOW && level != TRIM_MEMORY_UI_HIDDEN) {
+            onLowMemory();
+        }
+    }
+
+    @Override
+    public void onLowMemory() {
+        // Called on the main thread, players are only touched from the native modules thread
+        this.context.runOnNativeModulesQueueThread(new Runnable() {
+            @Override
+            public void run() {
+                evictIdlePlayers(0, null);
+            }
+        });
+    }
+
+    @Override
+    public void onConfigurationChanged(Configuration newConfig) {
+    }
+
+    private void enforcePlayerBudget(Integer exceptId) {
+        if (this.maxPreparedPlayers > 0) {
+            evictIdlePlayers(this.maxPreparedPlayers, exceptId);
+        }
+    }
+
+    // Release idle players, least recently used first, until at most `keep` players remain prepared
+    private void evictIdlePlayers(int keep, Integer exceptId) {
+        int prepared = this.preparedPlayers.size();
+
+        for (Integer playerId : new ArrayList<>(this.playerUsage.keySet())) {
+            if (prepared <= keep) {
                 break;
+            }
+
+            PlayerBackend player = this.playerPool.get(playerId);
+            if (player != null && !playerId.equals(exceptId) && isIdle(playerId, player)) {
+                evict(playerId, player);
+                prepared--;
+            }
         }
     }
 
+    private boolean isIdle(Integer playerId, PlayerBackend player) {
+        return this.preparedPlayers.contains(playerId)
+                && !player.isPlaying()
+                && !this.playerSeekStart.containsKey(playerId)
+                && !this.focusPausedPlayers.contains(playerId)
+                && !this.remotePausedPlayers.contains(playerId);
+    }
+
+    // Release the MediaPlayer but keep everything needed to prepare it again transparently
+    private void evict(Integer playerId, PlayerBackend player) {
+        EvictedPlayer evicted = new EvictedPlayer(this.playerPath.get(playerId), this.playerOptions.get(playerId),
+                player.getDuration(), player.getCurrentPosition());
+
+        releaseFocus(playerId);
+        // The analyzer is attached to the player's audio session, which goes away with it
+        releaseAnalyzer(playerId);
+        player.release();
+        this.playerPool.remove(playerId);
+        this.playerUsage.remove(playerId);
+        this.preparedPlayers.remove(playerId);
+
+        PlayerEffects effects = this.playerEffects.remove(playerId);
+        if (effects != null) {
+            effects.release();
+        }
+
+        this.evictedPlayers.put(playerId, evicted);
+
+        WritableMap data = JsMaps.createMap();
+        data.putString("message", "Player released due to memory pressure");
+        data.putMap("info", evicted.getInfo());
+
+        emitEvent(playerId, "evicted", data);
+    }
+
+    // Prepare an evicted player again and seek back to where it was before running `then`
+    private boolean restoreIfEvicted(final Integer playerId, final Callback callback, final Runnable then) {
+        final EvictedPlayer evicted = this.evictedPlayers.remove(playerId);
+        if (evicted == null) {
+            return false;
+        }
+
+        // Options changed through set() since the original prepare() take precedence
+        final Boolean autoDestroy = this.playerAutoDestroy.get(playerId);
+        final Boolean continueInBackground = this.playerContinueInBackground.get(playerId);
+
+        prepare(playerId, evicted.path, evicted.options, new Callback() {
+            @Override
+            public void invoke(Object... args) {
+                if (args.length > 0 && args[0] != null) {
+                    callback.invoke(args);
+                    return;
+                }
+
+                playerAutoDestroy.put(playerId, autoDestroy);
+                playerContinueInBackground.put(playerId, continueInBackground);
+
+                PlayerBackend player = playerPool.get(playerId);
+                applyVolume(playerId, player);
+                applyLooping(playerId, player);
+
+                ReadableArray equalizer = playerEqualizer.get(playerId);
+                if (equalizer != null) {
+                    getEffects(playerId, player).setEqualizer(equalizer);
+                }
+
+                if (evicted.position <= 0) {
+                    then.run();
+                    return;
+                }
+
+                seek(playerId, evicted.position, new Callback() {
+                    @Override
+                    public void invoke(Object... args) {
+                        then.run();
+                    }
+                });
+            }
+        });
+
+        return true;
+    }
 
     // Utils
     public static boolean equals(Object a, Object b) {
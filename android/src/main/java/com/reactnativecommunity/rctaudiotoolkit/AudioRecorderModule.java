@@ -1,49 +1,99 @@
 package com.reactnativecommunity.rctaudiotoolkit;
 
 import android.annotation.TargetApi;
+import android.content.Context;
+import android.media.AudioManager;
 import android.media.MediaRecorder;
+import android.os.Build;
+import android.os.SystemClock;
 import android.util.Log;
 import android.net.Uri;
 import android.webkit.URLUtil;
 import android.content.ContextWrapper;
 
-import com.facebook.react.bridge.Arguments;
 import com.facebook.react.bridge.ReactApplicationContext;
 import com.facebook.react.bridge.ReactContextBaseJavaModule;
 import com.facebook.react.bridge.ReactMethod;
 import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.ReadableArray;
 import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableArray;
 import com.facebook.react.bridge.WritableMap;
-import com.facebook.react.bridge.WritableNativeMap;
 import com.facebook.react.modules.core.DeviceEventManagerModule;
 
+import org.json.JSONObject;
+
 import java.io.IOException;
 import java.io.File;
 import java.lang.Thread;
+import java.util.Collections;
+import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
 import java.util.Map;
 import java.util.Map.Entry;
 import java.util.Objects;
+import java.util.Set;
 import java.util.Timer;
 import java.util.TimerTask;
-
-public class AudioRecorderModule extends ReactContextBaseJavaModule implements
-        MediaRecorder.OnInfoListener, MediaRecorder.OnErrorListener {
+import java.util.UUID;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+public class AudioRecorderModule extends ReactContextBaseJavaModule implements RecorderBackend.Listener {
     private static final String LOG_TAG = "AudioRecorderModule";
 
-    Map<Integer, MediaRecorder> recorderPool = new HashMap<>();
+    Map<Integer, RecorderBackend> recorderPool = new HashMap<>();
     Map<Integer, Boolean> recorderAutoDestroy = new HashMap<>();
+    Set<Integer> pausedRecorders = new HashSet<>();
+    Map<Integer, RecordingUploader> recorderUploaders = new HashMap<>();
+    Map<Integer, Integer> recorderSource = new HashMap<>();
+    Map<Integer, SpectrumAnalyzer> recorderAnalyzers = new HashMap<>();
+    // Uploads running in this session, including those of stopped recorders that are still finishing
+    Set<String> activeUploads = Collections.synchronizedSet(new HashSet<String>());
 
     private ReactApplicationContext context;
-    private Timer meteringUpdateTimer;
+    private final RecorderBackend.Factory recorderFactory;
+    private final UploadTransport.Factory transportFactory = UploadTransport.Factory.HTTP;
+    private TranscodeQueue transcodeQueue;
+    private ExecutorService editExecutor;
+    private ScheduledExecutorService spectrumExecutor;
+    // Also read by the metering timer thread
+    private volatile Timer meteringUpdateTimer;
     private int meteringFrameId = 0;
-    private Integer meteringRecorderId = null;
-    private MediaRecorder meteringRecorder = null;
+    private volatile Integer meteringRecorderId = null;
+    private volatile RecorderBackend meteringRecorder = null;
     private int meteringInterval = 0;
 
+    // Last metered level, read from the JS thread by getMeterLevelSync(). Null while not metering.
+    private final AtomicReference<MeterLevel> meterLevel = new AtomicReference<>();
+
+    /**
+     * A level together with the recorder it was metered from, published as one immutable snapshot
+     * so that the JS thread never pairs a level with the wrong recorder.
+     */
+    private static class MeterLevel {
+        final Integer recorderId;
+        final int value;
+
+        MeterLevel(Integer recorderId, int value) {
+            this.recorderId = recorderId;
+            this.value = value;
+        }
+    }
+
     public AudioRecorderModule(ReactApplicationContext reactContext) {
+        this(reactContext, RecorderBackend.Factory.MEDIA_RECORDER);
+    }
+
+    AudioRecorderModule(ReactApplicationContext reactContext, RecorderBackend.Factory recorderFactory) {
         super(reactContext);
         this.context = reactContext;
+        this.recorderFactory = recorderFactory;
     }
 
     @Override
@@ -51,18 +101,49 @@ public class AudioRecorderModule extends ReactContextBaseJavaModule implements
         return "RCTAudioRecorder";
     }
 
+    @Override
+    public void onCatalystInstanceDestroy() {
+        if (this.transcodeQueue != null) {
+            this.transcodeQueue.shutdown();
+            this.transcodeQueue = null;
+        }
+        if (this.editExecutor != null) {
+            this.editExecutor.shutdownNow();
+            this.editExecutor = null;
+        }
+        for (SpectrumAnalyzer analyzer : this.recorderAnalyzers.values()) {
+            analyzer.release();
+        }
+        this.recorderAnalyzers.clear();
+        if (this.spectrumExecutor != null) {
+            this.spectrumExecutor.shutdownNow();
+            this.spectrumExecutor = null;
+        }
+        stopMeteringTimer();
+    }
+
     private void emitEvent(Integer recorderId, String event, WritableMap data) {
-        WritableMap payload = new WritableNativeMap();
+        emitEvent("RCTAudioRecorderEvent:" + recorderId, event, data);
+    }
+
+    private void emitEvent(String eventName, String event, WritableMap data) {
+        long start = AudioMetrics.now();
+        AudioMetrics.beginSection("RCTAudioRecorder.emitEvent");
+
+        WritableMap payload = JsMaps.createMap();
         payload.putString("event", event);
         payload.putMap("data", data);
 
         this.context
                 .getJSModule(DeviceEventManagerModule.RCTDeviceEventEmitter.class)
-                .emit("RCTAudioRecorderEvent:" + recorderId, payload);
+                .emit(eventName, payload);
+
+        AudioMetrics.endSection();
+        AudioMetrics.record(AudioMetrics.EMIT_EVENT, start);
     }
 
     private WritableMap errObj(final String code, final String message) {
-        WritableMap err = Arguments.createMap();
+        WritableMap err = JsMaps.createMap();
 
         String stackTraceString = "";
         try {
@@ -84,6 +165,40 @@ public class AudioRecorderModule extends ReactContextBaseJavaModule implements
         return err;
     }
 
+    private int sourceFromName(String name) {
+        switch (name) {
+            case "default":
+                return MediaRecorder.AudioSource.DEFAULT;
+            case "mic":
+                return MediaRecorder.AudioSource.MIC;
+            case "camcorder":
+                return MediaRecorder.AudioSource.CAMCORDER;
+            case "voiceRecognition":
+                return MediaRecorder.AudioSource.VOICE_RECOGNITION;
+            case "voiceCommunication":
+                return MediaRecorder.AudioSource.VOICE_COMMUNICATION;
+            case "unprocessed":
+                if (supportsUnprocessed()) {
+                    return MediaRecorder.AudioSource.UNPROCESSED;
+                }
+                // Closest source that skips most of the processing on devices without support
+                Log.w(LOG_TAG, "Unprocessed audio source not supported, using voiceRecognition.");
+                return MediaRecorder.AudioSource.VOICE_RECOGNITION;
+            default:
+                Log.e(LOG_TAG, "Audio source with name " + name + " not found.");
+                return MediaRecorder.AudioSource.MIC;
+        }
+    }
+
+    private boolean supportsUnprocessed() {
+        if (Build.VERSION.SDK_INT < Build.VERSION_CODES.N) {
+            return false;
+        }
+
+        AudioManager audioManager = (AudioManager) this.context.getSystemService(Context.AUDIO_SERVICE);
+        return "true".equals(audioManager.getProperty(AudioManager.PROPERTY_SUPPORT_AUDIO_SOURCE_UNPROCESSED));
+    }
+
     private int formatFromName(String name) {
         switch (name) {
             case "aac":
@@ -95,6 +210,13 @@ public class AudioRecorderModule extends ReactContextBaseJavaModule implements
                 return MediaRecorder.OutputFormat.WEBM;
             case "amr":
                 return MediaRecorder.OutputFormat.AMR_WB;
+            case "opus":
+                // MediaRecorder.OutputFormat.OGG, added in API 29
+                if (Build.VERSION.SDK_INT >= 29) {
+                    return 11;
+                }
+                Log.e(LOG_TAG, "Format opus requires Android 10.");
+                return MediaRecorder.OutputFormat.DEFAULT;
             default:
                 Log.e(LOG_TAG, "Format with name " + name + " not found.");
                 return MediaRecorder.OutputFormat.DEFAULT;
@@ -119,6 +241,13 @@ public class AudioRecorderModule extends ReactContextBaseJavaModule implements
                 return MediaRecorder.AudioEncoder.VORBIS;
             case "amr":
                 return MediaRecorder.AudioEncoder.AMR_WB;
+            case "opus":
+                // MediaRecorder.AudioEncoder.OPUS, added in API 29
+                if (Build.VERSION.SDK_INT >= 29) {
+                    return 7;
+                }
+                Log.e(LOG_TAG, "Encoder opus requires Android 10.");
+                return MediaRecorder.AudioEncoder.DEFAULT;
             default:
                 Log.e(LOG_TAG, "Encoder with name " + name + " not found.");
                 return MediaRecorder.AudioEncoder.DEFAULT;
@@ -145,54 +274,108 @@ public class AudioRecorderModule extends ReactContextBaseJavaModule implements
 
         return uri;
     }
+
+    // Filesystem path of a file to write, resolved like uriFromPath()
+    private String filePathFromPath(String path) {
+        if (URLUtil.isValidUrl(path)) {
+            return Uri.parse(path).getPath();
+        }
+
+        return new File(this.context.getFilesDir(), path).getPath();
+    }
     
     // metering methods
     private void startMeteringTimer(int monitorInterval) {
-        meteringUpdateTimer = new Timer();
-        meteringUpdateTimer.scheduleAtFixedRate(new TimerTask() {
+        stopMeteringTimer();
+
+        final Timer timer = new Timer();
+        meteringUpdateTimer = timer;
+        timer.scheduleAtFixedRate(new TimerTask() {
             @Override
             public void run() {
-                if (meteringRecorderId != null && meteringRecorder != null) {
-                    WritableMap body = Arguments.createMap();
-                    body.putDouble("id", meteringFrameId++);
-
-                    int amplitude = meteringRecorder.getMaxAmplitude();
-                    if (amplitude == 0) {
-                        body.putInt("value", -160);
-                        body.putInt("rawValue", 0);
-                    } else {
-                        body.putInt("rawValue", amplitude);
-                        body.putInt("value", (int) (20 * Math.log10(((double) amplitude) / 32767d)));
-                    }
-                    emitEvent(meteringRecorderId, "meter", body);
+                Integer recorderId = meteringRecorderId;
+                RecorderBackend recorder = meteringRecorder;
+                if (recorderId == null || recorder == null) {
+                    return;
                 }
+
+                int amplitude;
+                try {
+                    amplitude = recorder.getMaxAmplitude();
+                } catch (IllegalStateException e) {
+                    // Released while this tick was running
+                    return;
+                }
+
+                int value = -160;
+                if (amplitude != 0) {
+                    value = (int) (20 * Math.log10(((double) amplitude) / 32767d));
+                }
+
+                MeterLevel level = new MeterLevel(recorderId, value);
+                meterLevel.set(level);
+
+                // Stopped meanwhile, so don't leave behind a level that stopMeteringTimer() already cleared
+                if (meteringUpdateTimer != timer) {
+                    meterLevel.compareAndSet(level, null);
+                    return;
+                }
+
+                WritableMap body = JsMaps.createMap();
+                body.putDouble("id", meteringFrameId++);
+                body.putInt("value", value);
+                body.putInt("rawValue", amplitude);
+                emitEvent(recorderId, "meter", body);
             }
         }, 0, monitorInterval);
     }
 
     private void stopMeteringTimer() {
-        if (meteringUpdateTimer != null) {
-            meteringUpdateTimer.cancel();
-            meteringUpdateTimer.purge();
+        Timer timer = meteringUpdateTimer;
+        if (timer != null) {
             meteringUpdateTimer = null;
+            timer.cancel();
+            timer.purge();
             meteringFrameId = 0;
+            meterLevel.set(null);
         }
     }
 
+    @ReactMethod(isBlockingSynchronousMethod = true)
+    public double getMeterLevelSync(Integer recorderId) {
+        MeterLevel level = this.meterLevel.get();
+        if (level == null || !level.recorderId.equals(recorderId)) {
+            return -160;
+        }
+
+        return level.value;
+    }
+
     @ReactMethod
     public void destroy(Integer recorderId, Callback callback) {
-        MediaRecorder recorder = this.recorderPool.get(recorderId);
+        RecorderBackend recorder = this.recorderPool.get(recorderId);
 
         if (recorder != null) {
             recorder.release();
             this.recorderPool.remove(recorderId);
             this.recorderAutoDestroy.remove(recorderId);
-            if (recorderId == meteringRecorderId) {
+            this.pausedRecorders.remove(recorderId);
+            this.recorderSource.remove(recorderId);
+            releaseAnalyzer(recorderId);
+
+            // The recording was not finished, so there is nothing useful left to upload
+            RecordingUploader uploader = this.recorderUploaders.remove(recorderId);
+            if (uploader != null) {
+                uploader.cancel();
+                this.activeUploads.remove(uploader.getUploadId());
+            }
+            if (Objects.equals(recorderId, meteringRecorderId)) {
+                stopMeteringTimer();
                 meteringRecorderId = null;
                 meteringRecorder = null;
             }
 
-            WritableMap data = new WritableNativeMap();
+            WritableMap data = JsMaps.createMap();
             data.putString("message", "Destroyed recorder");
 
             emitEvent(recorderId, "info", data);
@@ -218,15 +401,19 @@ public class AudioRecorderModule extends ReactContextBaseJavaModule implements
         Log.d(LOG_TAG, "Releasing old recorder...");
         destroy(recorderId);
 
-        Uri uri = uriFromPath(path);
+        String filePath = filePathFromPath(path);
 
-        Log.d(LOG_TAG, uri.getPath());
+        Log.d(LOG_TAG, filePath);
 
-        //MediaRecorder recorder = MediaRecorder.create(this.context, uri, null, attributes);
-        MediaRecorder recorder = new MediaRecorder();
+        RecorderBackend recorder = this.recorderFactory.create();
 
-        // TODO: allow configuring?
-        recorder.setAudioSource(MediaRecorder.AudioSource.MIC);
+        int source = MediaRecorder.AudioSource.MIC;
+        if (options.hasKey("audioSource")) {
+            source = sourceFromName(options.getString("audioSource"));
+        }
+
+        recorder.setAudioSource(source);
+        this.recorderSource.put(recorderId, source);
 
         int format = formatFromPath(path);
         int encoder = encoderFromPath(path);
@@ -256,13 +443,12 @@ public class AudioRecorderModule extends ReactContextBaseJavaModule implements
         recorder.setAudioChannels(channels);
         recorder.setAudioSamplingRate(sampleRate);
 
-        Log.d(LOG_TAG, "Recorder using options: (format: " + format + ") (encoder: " + encoder + ") "
+        Log.d(LOG_TAG, "Recorder using options: (source: " + source + ") (format: " + format + ") (encoder: " + encoder + ") "
                     + "(bitrate: " + bitrate + ") (channels: " + channels + ") (sampleRate: " + sampleRate + ")");
 
-        recorder.setOutputFile(uri.getPath());
+        recorder.setOutputFile(filePath);
 
-        recorder.setOnErrorListener(this);
-        recorder.setOnInfoListener(this);
+        recorder.setListener(this);
 
         this.recorderPool.put(recorderId, recorder);
 
@@ -275,12 +461,23 @@ public class AudioRecorderModule extends ReactContextBaseJavaModule implements
 
         this.recorderAutoDestroy.put(recorderId, autoDestroy);
 
+        long start = AudioMetrics.now();
+        AudioMetrics.beginSection("RCTAudioRecorder.prepare");
+
         try {
             recorder.prepare();
 
-            callback.invoke(null, uri.getPath());
+            AudioMetrics.record(AudioMetrics.RECORDER_PREPARE, start);
+
+            if (options.hasKey("upload")) {
+                startUpload(recorderId, new File(filePath), options.getMap("upload"));
+            }
+
+            callback.invoke(null, filePath);
         } catch (IOException e) {
             callback.invoke(errObj("preparefail", e.toString()));
+        } finally {
+            AudioMetrics.endSection();
         }
 
         if (options.hasKey("meteringInterval")) {
@@ -300,37 +497,73 @@ public class AudioRecorderModule extends ReactContextBaseJavaModule implements
 
     @ReactMethod
     public void record(Integer recorderId, Callback callback) {
-        MediaRecorder recorder = this.recorderPool.get(recorderId);
+        RecorderBackend recorder = this.recorderPool.get(recorderId);
         if (recorder == null) {
             callback.invoke(errObj("notfound", "recorderId " + recorderId + "not found."));
             return;
         }
 
         try {
-            if (recorderId == meteringRecorderId) {
+            if (Objects.equals(recorderId, meteringRecorderId)) {
                 startMeteringTimer(meteringInterval);
             }
-            recorder.start();
+            // Timestamp on the elapsedRealtime clock, shared by all recorders, so that recordings
+            // of separate sources can be aligned
+            long before = SystemClock.elapsedRealtimeNanos();
+            if (this.pausedRecorders.remove(recorderId)) {
+                resume24(recorder);
+            } else {
+                recorder.start();
+            }
+            long after = SystemClock.elapsedRealtimeNanos();
 
-            callback.invoke();
+            WritableMap info = JsMaps.createMap();
+            info.putDouble("startTime", (before + after) / 2 / 1e6);
+            info.putDouble("startUncertainty", (after - before) / 2 / 1e6);
+
+            callback.invoke(null, info);
         } catch (Exception e) {
             callback.invoke(errObj("startfail", e.toString()));
         }
     }
 
+    @ReactMethod
+    public void recordMany(ReadableArray recorderIds, Callback callback) {
+        BatchCallback batch = new BatchCallback("recorderId", recorderIds.size(), callback);
+
+        // Start back to back so that the recordings begin as close together as possible
+        for (int i = 0; i < recorderIds.size(); i++) {
+            Integer recorderId = recorderIds.getInt(i);
+            record(recorderId, batch.forItem(i, recorderId));
+        }
+    }
+
     @ReactMethod
     public void stop(Integer recorderId, Callback callback) {
-        MediaRecorder recorder = this.recorderPool.get(recorderId);
+        RecorderBackend recorder = this.recorderPool.get(recorderId);
         if (recorder == null) {
             callback.invoke(errObj("notfound", "recorderId " + recorderId + "not found."));
             return;
         }
 
+        long start = AudioMetrics.now();
+        AudioMetrics.beginSection("RCTAudioRecorder.stop");
+
         try {
-            if (recorderId == meteringRecorderId) {
+            if (Objects.equals(recorderId, meteringRecorderId)) {
                 stopMeteringTimer();
             }
             recorder.stop();
+            this.pausedRecorders.remove(recorderId);
+            releaseAnalyzer(recorderId);
+            AudioMetrics.record(AudioMetrics.RECORDER_STOP, start);
+
+            RecordingUploader uploader = this.recorderUploaders.remove(recorderId);
+            if (uploader != null && !uploader.finish()) {
+                // It failed while recording and can be resumed now that the file is complete
+                this.activeUploads.remove(uploader.getUploadId());
+            }
+
             if (this.recorderAutoDestroy.get(recorderId)) {
                 Log.d(LOG_TAG, "Autodestroying recorder...");
                 destroy(recorderId);
@@ -338,6 +571,8 @@ public class AudioRecorderModule extends ReactContextBaseJavaModule implements
             callback.invoke();
         } catch (Exception e) {
             callback.invoke(errObj("stopfail", e.toString()));
+        } finally {
+            AudioMetrics.endSection();
         }
     }
 
@@ -352,30 +587,350 @@ public class AudioRecorderModule extends ReactContextBaseJavaModule implements
 
     @TargetApi(24)
     private void pause24(Integer recorderId, Callback callback) {
-        MediaRecorder recorder = this.recorderPool.get(recorderId);
+        RecorderBackend recorder = this.recorderPool.get(recorderId);
         if (recorder == null) {
             callback.invoke(errObj("notfound", "recorderId " + recorderId + "not found."));
             return;
         }
 
         try {
-            if (recorderId == meteringRecorderId) {
+            if (Objects.equals(recorderId, meteringRecorderId)) {
                 stopMeteringTimer();
             }
             recorder.pause();
-            if (this.recorderAutoDestroy.get(recorderId)) {
-                Log.d(LOG_TAG, "Autodestroying recorder...");
-                destroy(recorderId);
-            }
+            // Keep the recorder, recording continues into the same file on record()
+            this.pausedRecorders.add(recorderId);
             callback.invoke();
         } catch (Exception e) {
             callback.invoke(errObj("stopfail", e.toString()));
         }
     }
 
+    @TargetApi(24)
+    private void resume24(RecorderBackend recorder) {
+        recorder.resume();
+    }
+
+    // Upload
+
+    private void startUpload(final Integer recorderId, File file, ReadableMap options) {
+        JSONObject uploadOptions = new JSONObject(options.toHashMap());
+        String uploadId = uploadOptions.optString("uploadId", UUID.randomUUID().toString());
+
+        RecordingUploader uploader = new RecordingUploader(uploadId, file, this.context.getCacheDir(),
+                uploadOptions, this.transportFactory.create(uploadOptions), new RecordingUploader.Listener() {
+            @Override
+            public void onUploadFinished(RecordingUploader uploader, long size, int chunks) {
+                activeUploads.remove(uploader.getUploadId());
+
+                WritableMap data = JsMaps.createMap();
+                data.putString("uploadId", uploader.getUploadId());
+                data.putDouble("size", size);
+                data.putInt("chunks", chunks);
+
+                emitEvent(recorderId, "uploaded", data);
+            }
+
+            @Override
+            public void onUploadError(final RecordingUploader uploader, String message) {
+                // The id stays reserved while the recorder still writes the file, so that
+                // resumeUploads() doesn't pick up an incomplete recording; stop() releases it
+                context.runOnNativeModulesQueueThread(new Runnable() {
+                    @Override
+                    public void run() {
+                        if (recorderUploaders.get(recorderId) != uploader) {
+                            activeUploads.remove(uploader.getUploadId());
+                        }
+                    }
+                });
+
+                WritableMap data = JsMaps.createMap();
+                data.putString("uploadId", uploader.getUploadId());
+                data.putMap("err", errObj("uploadfail", message));
+                data.putString("message", "Upload failed, it can be retried with resumeUploads() once the recorder is stopped");
+
+                emitEvent(recorderId, "uploadError", data);
+            }
+        });
+
+        this.recorderUploaders.put(recorderId, uploader);
+        this.activeUploads.add(uploadId);
+        uploader.start();
+    }
+
+    @ReactMethod
+    public void resumeUploads(ReadableMap options, final Callback callback) {
+        JSONObject headers = options.hasKey("headers") ? new JSONObject(options.getMap("headers").toHashMap()) : null;
+
+        final WritableArray results = JsMaps.createArray();
+        final AtomicInteger remaining = new AtomicInteger();
+
+        RecordingUploader.Listener listener = new RecordingUploader.Listener() {
+            @Override
+            public void onUploadFinished(RecordingUploader uploader, long size, int chunks) {
+                activeUploads.remove(uploader.getUploadId());
+
+                WritableMap result = JsMaps.createMap();
+                result.putString("uploadId", uploader.getUploadId());
+                result.putDouble("size", size);
+                result.putInt("chunks", chunks);
+                done(result);
+            }
+
+            @Override
+            public void onUploadError(RecordingUploader uploader, String message) {
+                activeUploads.remove(uploader.getUploadId());
+
+                WritableMap result = JsMaps.createMap();
+                result.putString("uploadId", uploader.getUploadId());
+                result.putMap("err", errObj("uploadfail", message));
+                done(result);
+            }
+
+            private void done(WritableMap result) {
+                synchronized (results) {
+                    results.pushMap(result);
+                }
+
+                if (remaining.decrementAndGet() == 0) {
+                    callback.invoke(null, results);
+                }
+            }
+        };
+
+        List<RecordingUploader> uploaders = RecordingUploader.resume(this.context.getCacheDir(),
+                this.activeUploads, headers, this.transportFactory, listener);
+        if (uploaders.isEmpty()) {
+            callback.invoke(null, results);
+            return;
+        }
+
+        remaining.set(uploaders.size());
+        for (RecordingUploader uploader : uploaders) {
+            this.activeUploads.add(uploader.getUploadId());
+            uploader.start();
+        }
+    }
+
+    // Transcoding
+
+    @ReactMethod
+    public void transcode(final Integer jobId, String src, String dst, ReadableMap options, final Callback callback) {
+        if (src == null || src.isEmpty() || dst == null || dst.isEmpty()) {
+            callback.invoke(errObj("invalidpath", "Provided path was empty"));
+            return;
+        }
+
+        final String dstPath = filePathFromPath(dst);
+
+        int format = formatFromPath(dst);
+        int encoder = encoderFromPath(dst);
+        int bitrate = 64000;
+        int priority = 0;
+
+        if (options.hasKey("format")) {
+            format = formatFromName(options.getString("format"));
+        }
+        if (options.hasKey("encoder")) {
+            encoder = encoderFromName(options.getString("encoder"));
+        }
+        if (options.hasKey("bitrate")) {
+            bitrate = options.getInt("bitrate");
+        }
+        if (options.hasKey("priority")) {
+            priority = options.getInt("priority");
+        }
+
+        if (this.transcodeQueue == null) {
+            int workers = Math.max(1, Math.min(2, Runtime.getRuntime().availableProcessors() - 1));
+            this.transcodeQueue = new TranscodeQueue(workers);
+        }
+        final TranscodeQueue queue = this.transcodeQueue;
+
+        TranscodeJob job = new TranscodeJob(jobId, priority, this.context, uriFromPath(src), new File(dstPath),
+                format, encoder, bitrate, queue.codecs, new TranscodeJob.Listener() {
+            @Override
+            public void onProgress(TranscodeJob job, double progress) {
+                WritableMap data = JsMaps.createMap();
+                data.putDouble("progress", progress);
+
+                emitEvent("RCTAudioTranscodeEvent:" + jobId, "progress", data);
+            }
+
+            @Override
+            public void onFinished(TranscodeJob job, String errorCode, String message) {
+                queue.remove(job);
+
+                if (errorCode != null) {
+                    callback.invoke(errObj(errorCode, message));
+                } else {
+                    callback.invoke(null, dstPath);
+                }
+            }
+        });
+
+        queue.submit(job);
+    }
+
+    @ReactMethod
+    public void cancelTranscode(Integer jobId, Callback callback) {
+        if (this.transcodeQueue == null || !this.transcodeQueue.cancel(jobId)) {
+            callback.invoke(errObj("notfound", "jobId " + jobId + " not found."));
+            return;
+        }
+
+        callback.invoke();
+    }
+
+    // Editing
+
+    private interface EditTask {
+        void run(File output) throws IOException;
+    }
+
+    @ReactMethod
+    public void trim(String src, String dst, final double startMs, final double endMs, Callback callback) {
+        if (src == null || src.isEmpty() || dst == null || dst.isEmpty()) {
+            callback.invoke(errObj("invalidpath", "Provided path was empty"));
+            return;
+        }
+
+        final Uri source = uriFromPath(src);
+        final int format = formatFromPath(dst);
+
+        runEdit(dst, new EditTask() {
+            @Override
+            public void run(File output) throws IOException {
+                AudioEditor.trim(context, source, output, format, (long) (startMs * 1000),
+                        endMs >= 0 ? (long) (endMs * 1000) : -1);
+            }
+        }, callback);
+    }
+
+    @ReactMethod
+    public void concat(ReadableArray srcs, String dst, Callback callback) {
+        if (dst == null || dst.isEmpty()) {
+            callback.invoke(errObj("invalidpath", "Provided path was empty"));
+            return;
+        }
+
+        final List<Uri> sources = new ArrayList<>();
+        for (int i = 0; i < srcs.size(); i++) {
+            sources.add(uriFromPath(srcs.getString(i)));
+        }
+        final int format = formatFromPath(dst);
+
+        runEdit(dst, new EditTask() {
+            @Override
+            public void run(File output) throws IOException {
+                AudioEditor.concat(context, sources, output, format);
+            }
+        }, callback);
+    }
+
+    // Run an edit in the background, writing to a temporary file that replaces `dst` on success
+    private void runEdit(String dst, final EditTask task, final Callback callback) {
+        final File output = new File(filePathFromPath(dst));
+
+        if (this.editExecutor == null) {
+            this.editExecutor = Executors.newSingleThreadExecutor();
+        }
+
+        this.editExecutor.execute(new Runnable() {
+            @Override
+            public void run() {
+                File temp = new File(output.getPath() + ".tmp");
+                String error = null;
+
+                try {
+                    task.run(temp);
+
+                    if (output.exists() && !output.delete()) {
+                        throw new IOException("Could not replace " + output);
+                    }
+                    if (!temp.renameTo(output)) {
+                        throw new IOException("Could not write " + output);
+                    }
+                } catch (IOException | RuntimeException e) {
+                    error = e.toString();
+                } finally {
+                    temp.delete();
+                }
+
+                if (error != null) {
+                    callback.invoke(errObj("editfail", error));
+                } else {
+                    callback.invoke(null, output.getPath());
+                }
+            }
+        });
+    }
+
+    // Spectrum analysis
+
+    /**
+     * Report band levels of the recorder's input as "spectrum" events until it is stopped. The input is
+     * captured a second time next to the MediaRecorder, which only Android 10+ allows.
+     */
+    @ReactMethod
+    public void startAnalyzer(final Integer recorderId, ReadableMap options, Callback callback) {
+        if (Build.VERSION.SDK_INT < 29) {
+            callback.invoke(errObj("notsupported", "Analyzing recordings requires Android 10"));
+            return;
+        }
+
+        Integer source = this.recorderSource.get(recorderId);
+        if (source == null) {
+            callback.invoke(errObj("notfound", "recorderId " + recorderId + "not found."));
+            return;
+        }
+
+        releaseAnalyzer(recorderId);
+
+        if (this.spectrumExecutor == null) {
+            this.spectrumExecutor = Executors.newSingleThreadScheduledExecutor();
+        }
+
+        try {
+            this.recorderAnalyzers.put(recorderId, SpectrumAnalyzer.forAudioSource(source, options, this.spectrumExecutor,
+                    new SpectrumAnalyzer.Listener() {
+                        @Override
+                        public void onSpectrum(float[] bands) {
+                            WritableArray levels = JsMaps.createArray();
+                            for (float band : bands) {
+                                levels.pushDouble(band);
+                            }
+
+                            WritableMap data = JsMaps.createMap();
+                            data.putArray("bands", levels);
+
+                            emitEvent(recorderId, "spectrum", data);
+                        }
+                    }));
+        } catch (RuntimeException e) {
+            callback.invoke(errObj("analyzerfail", e.toString()));
+            return;
+        }
+
+        callback.invoke();
+    }
+
+    @ReactMethod
+    public void stopAnalyzer(Integer recorderId, Callback callback) {
+        releaseAnalyzer(recorderId);
+        callback.invoke();
+    }
+
+    private void releaseAnalyzer(Integer recorderId) {
+        SpectrumAnalyzer analyzer = this.recorderAnalyzers.remove(recorderId);
+        if (analyzer != null) {
+            analyzer.release();
+        }
+    }
+
     // Find recorderId matching recorder from recorderPool
-    private Integer getRecorderId(MediaRecorder recorder) {
-        for (Entry<Integer, MediaRecorder> entry : recorderPool.entrySet()) {
+    private Integer getRecorderId(RecorderBackend recorder) {
+        for (Entry<Integer, RecorderBackend> entry : recorderPool.entrySet()) {
             if (Objects.equals(recorder, entry.getValue())) {
                 return entry.getKey();
             }
@@ -385,15 +940,17 @@ public class AudioRecorderModule extends ReactContextBaseJavaModule implements
     }
 
     @Override
-    public void onError(MediaRecorder recorder, int what, int extra) {
+    public void onError(RecorderBackend recorder, int what, int extra) {
         Integer recorderId = getRecorderId(recorder);
 
+        AudioMetrics.recordError(AudioMetrics.SOURCE_RECORDER, what, extra);
+
         // TODO: translate these codes into english
-        WritableMap err = new WritableNativeMap();
+        WritableMap err = JsMaps.createMap();
         err.putInt("what", what);
         err.putInt("extra", extra);
 
-        WritableMap data = new WritableNativeMap();
+        WritableMap data = JsMaps.createMap();
         data.putMap("err", err);
         data.putString("message", "Android MediaRecorder error");
 
@@ -403,15 +960,15 @@ public class AudioRecorderModule extends ReactContextBaseJavaModule implements
     }
 
     @Override
-    public void onInfo(MediaRecorder recorder, int what, int extra) {
+    public void onInfo(RecorderBackend recorder, int what, int extra) {
         Integer recorderId = getRecorderId(recorder);
 
         // TODO: translate these codes into english
-        WritableMap info = new WritableNativeMap();
+        WritableMap info = JsMaps.createMap();
         info.putInt("what", what);
         info.putInt("extra", extra);
 
-        WritableMap data = new WritableNativeMap();
+        WritableMap data = JsMaps.createMap();
         data.putMap("info", info);
         data.putString("message", "Android MediaRecorder info");
 
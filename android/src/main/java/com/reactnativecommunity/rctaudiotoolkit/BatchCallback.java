@@ -0,0 +1,73 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Collects the results of the single player or recorder methods a batch command is made of, and
+ * invokes the batch callback with all of them, in order, once the last one has arrived. Results
+ * may arrive later than the call that produced them, e.g. for evicted players that have to be
+ * prepared again first.
+ */
+class BatchCallback {
+    private final String idKey;
+    private final Callback callback;
+    private final WritableMap[] results;
+    private int remaining;
+
+    BatchCallback(String idKey, int count, Callback callback) {
+        this.idKey = idKey;
+        this.callback = callback;
+        this.results = new WritableMap[count];
+        this.remaining = count;
+
+        if (count == 0) {
+            callback.invoke(null, JsMaps.createArray());
+        }
+    }
+
+    /**
+     * Callback for the item at `index`, to be passed to the single player or recorder method.
+     */
+    Callback forItem(final int index, final Integer id) {
+        return new Callback() {
+            private boolean invoked = false;
+
+            @Override
+            public void invoke(Object... args) {
+                if (this.invoked) {
+                    return;
+                }
+                this.invoked = true;
+
+                results[index] = toMap(id, args);
+                if (--remaining == 0) {
+                    finish();
+                }
+            }
+        };
+    }
+
+    private WritableMap toMap(Integer id, Object[] args) {
+        WritableMap result = JsMaps.createMap();
+        result.putInt(this.idKey, id);
+
+        if (args.length > 0 && args[0] != null) {
+            result.putMap("err", (WritableMap) args[0]);
+        } else if (args.length > 1 && args[1] != null) {
+            result.putMap("info", (WritableMap) args[1]);
+        }
+
+        return result;
+    }
+
+    private void finish() {
+        WritableArray array = JsMaps.createArray();
+        for (WritableMap result : this.results) {
+            array.pushMap(result);
+        }
+
+        this.callback.invoke(null, array);
+    }
+}
@@ -0,0 +1,86 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.media.MediaCodec;
+import android.util.Log;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Keeps stopped MediaCodec instances around so that consecutive jobs can configure an existing
+ * codec instead of allocating a new one, along with its buffers, every time.
+ */
+class CodecPool {
+    private static final String LOG_TAG = "CodecPool";
+
+    private final int maxIdlePerType;
+    private final Map<String, ArrayDeque<MediaCodec>> idle = new HashMap<>();
+    private boolean closed = false;
+
+    CodecPool(int maxIdlePerType) {
+        this.maxIdlePerType = maxIdlePerType;
+    }
+
+    MediaCodec acquireDecoder(String mime) throws IOException {
+        MediaCodec codec = poll("decoder:" + mime);
+        return codec != null ? codec : MediaCodec.createDecoderByType(mime);
+    }
+
+    MediaCodec acquireEncoder(String mime) throws IOException {
+        MediaCodec codec = poll("encoder:" + mime);
+        return codec != null ? codec : MediaCodec.createEncoderByType(mime);
+    }
+
+    /**
+     * Return a codec after use. Codecs that failed are released instead of being reused.
+     */
+    void recycleDecoder(String mime, MediaCodec codec, boolean reusable) {
+        recycle("decoder:" + mime, codec, reusable);
+    }
+
+    void recycleEncoder(String mime, MediaCodec codec, boolean reusable) {
+        recycle("encoder:" + mime, codec, reusable);
+    }
+
+    synchronized void releaseAll() {
+        for (ArrayDeque<MediaCodec> codecs : this.idle.values()) {
+            for (MediaCodec codec : codecs) {
+                codec.release();
+            }
+        }
+        this.idle.clear();
+        this.closed = true;
+    }
+
+    private synchronized MediaCodec poll(String key) {
+        ArrayDeque<MediaCodec> codecs = this.idle.get(key);
+        return codecs != null ? codecs.poll() : null;
+    }
+
+    private void recycle(String key, MediaCodec codec, boolean reusable) {
+        try {
+            // Stopping returns the codec to the uninitialized state, ready to be configured again
+            codec.stop();
+        } catch (IllegalStateException e) {
+            reusable = false;
+        }
+
+        synchronized (this) {
+            ArrayDeque<MediaCodec> codecs = this.idle.get(key);
+            if (codecs == null) {
+                codecs = new ArrayDeque<>();
+                this.idle.put(key, codecs);
+            }
+
+            if (reusable && !this.closed && codecs.size() < this.maxIdlePerType) {
+                codecs.add(codec);
+                return;
+            }
+        }
+
+        Log.d(LOG_TAG, "Releasing " + key);
+        codec.release();
+    }
+}
@@ -0,0 +1,231 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.annotation.TargetApi;
+import android.media.MediaCodec;
+import android.media.MediaFormat;
+import android.media.MediaMuxer;
+import android.media.MediaRecorder;
+import android.os.Build;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Writes encoded audio frames to a file in one of the MediaRecorder output formats, either through
+ * a MediaMuxer or, for formats the muxer does not support, as raw frames with the same headers
+ * that MediaRecorder writes.
+ */
+abstract class EncodedSink {
+    /**
+     * Called with the format of the encoded track before the first frame.
+     */
+    abstract void start(MediaFormat format) throws IOException;
+
+    abstract void write(ByteBuffer buffer, MediaCodec.BufferInfo info) throws IOException;
+
+    abstract void finish() throws IOException;
+
+    abstract void close();
+
+    /**
+     * Create a sink for a MediaRecorder output format, for frames of the given track. Fails if the
+     * track's codec can't be stored in that format without re-encoding.
+     */
+    static EncodedSink create(File output, int format, MediaFormat trackFormat) throws IOException {
+        String mime = trackFormat.getString(MediaFormat.KEY_MIME);
+
+        switch (format) {
+            case MediaRecorder.OutputFormat.AAC_ADTS:
+                checkCodec(format, mime, "audio/mp4a-latm");
+                return new AdtsSink(output, adtsProfile(trackFormat),
+                        sampleRateIndex(trackFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE)),
+                        trackFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT));
+            case MediaRecorder.OutputFormat.AMR_NB:
+                checkCodec(format, mime, "audio/3gpp");
+                return new RawSink(output, "#!AMR\n");
+            case MediaRecorder.OutputFormat.AMR_WB:
+                checkCodec(format, mime, "audio/amr-wb");
+                return new RawSink(output, "#!AMR-WB\n");
+            case MediaRecorder.OutputFormat.WEBM:
+                if (Build.VERSION.SDK_INT < 21) {
+                    throw new IOException("WebM output requires Android 5.0");
+                }
+                checkCodec(format, mime, "audio/vorbis", "audio/opus");
+                return new MuxerSink(output, MediaMuxer.OutputFormat.MUXER_OUTPUT_WEBM);
+            case 11: // MediaRecorder.OutputFormat.OGG, API 29
+                if (Build.VERSION.SDK_INT < 29) {
+                    throw new IOException("Ogg output requires Android 10");
+                }
+                checkCodec(format, mime, "audio/opus");
+                return new MuxerSink(output, 4); // MediaMuxer.OutputFormat.MUXER_OUTPUT_OGG
+            default:
+                checkCodec(format, mime, "audio/mp4a-latm", "audio/3gpp", "audio/amr-wb");
+                return new MuxerSink(output, MediaMuxer.OutputFormat.MUXER_OUTPUT_MPEG_4);
+        }
+    }
+
+    private static void checkCodec(int format, String mime, String... supported) throws IOException {
+        for (String codec : supported) {
+            if (codec.equals(mime)) {
+                return;
+            }
+        }
+
+        throw new IOException("Audio of type " + mime + " can't be written to output format " + format
+                + " without re-encoding");
+    }
+
+    // ADTS headers carry the AAC object type minus one, and only describe Main, LC, SSR and LTP
+    private static int adtsProfile(MediaFormat trackFormat) throws IOException {
+        int objectType = -1;
+
+        ByteBuffer config = trackFormat.getByteBuffer("csd-0");
+        if (config != null && config.remaining() > 0) {
+            // AudioSpecificConfig starts with the 5-bit audio object type
+            objectType = (config.get(config.position()) & 0xFF) >> 3;
+        } else if (trackFormat.containsKey(MediaFormat.KEY_AAC_PROFILE)) {
+            objectType = trackFormat.getInteger(MediaFormat.KEY_AAC_PROFILE);
+        }
+
+        if (objectType < 1 || objectType > 4) {
+            throw new IOException("AAC object type " + objectType + " (e.g. HE-AAC) can't be written as ADTS, "
+                    + "use an .mp4 or .m4a output instead");
+        }
+
+        return objectType - 1;
+    }
+
+    private static int sampleRateIndex(int sampleRate) throws IOException {
+        for (int i = 0; i < AdtsSink.SAMPLE_RATES.length; i++) {
+            if (AdtsSink.SAMPLE_RATES[i] == sampleRate) {
+                return i;
+            }
+        }
+
+        throw new IOException("Sample rate " + sampleRate + " is not supported by ADTS");
+    }
+
+    @TargetApi(18)
+    private static class MuxerSink extends EncodedSink {
+        private final MediaMuxer muxer;
+        private int track = -1;
+
+        MuxerSink(File output, int format) throws IOException {
+            this.muxer = new MediaMuxer(output.getPath(), format);
+        }
+
+        @Override
+        public void start(MediaFormat format) {
+            this.track = this.muxer.addTrack(format);
+            this.muxer.start();
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, MediaCodec.BufferInfo info) throws IOException {
+            if (this.track < 0) {
+                throw new IOException("Track format missing");
+            }
+            this.muxer.writeSampleData(this.track, buffer, info);
+        }
+
+        @Override
+        public void finish() {
+            this.muxer.stop();
+            this.track = -1;
+        }
+
+        @Override
+        public void close() {
+            try {
+                if (this.track >= 0) {
+                    this.muxer.stop();
+                }
+            } catch (IllegalStateException e) {
+                // Nothing was written
+            }
+            this.muxer.release();
+        }
+    }
+
+    /**
+     * Raw frames preceded by an optional file header, as written by MediaRecorder for AMR.
+     */
+    private static class RawSink extends EncodedSink {
+        private final FileOutputStream out;
+        private final FileChannel channel;
+
+        RawSink(File output, String header) throws IOException {
+            this.out = new FileOutputStream(output);
+            this.channel = this.out.getChannel();
+            this.out.write(header.getBytes("US-ASCII"));
+        }
+
+        @Override
+        public void start(MediaFormat format) {
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, MediaCodec.BufferInfo info) throws IOException {
+            while (buffer.hasRemaining()) {
+                this.channel.write(buffer);
+            }
+        }
+
+        @Override
+        public void finish() throws IOException {
+            this.out.getFD().sync();
+        }
+
+        @Override
+        public void close() {
+            try {
+                this.out.close();
+            } catch (IOException e) {
+                // Already closed
+            }
+        }
+    }
+
+    /**
+     * AAC frames, each preceded by an ADTS header.
+     */
+    private static class AdtsSink extends RawSink {
+        private static final int[] SAMPLE_RATES = {
+                96000, 88200, 64000, 48000, 44100, 32000, 24000, 22050, 16000, 12000, 11025, 8000, 7350
+        };
+
+        private final ByteBuffer header = ByteBuffer.allocate(7);
+        private final int profile;
+        private final int sampleRateIndex;
+        private final int channels;
+
+        AdtsSink(File output, int profile, int sampleRateIndex, int channels) throws IOException {
+            super(output, "");
+
+            this.profile = profile;
+            this.sampleRateIndex = sampleRateIndex;
+            this.channels = channels;
+        }
+
+        @Override
+        public void write(ByteBuffer buffer, MediaCodec.BufferInfo info) throws IOException {
+            int length = info.size + 7;
+
+            this.header.clear();
+            this.header.put((byte) 0xFF);
+            this.header.put((byte) 0xF1);
+            this.header.put((byte) ((this.profile << 6) | (this.sampleRateIndex << 2) | (this.channels >> 2)));
+            this.header.put((byte) (((this.channels & 3) << 6) | (length >> 11)));
+            this.header.put((byte) ((length & 0x7FF) >> 3));
+            this.header.put((byte) (((length & 7) << 5) | 0x1F));
+            this.header.put((byte) 0xFC);
+            this.header.flip();
+
+            super.write(this.header, info);
+            super.write(buffer, info);
+        }
+    }
+}
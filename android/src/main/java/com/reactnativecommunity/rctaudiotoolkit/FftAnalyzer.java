@@ -0,0 +1,244 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import java.util.Arrays;
+
+/**
+ * Turns mono samples into band levels with a windowed radix-2 FFT. Every array, including the
+ * twiddle and bit reversal tables, is allocated up front, so analyzing a frame doesn't allocate.
+ *
+ * Samples are pushed from a single thread; completed results are read by another thread through
+ * `copyBands()`, which only holds the lock while copying.
+ */
+class FftAnalyzer {
+    static final int WINDOW_RECTANGULAR = 0;
+    static final int WINDOW_HANN = 1;
+    static final int WINDOW_HAMMING = 2;
+    static final int WINDOW_BLACKMAN = 3;
+
+    // Levels are reported in dBFS, clamped to this floor
+    static final float MIN_LEVEL = -100.0f;
+    private static final float MIN_FREQUENCY = 20.0f;
+
+    private final int size;
+    private final float[] window;
+    private final float[] cos;
+    private final float[] sin;
+    private final int[] reversed;
+    private final float[] re;
+    private final float[] im;
+
+    // Samples of the frame being collected
+    private final float[] frame;
+    private int frameFill = 0;
+
+    // First bin of each band, plus the end of the last one
+    private final int[] bandStart;
+    private final float[] levels;
+    private final float[] bands;
+    private final float scale;
+    private long sequence = 0;
+
+    /**
+     * @param size FFT size, rounded down to a power of two
+     */
+    FftAnalyzer(int size, int window, int bandCount, int sampleRate) {
+        this.size = Integer.highestOneBit(Math.max(16, size));
+        this.window = new float[this.size];
+        this.cos = new float[this.size / 2];
+        this.sin = new float[this.size / 2];
+        this.reversed = new int[this.size];
+        this.re = new float[this.size];
+        this.im = new float[this.size];
+        this.frame = new float[this.size];
+
+        double windowEnergy = 0;
+        for (int i = 0; i < this.size; i++) {
+            this.window[i] = windowValue(window, i, this.size);
+            windowEnergy += this.window[i] * this.window[i];
+        }
+        // Bands add up the energy of their bins, which for a full scale sine is size * windowEnergy / 4
+        // over the positive frequencies whatever the window; that becomes 0 dB
+        this.scale = (float) (2.0 / Math.sqrt(this.size * windowEnergy));
+
+        for (int i = 0; i < this.size / 2; i++) {
+            double angle = 2 * Math.PI * i / this.size;
+            this.cos[i] = (float) Math.cos(angle);
+            this.sin[i] = (float) Math.sin(angle);
+        }
+
+        int bits = Integer.numberOfTrailingZeros(this.size);
+        for (int i = 0; i < this.size; i++) {
+            this.reversed[i] = Integer.reverse(i) >>> (32 - bits);
+        }
+
+        int bins = this.size / 2;
+        double binWidth = sampleRate / 2.0 / bins;
+        int firstBin = (int) Math.max(1.0, MIN_FREQUENCY / binWidth);
+        int count = Math.max(1, Math.min(bandCount, bins - firstBin));
+        this.bandStart = bandEdges(count, firstBin, bins);
+        this.levels = new float[count];
+        this.bands = new float[count];
+        Arrays.fill(this.bands, MIN_LEVEL);
+    }
+
+    static int windowFromName(String name) {
+        switch (name) {
+            case "rectangular":
+                return WINDOW_RECTANGULAR;
+            case "hamming":
+                return WINDOW_HAMMING;
+            case "blackman":
+                return WINDOW_BLACKMAN;
+            case "hann":
+            default:
+                return WINDOW_HANN;
+        }
+    }
+
+    private static float windowValue(int window, int i, int size) {
+        double x = 2 * Math.PI * i / (size - 1);
+
+        switch (window) {
+            case WINDOW_RECTANGULAR:
+                return 1.0f;
+            case WINDOW_HAMMING:
+                return (float) (0.54 - 0.46 * Math.cos(x));
+            case WINDOW_BLACKMAN:
+                return (float) (0.42 - 0.5 * Math.cos(x) + 0.08 * Math.cos(2 * x));
+            case WINDOW_HANN:
+            default:
+                return (float) (0.5 - 0.5 * Math.cos(x));
+        }
+    }
+
+    // Logarithmically spaced bands from MIN_FREQUENCY up to Nyquist, each at least one bin wide
+    static int[] bandEdges(int count, int firstBin, int bins) {
+        int[] edges = new int[count + 1];
+        double ratio = Math.pow((double) bins / firstBin, 1.0 / count);
+
+        edges[0] = firstBin;
+        for (int i = 1; i <= count; i++) {
+            int edge = (int) Math.round(firstBin * Math.pow(ratio, i));
+            edges[i] = Math.max(edges[i - 1] + 1, edge);
+        }
+
+        // Rounding up to one bin per band can overshoot, so pull the edges back from the top
+        edges[count] = bins;
+        for (int i = count - 1; i > 0 && edges[i] >= edges[i + 1]; i--) {
+            edges[i] = edges[i + 1] - 1;
+        }
+
+        return edges;
+    }
+
+    int getSize() {
+        return this.size;
+    }
+
+    int getBandCount() {
+        return this.bands.length;
+    }
+
+    /**
+     * Push interleaved little endian 16-bit PCM, downmixed to mono.
+     */
+    void pushPcm16(byte[] data, int offset, int length, int channels) {
+        int frameBytes = 2 * channels;
+        int end = offset + length - length % frameBytes;
+
+        for (int i = offset; i < end; i += frameBytes) {
+            float sum = 0;
+            for (int c = 0; c < channels; c++) {
+                int index = i + 2 * c;
+                sum += (short) ((data[index] & 0xFF) | (data[index + 1] << 8));
+            }
+            push(sum / (32768.0f * channels));
+        }
+    }
+
+    void pushPcm16(short[] data, int offset, int length) {
+        for (int i = offset; i < offset + length; i++) {
+            push(data[i] / 32768.0f);
+        }
+    }
+
+    /**
+     * Push unsigned 8-bit samples, as captured by `Visualizer`.
+     */
+    void pushUnsigned8(byte[] data) {
+        for (byte sample : data) {
+            push(((sample & 0xFF) - 128) / 128.0f);
+        }
+    }
+
+    private void push(float sample) {
+        this.frame[this.frameFill++] = sample;
+        if (this.frameFill == this.size) {
+            this.frameFill = 0;
+            analyze();
+        }
+    }
+
+    private void analyze() {
+        for (int i = 0; i < this.size; i++) {
+            int j = this.reversed[i];
+            this.re[j] = this.frame[i] * this.window[i];
+            this.im[j] = 0;
+        }
+
+        transform();
+
+        // Band level is the energy of all its bins, so a tone reads the same in narrow and wide bands
+        for (int b = 0; b < this.levels.length; b++) {
+            float power = 0;
+            for (int k = this.bandStart[b]; k < this.bandStart[b + 1]; k++) {
+                power += this.re[k] * this.re[k] + this.im[k] * this.im[k];
+            }
+
+            float level = (float) (10 * Math.log10(power * this.scale * this.scale));
+            this.levels[b] = level > MIN_LEVEL ? level : MIN_LEVEL;
+        }
+
+        synchronized (this) {
+            System.arraycopy(this.levels, 0, this.bands, 0, this.levels.length);
+            this.sequence++;
+        }
+    }
+
+    // In-place iterative radix-2 FFT over the bit reversed input
+    private void transform() {
+        float[] re = this.re;
+        float[] im = this.im;
+
+        for (int length = 2; length <= this.size; length <<= 1) {
+            int half = length >> 1;
+            int step = this.size / length;
+
+            for (int start = 0; start < this.size; start += length) {
+                for (int k = 0, t = 0; k < half; k++, t += step) {
+                    int a = start + k;
+                    int b = a + half;
+                    float c = this.cos[t];
+                    float s = this.sin[t];
+
+                    float tr = re[b] * c + im[b] * s;
+                    float ti = im[b] * c - re[b] * s;
+
+                    re[b] = re[a] - tr;
+                    im[b] = im[a] - ti;
+                    re[a] += tr;
+                    im[a] += ti;
+                }
+            }
+        }
+    }
+
+    /**
+     * Copy the latest band levels into `dst`. Returns the number of frames analyzed so far, so
+     * callers can skip results they have seen already.
+     */
+    synchronized long copyBands(float[] dst) {
+        System.arraycopy(this.bands, 0, dst, 0, this.bands.length);
+        return this.sequence;
+    }
+}
@@ -0,0 +1,86 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.HttpURLConnection;
+import java.net.URL;
+import java.util.Iterator;
+
+/**
+ * Uploads chunks as separate POST requests to `url`, identified by the `X-Upload-Id`,
+ * `X-Chunk-Index` and `Content-Range` headers, followed by the manifest as JSON
+ * (to `manifestUrl` if given). Any non-2xx response is treated as a retryable failure.
+ */
+class HttpUploadTransport implements UploadTransport {
+    private static final int TIMEOUT = 15000;
+
+    private final String url;
+    private final String manifestUrl;
+    private final JSONObject headers;
+
+    HttpUploadTransport(JSONObject options) {
+        this.url = options.optString("url");
+        this.manifestUrl = options.optString("manifestUrl", this.url);
+        this.headers = options.optJSONObject("headers");
+    }
+
+    @Override
+    public void sendChunk(String uploadId, int index, long offset, byte[] data) throws IOException {
+        HttpURLConnection connection = open(this.url, uploadId);
+        connection.setRequestProperty("Content-Type", "application/octet-stream");
+        connection.setRequestProperty("X-Chunk-Index", String.valueOf(index));
+        connection.setRequestProperty("Content-Range",
+                "bytes " + offset + "-" + (offset + data.length - 1) + "/*");
+
+        send(connection, data);
+    }
+
+    @Override
+    public void sendManifest(String uploadId, JSONObject manifest) throws IOException {
+        HttpURLConnection connection = open(this.manifestUrl, uploadId);
+        connection.setRequestProperty("Content-Type", "application/json");
+
+        send(connection, manifest.toString().getBytes("UTF-8"));
+    }
+
+    private HttpURLConnection open(String url, String uploadId) throws IOException {
+        HttpURLConnection connection = (HttpURLConnection) new URL(url).openConnection();
+        connection.setRequestMethod("POST");
+        connection.setDoOutput(true);
+        connection.setConnectTimeout(TIMEOUT);
+        connection.setReadTimeout(TIMEOUT);
+        connection.setRequestProperty("X-Upload-Id", uploadId);
+
+        if (this.headers != null) {
+            Iterator<String> keys = this.headers.keys();
+            while (keys.hasNext()) {
+                String key = keys.next();
+                connection.setRequestProperty(key, this.headers.optString(key));
+            }
+        }
+
+        return connection;
+    }
+
+    private void send(HttpURLConnection connection, byte[] body) throws IOException {
+        try {
+            connection.setFixedLengthStreamingMode(body.length);
+
+            OutputStream out = connection.getOutputStream();
+            try {
+                out.write(body);
+            } finally {
+                out.close();
+            }
+
+            int status = connection.getResponseCode();
+            if (status < 200 || status >= 300) {
+                throw new IOException("Upload failed with HTTP status " + status);
+            }
+        } finally {
+            connection.disconnect();
+        }
+    }
+}
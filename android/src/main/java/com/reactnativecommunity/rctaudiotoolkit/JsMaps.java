@@ -0,0 +1,28 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import com.facebook.react.bridge.Arguments;
+import com.facebook.react.bridge.JavaOnlyArray;
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.WritableArray;
+import com.facebook.react.bridge.WritableMap;
+
+/**
+ * Creates the maps and arrays handed to JS. Native ones need the React Native libraries, which
+ * aren't available when the modules are driven on a plain JVM by the tests and benchmarks, so
+ * those switch to Java only ones with `useJavaOnly()` first.
+ */
+class JsMaps {
+    private static volatile boolean javaOnly = false;
+
+    static void useJavaOnly() {
+        javaOnly = true;
+    }
+
+    static WritableMap createMap() {
+        return javaOnly ? new JavaOnlyMap() : Arguments.createMap();
+    }
+
+    static WritableArray createArray() {
+        return javaOnly ? new JavaOnlyArray() : Arguments.createArray();
+    }
+}
@@ -0,0 +1,304 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.content.Context;
+import android.media.MediaCodec;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.net.Uri;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.ShortBuffer;
+
+/**
+ * Measures integrated loudness (ITU-R BS.1770 / EBU R128) and sample peak of an audio file by
+ * decoding it in a streaming fashion. Memory use does not depend on the length of the file apart
+ * from one double per 100 ms of audio for gating.
+ */
+class LoudnessAnalyzer {
+    private static final long TIMEOUT_US = 10000;
+
+    // Loudness reported for silent files, same as the absolute gate
+    static final double MIN_LOUDNESS = -70.0;
+
+    // Files quieter than this are mostly noise or silence and are left alone, as are any boosts
+    // beyond MAX_GAIN, which would mostly amplify the noise floor
+    static final double GATE_LOUDNESS = -50.0;
+    static final double MAX_GAIN = 12.0;
+
+    static class Result {
+        // Integrated loudness in LUFS
+        final double loudness;
+        // Sample peak in dBFS
+        final double peak;
+
+        Result(double loudness, double peak) {
+            this.loudness = loudness;
+            this.peak = peak;
+        }
+    }
+
+    /**
+     * Gain in millibels that brings a file to `targetLoudness` LUFS without pushing its peak above 0 dBFS,
+     * boosting by at most MAX_GAIN.
+     */
+    static int gainFor(Result result, double targetLoudness) {
+        if (result.loudness < GATE_LOUDNESS) {
+            return 0;
+        }
+
+        double gain = Math.min(Math.min(targetLoudness - result.loudness, -result.peak), MAX_GAIN);
+        return (int) Math.round(gain * 100);
+    }
+
+    static Result analyze(Context context, Uri uri) throws IOException {
+        MediaExtractor extractor = new MediaExtractor();
+        MediaCodec codec = null;
+
+        try {
+            extractor.setDataSource(context, uri, null);
+
+            MediaFormat format = null;
+            for (int i = 0; i < extractor.getTrackCount(); i++) {
+                MediaFormat trackFormat = extractor.getTrackFormat(i);
+                String mime = trackFormat.getString(MediaFormat.KEY_MIME);
+                if (mime != null && mime.startsWith("audio/")) {
+                    extractor.selectTrack(i);
+                    format = trackFormat;
+                    break;
+                }
+            }
+
+            if (format == null) {
+                throw new IOException("No audio track found in " + uri);
+            }
+
+            codec = MediaCodec.createDecoderByType(format.getString(MediaFormat.KEY_MIME));
+            codec.configure(format, null, null, 0);
+            codec.start();
+
+            Meter meter = new Meter(format.getInteger(MediaFormat.KEY_SAMPLE_RATE),
+                    format.getInteger(MediaFormat.KEY_CHANNEL_COUNT));
+
+            // Buffer arrays are deprecated in API 21 but are the only option on API 19
+            ByteBuffer[] inputBuffers = codec.getInputBuffers();
+            ByteBuffer[] outputBuffers = codec.getOutputBuffers();
+            MediaCodec.BufferInfo info = new MediaCodec.BufferInfo();
+            boolean inputDone = false;
+            boolean outputDone = false;
+
+            while (!outputDone) {
+                if (!inputDone) {
+                    int inputIndex = codec.dequeueInputBuffer(TIMEOUT_US);
+                    if (inputIndex >= 0) {
+                        int size = extractor.readSampleData(inputBuffers[inputIndex], 0);
+                        if (size < 0) {
+                            codec.queueInputBuffer(inputIndex, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            inputDone = true;
+                        } else {
+                            codec.queueInputBuffer(inputIndex, 0, size, extractor.getSampleTime(), 0);
+                            extractor.advance();
+                        }
+                    }
+                }
+
+                int outputIndex = codec.dequeueOutputBuffer(info, TIMEOUT_US);
+                if (outputIndex >= 0) {
+                    ByteBuffer buffer = outputBuffers[outputIndex];
+                    buffer.position(info.offset);
+                    buffer.limit(info.offset + info.size);
+                    meter.process(buffer.slice().order(ByteOrder.nativeOrder()).asShortBuffer());
+                    codec.releaseOutputBuffer(outputIndex, false);
+
+                    if ((info.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                        outputDone = true;
+                    }
+                } else if (outputIndex == MediaCodec.INFO_OUTPUT_BUFFERS_CHANGED) {
+                    outputBuffers = codec.getOutputBuffers();
+                } else if (outputIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                    // Decoders may report the real sample rate/channel count only once decoding starts
+                    MediaFormat outputFormat = codec.getOutputFormat();
+                    if (meter.isEmpty()) {
+                        meter = new Meter(outputFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE),
+                                outputFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT));
+                    }
+                }
+            }
+
+            return meter.getResult();
+        } finally {
+            if (codec != null) {
+                try {
+                    codec.stop();
+                } catch (IllegalStateException e) {
+                    // Codec failed before it was started
+                }
+                codec.release();
+            }
+            extractor.release();
+        }
+    }
+
+    /**
+     * K-weighted, gated loudness meter for interleaved 16 bit PCM.
+     */
+    private static class Meter {
+        private final int channels;
+        private final int stepLength;
+
+        // K-weighting filter coefficients: pre-filter (high shelf) followed by RLB high-pass
+        private final double[] pb = new double[3];
+        private final double[] pa = new double[3];
+        private final double[] rb = {1.0, -2.0, 1.0};
+        private final double[] ra = new double[3];
+
+        // Filter state per channel: x1, x2, y1, y2 for both stages
+        private final double[] state;
+
+        // Energy of the 100 ms step being accumulated and of the last three full steps
+        private double stepEnergy = 0;
+        private int stepSamples = 0;
+        private final double[] lastSteps = new double[3];
+        private int stepCount = 0;
+
+        // Mean square energy of every 400 ms gating block (75% overlap)
+        private double[] blocks = new double[64];
+        private int blockCount = 0;
+
+        private int peak = 0;
+        private int channel = 0;
+
+        Meter(int sampleRate, int channels) {
+            this.channels = channels;
+            this.stepLength = sampleRate / 10;
+            this.state = new double[channels * 8];
+
+            double f0 = 1681.974450955533;
+            double g = 3.999843853973347;
+            double q = 0.7071752369554196;
+            double k = Math.tan(Math.PI * f0 / sampleRate);
+            double vh = Math.pow(10.0, g / 20.0);
+            double vb = Math.pow(vh, 0.4996667741545416);
+            double a0 = 1.0 + k / q + k * k;
+            pb[0] = (vh + vb * k / q + k * k) / a0;
+            pb[1] = 2.0 * (k * k - vh) / a0;
+            pb[2] = (vh - vb * k / q + k * k) / a0;
+            pa[0] = 1.0;
+            pa[1] = 2.0 * (k * k - 1.0) / a0;
+            pa[2] = (1.0 - k / q + k * k) / a0;
+
+            f0 = 38.13547087602444;
+            q = 0.5003270373238773;
+            k = Math.tan(Math.PI * f0 / sampleRate);
+            a0 = 1.0 + k / q + k * k;
+            ra[0] = 1.0;
+            ra[1] = 2.0 * (k * k - 1.0) / a0;
+            ra[2] = (1.0 - k / q + k * k) / a0;
+        }
+
+        boolean isEmpty() {
+            return this.stepCount == 0 && this.stepSamples == 0;
+        }
+
+        void process(ShortBuffer samples) {
+            while (samples.hasRemaining()) {
+                short sample = samples.get();
+                int abs = Math.abs((int) sample);
+                if (abs > this.peak) {
+                    this.peak = abs;
+                }
+
+                double x = sample / 32768.0;
+                int s = this.channel * 8;
+
+                double y = pb[0] * x + pb[1] * state[s] + pb[2] * state[s + 1]
+                        - pa[1] * state[s + 2] - pa[2] * state[s + 3];
+                state[s + 1] = state[s];
+                state[s] = x;
+                state[s + 3] = state[s + 2];
+                state[s + 2] = y;
+
+                double z = rb[0] * y + rb[1] * state[s + 4] + rb[2] * state[s + 5]
+                        - ra[1] * state[s + 6] - ra[2] * state[s + 7];
+                state[s + 5] = state[s + 4];
+                state[s + 4] = y;
+                state[s + 7] = state[s + 6];
+                state[s + 6] = z;
+
+                this.stepEnergy += z * z;
+
+                if (++this.channel == this.channels) {
+                    this.channel = 0;
+                    if (++this.stepSamples == this.stepLength) {
+                        endStep();
+                    }
+                }
+            }
+        }
+
+        private void endStep() {
+            double step = this.stepEnergy / this.stepLength;
+
+            if (this.stepCount >= 3) {
+                addBlock((lastSteps[0] + lastSteps[1] + lastSteps[2] + step) / 4.0);
+            }
+
+            lastSteps[0] = lastSteps[1];
+            lastSteps[1] = lastSteps[2];
+            lastSteps[2] = step;
+            this.stepCount++;
+            this.stepEnergy = 0;
+            this.stepSamples = 0;
+        }
+
+        private void addBlock(double energy) {
+            if (this.blockCount == this.blocks.length) {
+                double[] grown = new double[this.blocks.length * 2];
+                System.arraycopy(this.blocks, 0, grown, 0, this.blockCount);
+                this.blocks = grown;
+            }
+            this.blocks[this.blockCount++] = energy;
+        }
+
+        Result getResult() {
+            double peakDb = this.peak == 0 ? MIN_LOUDNESS : 20 * Math.log10(this.peak / 32768.0);
+
+            // Absolute gate at -70 LUFS
+            double absoluteGate = energyOf(MIN_LOUDNESS);
+            double sum = 0;
+            int count = 0;
+            for (int i = 0; i < this.blockCount; i++) {
+                if (this.blocks[i] > absoluteGate) {
+                    sum += this.blocks[i];
+                    count++;
+                }
+            }
+
+            if (count == 0) {
+                return new Result(MIN_LOUDNESS, peakDb);
+            }
+
+            // Relative gate 10 LU below the absolute-gated loudness
+            double relativeGate = energyOf(loudnessOf(sum / count) - 10.0);
+            sum = 0;
+            count = 0;
+            for (int i = 0; i < this.blockCount; i++) {
+                if (this.blocks[i] > absoluteGate && this.blocks[i] > relativeGate) {
+                    sum += this.blocks[i];
+                    count++;
+                }
+            }
+
+            return new Result(Math.max(MIN_LOUDNESS, loudnessOf(sum / count)), peakDb);
+        }
+
+        private static double loudnessOf(double energy) {
+            return -0.691 + 10.0 * Math.log10(energy);
+        }
+
+        private static double energyOf(double loudness) {
+            return Math.pow(10.0, (loudness + 0.691) / 10.0);
+        }
+    }
+}
@@ -0,0 +1,143 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * On-disk cache of loudness analysis results. Entries are keyed by absolute path and are only
+ * valid as long as the size and modification time of the file are unchanged.
+ */
+class LoudnessIndex {
+    private static final String LOG_TAG = "LoudnessIndex";
+    private static final int VERSION = 1;
+
+    private static class Entry {
+        final long size;
+        final long modified;
+        final LoudnessAnalyzer.Result result;
+
+        Entry(long size, long modified, LoudnessAnalyzer.Result result) {
+            this.size = size;
+            this.modified = modified;
+            this.result = result;
+        }
+    }
+
+    private final File file;
+    private Map<String, Entry> entries = null;
+    private boolean dirty = false;
+
+    LoudnessIndex(File file) {
+        this.file = file;
+    }
+
+    synchronized LoudnessAnalyzer.Result get(File media) {
+        load();
+
+        Entry entry = this.entries.get(media.getAbsolutePath());
+        if (entry == null || entry.size != media.length() || entry.modified != media.lastModified()) {
+            return null;
+        }
+
+        return entry.result;
+    }
+
+    synchronized void put(File media, LoudnessAnalyzer.Result result) {
+        load();
+
+        this.entries.put(media.getAbsolutePath(), new Entry(media.length(), media.lastModified(), result));
+        this.dirty = true;
+    }
+
+    /**
+     * Write pending changes to disk. Call once after a batch of `put()` calls.
+     */
+    synchronized void save() {
+        if (!this.dirty) {
+            return;
+        }
+
+        File tmp = new File(this.file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(VERSION);
+            out.writeInt(this.entries.size());
+            for (Map.Entry<String, Entry> e : this.entries.entrySet()) {
+                Entry entry = e.getValue();
+                out.writeUTF(e.getKey());
+                out.writeLong(entry.size);
+                out.writeLong(entry.modified);
+                out.writeDouble(entry.result.loudness);
+                out.writeDouble(entry.result.peak);
+            }
+            out.close();
+            out = null;
+
+            if (!tmp.renameTo(this.file)) {
+                throw new IOException("Could not replace " + this.file);
+            }
+            this.dirty = false;
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Failed to save loudness index: " + e.toString());
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
+    private void load() {
+        if (this.entries != null) {
+            return;
+        }
+
+        this.entries = new HashMap<>();
+        if (!this.file.exists()) {
+            return;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)));
+            if (in.readInt() != VERSION) {
+                return;
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                String path = in.readUTF();
+                long size = in.readLong();
+                long modified = in.readLong();
+                double loudness = in.readDouble();
+                double peak = in.readDouble();
+                this.entries.put(path, new Entry(size, modified, new LoudnessAnalyzer.Result(loudness, peak)));
+            }
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Failed to load loudness index: " + e.toString());
+            this.entries.clear();
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.annotation.TargetApi;
+import android.content.Context;
+import android.media.MediaPlayer;
+import android.media.PlaybackParams;
+import android.net.Uri;
+
+import java.io.IOException;
+
+/**
+ * PlayerBackend on top of the platform MediaPlayer.
+ */
+class MediaPlayerBackend implements PlayerBackend, MediaPlayer.OnCompletionListener,
+        MediaPlayer.OnSeekCompleteListener, MediaPlayer.OnErrorListener, MediaPlayer.OnInfoListener {
+    private final MediaPlayer player = new MediaPlayer();
+    private Listener listener;
+
+    @Override
+    public void setDataSource(String path) throws IOException {
+        this.player.setDataSource(path);
+    }
+
+    @Override
+    public void setDataSource(Context context, Uri uri) throws IOException {
+        this.player.setDataSource(context, uri);
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        this.listener = listener;
+        this.player.setOnCompletionListener(this);
+        this.player.setOnSeekCompleteListener(this);
+        this.player.setOnErrorListener(this);
+        this.player.setOnInfoListener(this);
+    }
+
+    @Override
+    public void prepareAsync(final Runnable onPrepared) {
+        this.player.setOnPreparedListener(new MediaPlayer.OnPreparedListener() {
+            @Override
+            public void onPrepared(MediaPlayer player) {
+                onPrepared.run();
+            }
+        });
+        this.player.prepareAsync();
+    }
+
+    @Override
+    public void start() {
+        this.player.start();
+    }
+
+    @Override
+    public void pause() {
+        this.player.pause();
+    }
+
+    @Override
+    public void seekTo(int msec) {
+        this.player.seekTo(msec);
+    }
+
+    @TargetApi(26)
+    @Override
+    public void seekTo(long msec, int mode) {
+        this.player.seekTo(msec, mode);
+    }
+
+    @Override
+    public boolean isPlaying() {
+        return this.player.isPlaying();
+    }
+
+    @Override
+    public int getCurrentPosition() {
+        return this.player.getCurrentPosition();
+    }
+
+    @Override
+    public int getDuration() {
+        return this.player.getDuration();
+    }
+
+    @Override
+    public int getAudioSessionId() {
+        return this.player.getAudioSessionId();
+    }
+
+    @Override
+    public void setVolume(float left, float right) {
+        this.player.setVolume(left, right);
+    }
+
+    @Override
+    public void setLooping(boolean looping) {
+        this.player.setLooping(looping);
+    }
+
+    @Override
+    public void setWakeMode(Context context, int mode) {
+        this.player.setWakeMode(context, mode);
+    }
+
+    @TargetApi(23)
+    @Override
+    public void setPlaybackParams(PlaybackParams params) {
+        this.player.setPlaybackParams(params);
+    }
+
+    @Override
+    public void release() {
+        this.player.release();
+    }
+
+    @Override
+    public void onCompletion(MediaPlayer player) {
+        this.listener.onCompletion(this);
+    }
+
+    @Override
+    public void onSeekComplete(MediaPlayer player) {
+        this.listener.onSeekComplete(this);
+    }
+
+    @Override
+    public boolean onError(MediaPlayer player, int what, int extra) {
+        return this.listener.onError(this, what, extra);
+    }
+
+    @Override
+    public boolean onInfo(MediaPlayer player, int what, int extra) {
+        return this.listener.onInfo(this, what, extra);
+    }
+}
@@ -0,0 +1,103 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.annotation.TargetApi;
+import android.media.MediaRecorder;
+
+import java.io.IOException;
+
+/**
+ * RecorderBackend on top of the platform MediaRecorder.
+ */
+class MediaRecorderBackend implements RecorderBackend, MediaRecorder.OnErrorListener, MediaRecorder.OnInfoListener {
+    private final MediaRecorder recorder = new MediaRecorder();
+    private Listener listener;
+
+    @Override
+    public void setAudioSource(int source) {
+        this.recorder.setAudioSource(source);
+    }
+
+    @Override
+    public void setOutputFormat(int format) {
+        this.recorder.setOutputFormat(format);
+    }
+
+    @Override
+    public void setAudioEncoder(int encoder) {
+        this.recorder.setAudioEncoder(encoder);
+    }
+
+    @Override
+    public void setAudioEncodingBitRate(int bitrate) {
+        this.recorder.setAudioEncodingBitRate(bitrate);
+    }
+
+    @Override
+    public void setAudioChannels(int channels) {
+        this.recorder.setAudioChannels(channels);
+    }
+
+    @Override
+    public void setAudioSamplingRate(int sampleRate) {
+        this.recorder.setAudioSamplingRate(sampleRate);
+    }
+
+    @Override
+    public void setOutputFile(String path) {
+        this.recorder.setOutputFile(path);
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        this.listener = listener;
+        this.recorder.setOnErrorListener(this);
+        this.recorder.setOnInfoListener(this);
+    }
+
+    @Override
+    public void prepare() throws IOException {
+        this.recorder.prepare();
+    }
+
+    @Override
+    public void start() {
+        this.recorder.start();
+    }
+
+    @Override
+    public void stop() {
+        this.recorder.stop();
+    }
+
+    @TargetApi(24)
+    @Override
+    public void pause() {
+        this.recorder.pause();
+    }
+
+    @TargetApi(24)
+    @Override
+    public void resume() {
+        this.recorder.resume();
+    }
+
+    @Override
+    public int getMaxAmplitude() {
+        return this.recorder.getMaxAmplitude();
+    }
+
+    @Override
+    public void release() {
+        this.recorder.release();
+    }
+
+    @Override
+    public void onError(MediaRecorder recorder, int what, int extra) {
+        this.listener.onError(this, what, extra);
+    }
+
+    @Override
+    public void onInfo(MediaRecorder recorder, int what, int extra) {
+        this.listener.onInfo(this, what, extra);
+    }
+}
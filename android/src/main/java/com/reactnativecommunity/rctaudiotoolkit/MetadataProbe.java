@@ -0,0 +1,138 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.content.Context;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.media.MediaMetadataRetriever;
+import android.net.Uri;
+
+import java.io.File;
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Reads basic stream information from a media file without preparing a player for it.
+ * Results are kept in an LRU cache; entries for local files are dropped when the file changes.
+ */
+class MetadataProbe {
+    static class Result {
+        final long size;
+        final long modified;
+
+        // Values that could not be determined are -1 / null
+        final double duration;
+        final String codec;
+        final int sampleRate;
+        final int channels;
+        final int bitrate;
+
+        Result(long size, long modified, double duration, String codec, int sampleRate, int channels, int bitrate) {
+            this.size = size;
+            this.modified = modified;
+            this.duration = duration;
+            this.codec = codec;
+            this.sampleRate = sampleRate;
+            this.channels = channels;
+            this.bitrate = bitrate;
+        }
+    }
+
+    private final Map<String, Result> cache;
+
+    MetadataProbe(final int capacity) {
+        this.cache = new LinkedHashMap<String, Result>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, Result> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    Result probe(Context context, String path, Uri uri) throws IOException {
+        File file = "file".equals(uri.getScheme()) ? new File(uri.getPath()) : null;
+        long size = file != null ? file.length() : -1;
+        long modified = file != null ? file.lastModified() : -1;
+
+        synchronized (this.cache) {
+            Result cached = this.cache.get(path);
+            if (cached != null && cached.size == size && cached.modified == modified) {
+                return cached;
+            }
+        }
+
+        Result result = read(context, uri, size, modified);
+
+        synchronized (this.cache) {
+            this.cache.put(path, result);
+        }
+
+        return result;
+    }
+
+    private static Result read(Context context, Uri uri, long size, long modified) throws IOException {
+        double duration = -1;
+        String codec = null;
+        int sampleRate = -1;
+        int channels = -1;
+        int bitrate = -1;
+
+        MediaExtractor extractor = new MediaExtractor();
+        try {
+            extractor.setDataSource(context, uri, null);
+
+            for (int i = 0; i < extractor.getTrackCount(); i++) {
+                MediaFormat format = extractor.getTrackFormat(i);
+                String mime = format.getString(MediaFormat.KEY_MIME);
+                if (mime == null || !mime.startsWith("audio/")) {
+                    continue;
+                }
+
+                codec = mime;
+                if (format.containsKey(MediaFormat.KEY_DURATION)) {
+                    duration = format.getLong(MediaFormat.KEY_DURATION) / 1000.0;
+                }
+                if (format.containsKey(MediaFormat.KEY_SAMPLE_RATE)) {
+                    sampleRate = format.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+                }
+                if (format.containsKey(MediaFormat.KEY_CHANNEL_COUNT)) {
+                    channels = format.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+                }
+                if (format.containsKey(MediaFormat.KEY_BIT_RATE)) {
+                    bitrate = format.getInteger(MediaFormat.KEY_BIT_RATE);
+                }
+                break;
+            }
+        } finally {
+            extractor.release();
+        }
+
+        if (codec == null) {
+            throw new IOException("No audio track found in " + uri);
+        }
+
+        // Many containers don't store duration/bitrate in the track format, so fall back to the retriever
+        if (duration < 0 || bitrate < 0) {
+            MediaMetadataRetriever retriever = new MediaMetadataRetriever();
+            try {
+                retriever.setDataSource(context, uri);
+
+                String value = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_DURATION);
+                if (duration < 0 && value != null) {
+                    duration = Double.parseDouble(value);
+                }
+
+                value = retriever.extractMetadata(MediaMetadataRetriever.METADATA_KEY_BITRATE);
+                if (bitrate < 0 && value != null) {
+                    bitrate = Integer.parseInt(value);
+                }
+            } catch (RuntimeException e) {
+                // Keep what the extractor found
+            } finally {
+                retriever.release();
+            }
+        }
+
+        return new Result(size, modified, duration, codec, sampleRate, channels, bitrate);
+    }
+}
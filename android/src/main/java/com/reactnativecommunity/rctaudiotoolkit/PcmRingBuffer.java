@@ -0,0 +1,79 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Lock-free byte queue for exactly one producer and one consumer thread. The capacity is rounded up
+ * to a power of two so positions can be masked instead of wrapped. Each side only writes its own
+ * position, published with `lazySet`, so neither side ever blocks the other.
+ */
+class PcmRingBuffer {
+    private final byte[] buffer;
+    private final int mask;
+
+    // Total number of bytes ever written and read; the difference is the fill level
+    private final AtomicLong writePosition = new AtomicLong();
+    private final AtomicLong readPosition = new AtomicLong();
+
+    PcmRingBuffer(int minCapacity) {
+        int capacity = Integer.highestOneBit(Math.max(2, minCapacity) - 1) << 1;
+        this.buffer = new byte[capacity];
+        this.mask = capacity - 1;
+    }
+
+    int capacity() {
+        return this.buffer.length;
+    }
+
+    int available() {
+        return (int) (this.writePosition.get() - this.readPosition.get());
+    }
+
+    int free() {
+        return this.buffer.length - available();
+    }
+
+    /**
+     * Append all of `src`, or nothing if there isn't enough room. Producer thread only.
+     */
+    boolean write(byte[] src, int offset, int length) {
+        long write = this.writePosition.get();
+        if (length > this.buffer.length - (int) (write - this.readPosition.get())) {
+            return false;
+        }
+
+        int start = (int) (write & this.mask);
+        int first = Math.min(length, this.buffer.length - start);
+        System.arraycopy(src, offset, this.buffer, start, first);
+        System.arraycopy(src, offset + first, this.buffer, 0, length - first);
+
+        this.writePosition.lazySet(write + length);
+        return true;
+    }
+
+    /**
+     * Move up to `length` bytes into `dst`. Returns the number of bytes read. Consumer thread only.
+     */
+    int read(byte[] dst, int offset, int length) {
+        long read = this.readPosition.get();
+        int count = Math.min(length, (int) (this.writePosition.get() - read));
+        if (count <= 0) {
+            return 0;
+        }
+
+        int start = (int) (read & this.mask);
+        int first = Math.min(count, this.buffer.length - start);
+        System.arraycopy(this.buffer, start, dst, offset, first);
+        System.arraycopy(this.buffer, 0, dst, offset + first, count - first);
+
+        this.readPosition.lazySet(read + count);
+        return count;
+    }
+
+    /**
+     * Drop everything that has been written so far. Consumer thread only.
+     */
+    void skip() {
+        this.readPosition.lazySet(this.writePosition.get());
+    }
+}
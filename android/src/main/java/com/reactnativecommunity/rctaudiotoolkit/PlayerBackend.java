@@ -0,0 +1,81 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.content.Context;
+import android.media.PlaybackParams;
+import android.net.Uri;
+
+import java.io.IOException;
+
+/**
+ * The player AudioPlayerModule drives, with the subset of MediaPlayer it uses. Methods have the
+ * semantics of their MediaPlayer counterparts and are only called from the native modules queue
+ * thread; listener methods are called on the thread the backend was created on.
+ */
+interface PlayerBackend {
+    interface Listener {
+        void onCompletion(PlayerBackend player);
+
+        void onSeekComplete(PlayerBackend player);
+
+        /**
+         * Returns true if the error was handled, in which case `onCompletion()` doesn't follow.
+         */
+        boolean onError(PlayerBackend player, int what, int extra);
+
+        boolean onInfo(PlayerBackend player, int what, int extra);
+    }
+
+    void setDataSource(String path) throws IOException;
+
+    void setDataSource(Context context, Uri uri) throws IOException;
+
+    void setListener(Listener listener);
+
+    /**
+     * Prepare in the background and run `onPrepared` once done, unless the player fails first.
+     */
+    void prepareAsync(Runnable onPrepared);
+
+    void start();
+
+    void pause();
+
+    void seekTo(int msec);
+
+    /**
+     * Seek with one of the MediaPlayer `SEEK_*` modes, API 26+.
+     */
+    void seekTo(long msec, int mode);
+
+    boolean isPlaying();
+
+    int getCurrentPosition();
+
+    int getDuration();
+
+    int getAudioSessionId();
+
+    void setVolume(float left, float right);
+
+    void setLooping(boolean looping);
+
+    void setWakeMode(Context context, int mode);
+
+    /**
+     * API 23+.
+     */
+    void setPlaybackParams(PlaybackParams params);
+
+    void release();
+
+    interface Factory {
+        PlayerBackend create();
+
+        Factory MEDIA_PLAYER = new Factory() {
+            @Override
+            public PlayerBackend create() {
+                return new MediaPlayerBackend();
+            }
+        };
+    }
+}
@@ -0,0 +1,119 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.media.audiofx.Equalizer;
+import android.media.audiofx.LoudnessEnhancer;
+import android.util.Log;
+
+import com.facebook.react.bridge.ReadableArray;
+
+/**
+ * Audio effects attached to the audio session of a single player.
+ *
+ * Effects are created lazily the first time they are configured and must be
+ * released together with the player that owns the audio session.
+ */
+class PlayerEffects {
+    private static final String LOG_TAG = "PlayerEffects";
+
+    private final int audioSessionId;
+    private Equalizer equalizer;
+    private LoudnessEnhancer loudnessEnhancer;
+
+    // Normalization gain in millibels
+    private int gain = 0;
+
+    PlayerEffects(int audioSessionId) {
+        this.audioSessionId = audioSessionId;
+    }
+
+    /**
+     * Set equalizer band levels in millibels, lowest band first. Levels are clamped to the range
+     * supported by the device and extra levels are ignored. Passing null disables the equalizer.
+     */
+    void setEqualizer(ReadableArray levels) {
+        if (levels == null) {
+            releaseEqualizer();
+            return;
+        }
+
+        try {
+            if (this.equalizer == null) {
+                this.equalizer = new Equalizer(0, this.audioSessionId);
+            }
+
+            short bands = this.equalizer.getNumberOfBands();
+            short[] range = this.equalizer.getBandLevelRange();
+
+            for (short band = 0; band < bands && band < levels.size(); band++) {
+                int level = (int) levels.getDouble(band);
+                level = Math.max(range[0], Math.min(range[1], level));
+                this.equalizer.setBandLevel(band, (short) level);
+            }
+
+            this.equalizer.setEnabled(true);
+        } catch (RuntimeException e) {
+            Log.e(LOG_TAG, "Equalizer not available: " + e.toString());
+            releaseEqualizer();
+        }
+    }
+
+    /**
+     * Set the normalization gain in millibels. Positive gains are applied with a LoudnessEnhancer,
+     * negative gains are applied by scaling the player volume (see `getVolumeScale()`).
+     */
+    void setGain(int gain) {
+        this.gain = gain;
+
+        if (gain <= 0) {
+            releaseLoudnessEnhancer();
+            return;
+        }
+
+        try {
+            if (this.loudnessEnhancer == null) {
+                this.loudnessEnhancer = new LoudnessEnhancer(this.audioSessionId);
+            }
+
+            this.loudnessEnhancer.setTargetGain(gain);
+            this.loudnessEnhancer.setEnabled(true);
+        } catch (RuntimeException e) {
+            // Without the enhancer we can only attenuate, so positive gains are dropped
+            Log.e(LOG_TAG, "LoudnessEnhancer not available: " + e.toString());
+            releaseLoudnessEnhancer();
+        }
+    }
+
+    int getGain() {
+        return this.gain;
+    }
+
+    /**
+     * Factor that the player volume should be multiplied with to apply a negative gain.
+     */
+    float getVolumeScale() {
+        if (this.gain >= 0) {
+            return 1.0f;
+        }
+
+        return (float) Math.pow(10, this.gain / 2000.0);
+    }
+
+    void release() {
+        releaseEqualizer();
+        releaseLoudnessEnhancer();
+    }
+
+    private void releaseEqualizer() {
+        if (this.equalizer != null) {
+            this.equalizer.release();
+            this.equalizer = null;
+        }
+    }
+
+    private void releaseLoudnessEnhancer() {
+        if (this.loudnessEnhancer != null) {
+            this.loudnessEnhancer.release();
+            this.loudnessEnhancer = null;
+        }
+    }
+}
@@ -0,0 +1,43 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.os.SystemClock;
+
+/**
+ * Snapshot of a player's state that can be read from the JS thread by the synchronous
+ * query methods without touching the MediaPlayer. Updated whenever the player's state changes.
+ */
+class PlayerStatus {
+    private volatile double duration = -1;
+    private volatile double position = -1;
+    private volatile boolean playing = false;
+    private volatile float speed = 1.0f;
+    private volatile long syncTime = 0;
+
+    void update(double duration, double position, boolean playing, float speed) {
+        this.duration = duration;
+        this.position = position;
+        this.speed = speed;
+        this.syncTime = SystemClock.elapsedRealtime();
+        this.playing = playing;
+    }
+
+    double getDuration() {
+        return this.duration;
+    }
+
+    boolean isPlaying() {
+        return this.playing;
+    }
+
+    /**
+     * Current position, extrapolated from the last update while playing.
+     */
+    double getPosition() {
+        if (!this.playing || this.position < 0) {
+            return this.position;
+        }
+
+        double position = this.position + (SystemClock.elapsedRealtime() - this.syncTime) * this.speed;
+        return this.duration > 0 ? Math.min(position, this.duration) : position;
+    }
+}
@@ -0,0 +1,62 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import java.io.IOException;
+
+/**
+ * The recorder AudioRecorderModule drives, with the subset of MediaRecorder it uses. Methods have
+ * the semantics of their MediaRecorder counterparts, and setters take the MediaRecorder constants.
+ */
+interface RecorderBackend {
+    interface Listener {
+        void onError(RecorderBackend recorder, int what, int extra);
+
+        void onInfo(RecorderBackend recorder, int what, int extra);
+    }
+
+    void setAudioSource(int source);
+
+    void setOutputFormat(int format);
+
+    void setAudioEncoder(int encoder);
+
+    void setAudioEncodingBitRate(int bitrate);
+
+    void setAudioChannels(int channels);
+
+    void setAudioSamplingRate(int sampleRate);
+
+    void setOutputFile(String path);
+
+    void setListener(Listener listener);
+
+    void prepare() throws IOException;
+
+    void start();
+
+    void stop();
+
+    /**
+     * API 24+.
+     */
+    void pause();
+
+    /**
+     * API 24+.
+     */
+    void resume();
+
+    int getMaxAmplitude();
+
+    void release();
+
+    interface Factory {
+        RecorderBackend create();
+
+        Factory MEDIA_RECORDER = new Factory() {
+            @Override
+            public RecorderBackend create() {
+                return new MediaRecorderBackend();
+            }
+        };
+    }
+}
@@ -0,0 +1,427 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.os.SystemClock;
+import android.util.Log;
+
+import org.json.JSONArray;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.zip.CRC32;
+
+/**
+ * Uploads a recording in chunks while it is being written, by following the output file of the
+ * MediaRecorder. The file itself is the buffer: only the offsets of chunks waiting to be sent are
+ * queued, and reading stops while the queue is full. The queue and sent chunks are persisted to a
+ * journal, so that an upload that failed or was interrupted can be finished with `resume()`. Request
+ * headers are left out of the journal, as they may hold credentials, and are passed to `resume()`
+ * again instead.
+ *
+ * On `finish()` the remaining bytes are sent, chunks that the recorder rewrote when finalizing the
+ * file (e.g. the MPEG-4 header) are sent again, and a manifest listing all chunks is sent last.
+ *
+ * All state is confined to the upload thread.
+ */
+class RecordingUploader {
+    private static final String LOG_TAG = "RecordingUploader";
+    private static final String JOURNAL_PREFIX = "RCTAudioToolkitUpload-";
+    private static final long POLL_INTERVAL = 250;
+    private static final long RETRY_DELAY = 500;
+    private static final long MAX_RETRY_DELAY = 30000;
+
+    static final int DEFAULT_CHUNK_SIZE = 64 * 1024;
+    static final int DEFAULT_MAX_PENDING_CHUNKS = 64;
+    static final int DEFAULT_MAX_ATTEMPTS = 5;
+
+    interface Listener {
+        void onUploadFinished(RecordingUploader uploader, long size, int chunks);
+
+        void onUploadError(RecordingUploader uploader, String message);
+    }
+
+    private static class Chunk {
+        final int index;
+        final long offset;
+        final int length;
+        long crc;
+
+        Chunk(int index, long offset, int length) {
+            this.index = index;
+            this.offset = offset;
+            this.length = length;
+        }
+
+        JSONObject toJson() throws JSONException {
+            JSONObject json = new JSONObject();
+            json.put("index", this.index);
+            json.put("offset", this.offset);
+            json.put("length", this.length);
+            json.put("crc32", this.crc);
+
+            return json;
+        }
+
+        static Chunk fromJson(JSONObject json) {
+            Chunk chunk = new Chunk(json.optInt("index"), json.optLong("offset"), json.optInt("length"));
+            chunk.crc = json.optLong("crc32");
+
+            return chunk;
+        }
+    }
+
+    private final String uploadId;
+    private final File file;
+    private final File journal;
+    private final JSONObject options;
+    private final UploadTransport transport;
+    private final Listener listener;
+    private final int chunkSize;
+    private final int maxPendingChunks;
+    private final int maxAttempts;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+
+    private final ArrayDeque<Chunk> pending = new ArrayDeque<>();
+    private final List<Chunk> sent = new ArrayList<>();
+    private long readOffset = 0;
+    private int nextIndex = 0;
+    private int attempts = 0;
+    private long retryAt = 0;
+    private boolean finishing = false;
+    private boolean verified = false;
+    private boolean done = false;
+
+    RecordingUploader(String uploadId, File file, File cacheDir, JSONObject options,
+                      UploadTransport transport, Listener listener) {
+        this.uploadId = uploadId;
+        this.file = file;
+        this.journal = journalFile(cacheDir, uploadId);
+        this.options = options;
+        this.transport = transport;
+        this.listener = listener;
+        this.chunkSize = Math.max(1, options.optInt("chunkSize", DEFAULT_CHUNK_SIZE));
+        this.maxPendingChunks = Math.max(1, options.optInt("maxPendingChunks", DEFAULT_MAX_PENDING_CHUNKS));
+        this.maxAttempts = Math.max(1, options.optInt("maxAttempts", DEFAULT_MAX_ATTEMPTS));
+    }
+
+    String getUploadId() {
+        return this.uploadId;
+    }
+
+    void start() {
+        this.executor.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                tick();
+            }
+        }, 0, POLL_INTERVAL, TimeUnit.MILLISECONDS);
+    }
+
+    /**
+     * The recorder has finalized the file. Send what is left, then the manifest. Returns false if the
+     * upload already failed, in which case it can only be finished with `resume()`.
+     */
+    boolean finish() {
+        try {
+            this.executor.execute(new Runnable() {
+                @Override
+                public void run() {
+                    finishing = true;
+                    retryAt = 0;
+                    tick();
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            return false;
+        }
+
+        return true;
+    }
+
+    /**
+     * Stop uploading and forget about the upload, e.g. when the recording was discarded.
+     */
+    void cancel() {
+        this.executor.shutdownNow();
+        this.journal.delete();
+    }
+
+    private void tick() {
+        if (this.done || SystemClock.elapsedRealtime() < this.retryAt) {
+            return;
+        }
+
+        try {
+            enqueueAvailable();
+            sendPending();
+
+            if (this.finishing && this.pending.isEmpty() && this.readOffset >= this.file.length()) {
+                if (!this.verified) {
+                    this.verified = true;
+                    enqueueRewritten();
+                    sendPending();
+                }
+
+                if (this.pending.isEmpty()) {
+                    sendManifest();
+                }
+            }
+        } catch (IOException e) {
+            Log.w(LOG_TAG, "Upload " + this.uploadId + " failed: " + e.toString());
+
+            if (++this.attempts >= this.maxAttempts) {
+                fail(e.toString());
+            } else {
+                this.retryAt = SystemClock.elapsedRealtime()
+                        + Math.min(RETRY_DELAY << (this.attempts - 1), MAX_RETRY_DELAY);
+            }
+        }
+    }
+
+    // Queue whole chunks that were written since the last poll, or any remaining bytes when finishing
+    private void enqueueAvailable() throws IOException {
+        long size = this.file.length();
+        boolean changed = false;
+
+        while (this.pending.size() < this.maxPendingChunks) {
+            long available = size - this.readOffset;
+            if (available <= 0 || (available < this.chunkSize && !this.finishing)) {
+                break;
+            }
+
+            int length = (int) Math.min(this.chunkSize, available);
+            this.pending.add(new Chunk(this.nextIndex++, this.readOffset, length));
+            this.readOffset += length;
+            changed = true;
+        }
+
+        if (changed) {
+            saveJournal();
+        }
+    }
+
+    // Queue sent chunks again whose contents changed after they were sent
+    private void enqueueRewritten() throws IOException {
+        for (Chunk chunk : this.sent) {
+            if (crcOf(read(chunk)) != chunk.crc) {
+                this.pending.add(chunk);
+            }
+        }
+
+        if (!this.pending.isEmpty()) {
+            this.sent.removeAll(this.pending);
+            saveJournal();
+        }
+    }
+
+    private void sendPending() throws IOException {
+        Chunk chunk;
+        while ((chunk = this.pending.peek()) != null) {
+            byte[] data = read(chunk);
+            chunk.crc = crcOf(data);
+            this.transport.sendChunk(this.uploadId, chunk.index, chunk.offset, data);
+
+            this.pending.poll();
+            this.sent.add(chunk);
+            this.attempts = 0;
+            saveJournal();
+        }
+    }
+
+    private void sendManifest() throws IOException {
+        JSONObject manifest = new JSONObject();
+        JSONArray chunks = new JSONArray();
+
+        try {
+            for (Chunk chunk : this.sent) {
+                chunks.put(chunk.toJson());
+            }
+
+            manifest.put("uploadId", this.uploadId);
+            manifest.put("name", this.file.getName());
+            manifest.put("size", this.readOffset);
+            manifest.put("chunkSize", this.chunkSize);
+            manifest.put("chunks", chunks);
+        } catch (JSONException e) {
+            throw new IOException(e.toString());
+        }
+
+        this.transport.sendManifest(this.uploadId, manifest);
+
+        this.done = true;
+        this.journal.delete();
+        this.executor.shutdown();
+        this.listener.onUploadFinished(this, this.readOffset, this.sent.size());
+    }
+
+    // The journal is kept, so that the upload can be resumed later
+    private void fail(String message) {
+        this.done = true;
+        this.executor.shutdown();
+        this.listener.onUploadError(this, message);
+    }
+
+    private byte[] read(Chunk chunk) throws IOException {
+        byte[] data = new byte[chunk.length];
+        RandomAccessFile in = new RandomAccessFile(this.file, "r");
+
+        try {
+            in.seek(chunk.offset);
+            in.readFully(data);
+        } finally {
+            in.close();
+        }
+
+        return data;
+    }
+
+    private static long crcOf(byte[] data) {
+        CRC32 crc = new CRC32();
+        crc.update(data, 0, data.length);
+
+        return crc.getValue();
+    }
+
+    // Journal
+
+    private static File journalFile(File cacheDir, String uploadId) {
+        return new File(cacheDir, JOURNAL_PREFIX + uploadId + ".json");
+    }
+
+    private void saveJournal() throws IOException {
+        try {
+            JSONArray sent = new JSONArray();
+            for (Chunk chunk : this.sent) {
+                sent.put(chunk.toJson());
+            }
+
+            JSONArray pending = new JSONArray();
+            for (Chunk chunk : this.pending) {
+                pending.put(chunk.toJson());
+            }
+
+            JSONObject json = new JSONObject();
+            json.put("uploadId", this.uploadId);
+            json.put("path", this.file.getPath());
+            json.put("options", withoutHeaders(this.options));
+            json.put("readOffset", this.readOffset);
+            json.put("nextIndex", this.nextIndex);
+            json.put("sent", sent);
+            json.put("pending", pending);
+
+            // Write to a temporary file first so that a crash never leaves a truncated journal
+            File temp = new File(this.journal.getPath() + ".tmp");
+            FileOutputStream out = new FileOutputStream(temp);
+            try {
+                out.write(json.toString().getBytes("UTF-8"));
+                out.getFD().sync();
+            } finally {
+                out.close();
+            }
+
+            if (!temp.renameTo(this.journal)) {
+                throw new IOException("Could not write upload journal " + this.journal);
+            }
+        } catch (JSONException e) {
+            throw new IOException(e.toString());
+        }
+    }
+
+    private static JSONObject withoutHeaders(JSONObject options) throws JSONException {
+        JSONObject copy = new JSONObject(options.toString());
+        copy.remove("headers");
+
+        return copy;
+    }
+
+    /**
+     * Restore the uploads left behind by earlier sessions, except those in `skipUploadIds` that
+     * are still running. Their recordings are complete, so they are finished once started.
+     * `headers`, if not null, are sent with every request, as they aren't kept in the journal.
+     */
+    static List<RecordingUploader> resume(File cacheDir, Set<String> skipUploadIds, JSONObject headers,
+                                          UploadTransport.Factory transportFactory, Listener listener) {
+        List<RecordingUploader> uploaders = new ArrayList<>();
+
+        File[] journals = cacheDir.listFiles();
+        if (journals == null) {
+            return uploaders;
+        }
+
+        for (File journal : journals) {
+            String name = journal.getName();
+            if (!name.startsWith(JOURNAL_PREFIX) || !name.endsWith(".json")) {
+                continue;
+            }
+
+            try {
+                JSONObject json = new JSONObject(readFile(journal));
+                if (skipUploadIds.contains(json.getString("uploadId"))) {
+                    continue;
+                }
+
+                JSONObject options = withoutHeaders(json.getJSONObject("options"));
+                if (headers != null) {
+                    options.put("headers", headers);
+                }
+
+                RecordingUploader uploader = new RecordingUploader(json.getString("uploadId"),
+                        new File(json.getString("path")), cacheDir, options,
+                        transportFactory.create(options), listener);
+
+                uploader.readOffset = json.getLong("readOffset");
+                uploader.nextIndex = json.getInt("nextIndex");
+
+                JSONArray sent = json.getJSONArray("sent");
+                for (int i = 0; i < sent.length(); i++) {
+                    uploader.sent.add(Chunk.fromJson(sent.getJSONObject(i)));
+                }
+
+                JSONArray pending = json.getJSONArray("pending");
+                for (int i = 0; i < pending.length(); i++) {
+                    uploader.pending.add(Chunk.fromJson(pending.getJSONObject(i)));
+                }
+
+                uploader.finishing = true;
+                uploaders.add(uploader);
+            } catch (IOException | JSONException e) {
+                Log.w(LOG_TAG, "Discarding unreadable upload journal " + name + ": " + e.toString());
+                journal.delete();
+            }
+        }
+
+        return uploaders;
+    }
+
+    private static String readFile(File file) throws IOException {
+        byte[] data = new byte[(int) file.length()];
+        FileInputStream in = new FileInputStream(file);
+
+        try {
+            int read = 0;
+            while (read < data.length) {
+                int count = in.read(data, read, data.length - read);
+                if (count < 0) {
+                    break;
+                }
+                read += count;
+            }
+        } finally {
+            in.close();
+        }
+
+        return new String(data, "UTF-8");
+    }
+}
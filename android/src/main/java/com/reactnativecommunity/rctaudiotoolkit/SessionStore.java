@@ -0,0 +1,172 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.util.Log;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Persists a compact snapshot of every player, so that playback can be restored after the app
+ * restarts. Snapshots are debounced: changes within `SAVE_DELAY` are written once, on a
+ * background thread, with the latest snapshot winning.
+ */
+class SessionStore {
+    private static final String LOG_TAG = "SessionStore";
+    private static final int VERSION = 1;
+    private static final long SAVE_DELAY = 1000;
+
+    static class Session {
+        final String path;
+        final int position;
+        final float speed;
+        final float volume;
+        final boolean looping;
+        final int loopStart;
+        final int loopEnd;
+
+        Session(String path, int position, float speed, float volume, boolean looping, int loopStart, int loopEnd) {
+            this.path = path;
+            this.position = position;
+            this.speed = speed;
+            this.volume = volume;
+            this.looping = looping;
+            this.loopStart = loopStart;
+            this.loopEnd = loopEnd;
+        }
+    }
+
+    private final File file;
+    private final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+    private List<Session> pending = null;
+    private boolean scheduled = false;
+
+    SessionStore(File file) {
+        this.file = file;
+    }
+
+    synchronized void save(List<Session> sessions) {
+        this.pending = sessions;
+
+        if (!this.scheduled && !this.executor.isShutdown()) {
+            this.scheduled = true;
+            this.executor.schedule(new Runnable() {
+                @Override
+                public void run() {
+                    write();
+                }
+            }, SAVE_DELAY, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    /**
+     * Write the latest snapshot right away, e.g. before the app goes to the background.
+     */
+    void flush() {
+        if (this.executor.isShutdown()) {
+            return;
+        }
+
+        this.executor.execute(new Runnable() {
+            @Override
+            public void run() {
+                write();
+            }
+        });
+    }
+
+    void shutdown() {
+        flush();
+        this.executor.shutdown();
+    }
+
+    private void write() {
+        List<Session> sessions;
+        synchronized (this) {
+            sessions = this.pending;
+            this.pending = null;
+            this.scheduled = false;
+        }
+
+        if (sessions == null) {
+            return;
+        }
+
+        File tmp = new File(this.file.getPath() + ".tmp");
+        DataOutputStream out = null;
+        try {
+            out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)));
+            out.writeInt(VERSION);
+            out.writeInt(sessions.size());
+            for (Session session : sessions) {
+                out.writeUTF(session.path);
+                out.writeInt(session.position);
+                out.writeFloat(session.speed);
+                out.writeFloat(session.volume);
+                out.writeBoolean(session.looping);
+                out.writeInt(session.loopStart);
+                out.writeInt(session.loopEnd);
+            }
+            out.close();
+            out = null;
+
+            if (!tmp.renameTo(this.file)) {
+                throw new IOException("Could not replace " + this.file);
+            }
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Failed to save sessions: " + e.toString());
+        } finally {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+    }
+
+    List<Session> load() {
+        List<Session> sessions = new ArrayList<>();
+        if (!this.file.exists()) {
+            return sessions;
+        }
+
+        DataInputStream in = null;
+        try {
+            in = new DataInputStream(new BufferedInputStream(new FileInputStream(this.file)));
+            if (in.readInt() != VERSION) {
+                return sessions;
+            }
+
+            int count = in.readInt();
+            for (int i = 0; i < count; i++) {
+                sessions.add(new Session(in.readUTF(), in.readInt(), in.readFloat(), in.readFloat(),
+                        in.readBoolean(), in.readInt(), in.readInt()));
+            }
+        } catch (IOException e) {
+            Log.e(LOG_TAG, "Failed to load sessions: " + e.toString());
+            sessions.clear();
+        } finally {
+            if (in != null) {
+                try {
+                    in.close();
+                } catch (IOException e) {
+                    // Ignore
+                }
+            }
+        }
+
+        return sessions;
+    }
+}
@@ -0,0 +1,168 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.media.AudioFormat;
+import android.media.AudioRecord;
+import android.media.audiofx.Visualizer;
+import android.os.Process;
+import android.util.Log;
+
+import com.facebook.react.bridge.ReadableMap;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Feeds an FftAnalyzer from one of three sources (a Visualizer attached to an audio session, PCM
+ * pushed by a stream player, or a capture of the recorder's audio source) and reports the band
+ * levels at a fixed interval. Frames analyzed between two reports are coalesced into the latest
+ * one, and nothing is reported while no new frame was analyzed.
+ */
+class SpectrumAnalyzer {
+    private static final String LOG_TAG = "SpectrumAnalyzer";
+    private static final int CAPTURE_SAMPLE_RATE = 44100;
+
+    interface Listener {
+        void onSpectrum(float[] bands);
+    }
+
+    private final FftAnalyzer analyzer;
+    private final float[] bands;
+    private final ScheduledFuture<?> reporter;
+    private Visualizer visualizer;
+    private volatile Thread captureThread;
+
+    private long reportedSequence = 0;
+
+    private SpectrumAnalyzer(FftAnalyzer analyzer, int interval, ScheduledExecutorService executor,
+                             final Listener listener) {
+        this.analyzer = analyzer;
+        this.bands = new float[analyzer.getBandCount()];
+        this.reporter = executor.scheduleAtFixedRate(new Runnable() {
+            @Override
+            public void run() {
+                long sequence = SpectrumAnalyzer.this.analyzer.copyBands(bands);
+                if (sequence != reportedSequence) {
+                    reportedSequence = sequence;
+                    listener.onSpectrum(bands);
+                }
+            }
+        }, interval, interval, TimeUnit.MILLISECONDS);
+    }
+
+    private static FftAnalyzer createAnalyzer(ReadableMap options, int maxSize, int sampleRate) {
+        int size = options.hasKey("fftSize") ? options.getInt("fftSize") : 1024;
+        int window = FftAnalyzer.windowFromName(options.hasKey("window") ? options.getString("window") : "hann");
+        int bandCount = options.hasKey("bands") ? options.getInt("bands") : 32;
+
+        return new FftAnalyzer(Math.min(size, maxSize), window, bandCount, sampleRate);
+    }
+
+    private static int intervalFrom(ReadableMap options) {
+        return Math.max(16, options.hasKey("interval") ? options.getInt("interval") : 50);
+    }
+
+    /**
+     * Analyze what is played in an audio session. Visualizer captures are at most 1024 samples, which
+     * also limits the FFT size. Requires the RECORD_AUDIO permission.
+     */
+    static SpectrumAnalyzer forAudioSession(int audioSessionId, ReadableMap options,
+                                            ScheduledExecutorService executor, Listener listener) {
+        Visualizer visualizer = new Visualizer(audioSessionId);
+        int[] range = Visualizer.getCaptureSizeRange();
+        final FftAnalyzer analyzer;
+
+        try {
+            // Visualizer reports its sampling rate in milliHertz
+            analyzer = createAnalyzer(options, range[1], visualizer.getSamplingRate() / 1000);
+            visualizer.setCaptureSize(Math.max(range[0], analyzer.getSize()));
+            visualizer.setDataCaptureListener(new Visualizer.OnDataCaptureListener() {
+                @Override
+                public void onWaveFormDataCapture(Visualizer visualizer, byte[] waveform, int samplingRate) {
+                    analyzer.pushUnsigned8(waveform);
+                }
+
+                @Override
+                public void onFftDataCapture(Visualizer visualizer, byte[] fft, int samplingRate) {
+                }
+            }, Visualizer.getMaxCaptureRate(), true, false);
+            visualizer.setEnabled(true);
+        } catch (RuntimeException e) {
+            visualizer.release();
+            throw e;
+        }
+
+        SpectrumAnalyzer spectrum = new SpectrumAnalyzer(analyzer, intervalFrom(options), executor, listener);
+        spectrum.visualizer = visualizer;
+        return spectrum;
+    }
+
+    /**
+     * Analyze PCM that the caller pushes with `pushPcm16()`.
+     */
+    static SpectrumAnalyzer forPcm(int sampleRate, ReadableMap options, ScheduledExecutorService executor,
+                                   Listener listener) {
+        return new SpectrumAnalyzer(createAnalyzer(options, Integer.MAX_VALUE, sampleRate), intervalFrom(options),
+                executor, listener);
+    }
+
+    /**
+     * Analyze an audio source in parallel to a MediaRecorder that records from it. Only Android 10+
+     * delivers the input to both at the same time.
+     */
+    static SpectrumAnalyzer forAudioSource(int audioSource, ReadableMap options,
+                                           ScheduledExecutorService executor, Listener listener) {
+        int minBufferSize = AudioRecord.getMinBufferSize(CAPTURE_SAMPLE_RATE, AudioFormat.CHANNEL_IN_MONO,
+                AudioFormat.ENCODING_PCM_16BIT);
+        final AudioRecord record = new AudioRecord(audioSource, CAPTURE_SAMPLE_RATE, AudioFormat.CHANNEL_IN_MONO,
+                AudioFormat.ENCODING_PCM_16BIT, minBufferSize * 2);
+        if (record.getState() != AudioRecord.STATE_INITIALIZED) {
+            record.release();
+            throw new IllegalStateException("AudioRecord could not be initialized");
+        }
+
+        final SpectrumAnalyzer spectrum = forPcm(CAPTURE_SAMPLE_RATE, options, executor, listener);
+        final short[] buffer = new short[minBufferSize / 2];
+
+        spectrum.captureThread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_AUDIO);
+
+                try {
+                    record.startRecording();
+                    while (spectrum.captureThread == Thread.currentThread()) {
+                        int read = record.read(buffer, 0, buffer.length);
+                        if (read < 0) {
+                            Log.e(LOG_TAG, "Capture failed with error " + read);
+                            break;
+                        }
+                        spectrum.analyzer.pushPcm16(buffer, 0, read);
+                    }
+                    record.stop();
+                } catch (IllegalStateException e) {
+                    Log.e(LOG_TAG, "Capture failed: " + e.toString());
+                } finally {
+                    record.release();
+                }
+            }
+        }, "RCTAudioAnalyzer");
+        spectrum.captureThread.start();
+
+        return spectrum;
+    }
+
+    void pushPcm16(byte[] data, int offset, int length, int channels) {
+        this.analyzer.pushPcm16(data, offset, length, channels);
+    }
+
+    void release() {
+        this.reporter.cancel(false);
+        this.captureThread = null;
+
+        if (this.visualizer != null) {
+            this.visualizer.release();
+            this.visualizer = null;
+        }
+    }
+}
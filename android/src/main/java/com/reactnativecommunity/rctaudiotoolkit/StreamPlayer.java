@@ -0,0 +1,394 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.media.AudioFormat;
+import android.media.AudioManager;
+import android.media.AudioTrack;
+import android.os.Build;
+import android.os.Process;
+import android.os.SystemClock;
+import android.util.Log;
+
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Plays 16-bit PCM pushed in chunks through an AudioTrack, so that playback can start before the
+ * whole stream has arrived. Chunks are appended to a lock-free ring buffer on the caller's thread
+ * and fed to the track by a dedicated thread, which is also the only one that controls the track.
+ * Other threads only query its playback position and audio session id.
+ *
+ * Playback starts once `startThreshold` bytes are buffered, and starts buffering again after an
+ * underrun, so short network stalls don't result in crackling.
+ *
+ * Speed and pitch are changed by a TimeStretcher between the buffer and the track, so they work on
+ * every API level. It is only created once they are first changed.
+ */
+class StreamPlayer {
+    private static final String LOG_TAG = "StreamPlayer";
+    private static final long LEVEL_INTERVAL = 250;
+    private static final long IDLE_WAIT_NANOS = 5000000;
+    private static final int CHUNK_MS = 20;
+
+    interface Listener {
+        void onBufferLevel(int bufferedMs);
+
+        void onUnderrun(int underruns);
+
+        void onEnded();
+    }
+
+    private final int sampleRate;
+    private final int channels;
+    private final int frameSize;
+    private final int startThreshold;
+    private final PcmRingBuffer ring;
+    private final AudioTrack track;
+    private final Listener listener;
+    private final Thread thread;
+
+    // Requested by the module, applied by the feeder thread
+    private volatile boolean playRequested = false;
+    private volatile int flushRequested = 0;
+    private volatile int flushed = 0;
+    private volatile boolean ended = false;
+    private volatile boolean released = false;
+    private volatile float speed = 1.0f;
+    private volatile float pitch = 1.0f;
+    private volatile float volume = 1.0f;
+
+    // Feeder thread only
+    private boolean trackPlaying = false;
+    private boolean buffering = true;
+    private float trackVolume = 1.0f;
+    private long framesWritten = 0;
+    private long lastLevelTime = 0;
+    private TimeStretcher stretcher;
+    private byte[] stretcherInput;
+
+    private volatile int underruns = 0;
+
+    // Sees every chunk handed to the track, e.g. for spectrum analysis
+    private volatile SpectrumAnalyzer tap;
+
+    StreamPlayer(int sampleRate, int channels, int bufferMs, int startThresholdMs, Listener listener) {
+        this.sampleRate = sampleRate;
+        this.channels = channels;
+        this.frameSize = 2 * channels;
+        this.startThreshold = bytesFor(startThresholdMs);
+        this.ring = new PcmRingBuffer(bytesFor(bufferMs));
+        this.listener = listener;
+
+        int channelMask = channels == 1 ? AudioFormat.CHANNEL_OUT_MONO : AudioFormat.CHANNEL_OUT_STEREO;
+        int minBufferSize = AudioTrack.getMinBufferSize(sampleRate, channelMask, AudioFormat.ENCODING_PCM_16BIT);
+        if (minBufferSize <= 0) {
+            throw new IllegalArgumentException("Unsupported stream format: " + sampleRate + " Hz, " + channels + " channels");
+        }
+
+        this.track = new AudioTrack(AudioManager.STREAM_MUSIC, sampleRate, channelMask, AudioFormat.ENCODING_PCM_16BIT,
+                Math.max(minBufferSize, bytesFor(CHUNK_MS) * 2), AudioTrack.MODE_STREAM);
+        if (this.track.getState() != AudioTrack.STATE_INITIALIZED) {
+            this.track.release();
+            throw new IllegalStateException("AudioTrack could not be initialized");
+        }
+
+        this.thread = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                Process.setThreadPriority(Process.THREAD_PRIORITY_AUDIO);
+                feed();
+            }
+        }, "RCTAudioStream");
+        this.thread.start();
+    }
+
+    private int bytesFor(int ms) {
+        return (int) ((long) this.sampleRate * ms / 1000) * this.frameSize;
+    }
+
+    private int msFor(long bytes) {
+        return (int) (bytes / this.frameSize * 1000 / this.sampleRate);
+    }
+
+    /**
+     * Append a chunk. Returns false if the buffer doesn't have room for all of it.
+     */
+    boolean write(byte[] chunk) {
+        if (this.ended || this.released || !this.ring.write(chunk, 0, chunk.length)) {
+            return false;
+        }
+
+        LockSupport.unpark(this.thread);
+        return true;
+    }
+
+    /**
+     * No more chunks follow; `onEnded()` is called once everything buffered has been played.
+     */
+    void end() {
+        this.ended = true;
+        LockSupport.unpark(this.thread);
+    }
+
+    void play() {
+        this.playRequested = true;
+        LockSupport.unpark(this.thread);
+    }
+
+    void pause() {
+        this.playRequested = false;
+        LockSupport.unpark(this.thread);
+    }
+
+    /**
+     * Pause and drop everything buffered, e.g. to start over with a new stream. Returns once the
+     * feeder thread has flushed, so that chunks written afterwards are kept. Must be called on the
+     * thread that writes chunks.
+     */
+    void stop() {
+        this.playRequested = false;
+        this.ended = false;
+        int generation = ++this.flushRequested;
+
+        while (this.flushed != generation && !this.released && this.thread.isAlive()) {
+            LockSupport.unpark(this.thread);
+            LockSupport.parkNanos(this, IDLE_WAIT_NANOS / 5);
+        }
+    }
+
+    void setVolume(float volume) {
+        this.volume = volume;
+        LockSupport.unpark(this.thread);
+    }
+
+    void setRate(float speed, float pitch) {
+        this.speed = speed;
+        this.pitch = pitch;
+        LockSupport.unpark(this.thread);
+    }
+
+    void release() {
+        this.released = true;
+        LockSupport.unpark(this.thread);
+    }
+
+    void setTap(SpectrumAnalyzer tap) {
+        this.tap = tap;
+    }
+
+    int getSampleRate() {
+        return this.sampleRate;
+    }
+
+    boolean isPlaying() {
+        return this.playRequested;
+    }
+
+    boolean isEnded() {
+        return this.ended;
+    }
+
+    int getBufferedMs() {
+        return msFor(this.ring.available());
+    }
+
+    int getCapacityMs() {
+        return msFor(this.ring.capacity());
+    }
+
+    int getUnderruns() {
+        return this.underruns;
+    }
+
+    // Time played since the stream was opened or stopped, which differs from the stream's own time
+    // when the speed is changed. Can be called from any thread.
+    int getPosition() {
+        try {
+            return (int) (playedFrames() * 1000 / this.sampleRate);
+        } catch (IllegalStateException e) {
+            // The feeder thread has released the track
+            return -1;
+        }
+    }
+
+    // The head position is an unsigned 32-bit frame count
+    private long playedFrames() {
+        return this.track.getPlaybackHeadPosition() & 0xFFFFFFFFL;
+    }
+
+    int getAudioSessionId() {
+        return this.track.getAudioSessionId();
+    }
+
+    private void feed() {
+        byte[] chunk = new byte[bytesFor(CHUNK_MS)];
+
+        try {
+            while (!this.released) {
+                int generation = this.flushRequested;
+                if (generation != this.flushed) {
+                    flush(generation);
+                }
+
+                if (this.volume != this.trackVolume) {
+                    applyVolume(this.volume);
+                }
+
+                if (!this.playRequested) {
+                    pauseTrack();
+                    LockSupport.park(this);
+                    continue;
+                }
+
+                if (this.buffering) {
+                    if (this.ring.available() < this.startThreshold && !this.ended) {
+                        LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+                        continue;
+                    }
+                    this.buffering = false;
+                }
+
+                TimeStretcher stretcher = updateStretcher(chunk.length);
+                int length = stretcher != null ? stretch(stretcher, chunk) : readWholeFrames(chunk, chunk.length);
+                if (length == 0) {
+                    if (this.ended) {
+                        drain();
+                    } else if (this.trackPlaying && playedFrames() >= this.framesWritten) {
+                        // The track has run dry as well, not just the queue
+                        this.buffering = true;
+                        pauseTrack();
+                        this.listener.onUnderrun(++this.underruns);
+                    } else {
+                        LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+                    }
+                    continue;
+                }
+
+                if (!this.trackPlaying) {
+                    this.track.play();
+                    this.trackPlaying = true;
+                }
+                this.track.write(chunk, 0, length);
+                this.framesWritten += length / this.frameSize;
+
+                SpectrumAnalyzer tap = this.tap;
+                if (tap != null) {
+                    tap.pushPcm16(chunk, 0, length, this.channels);
+                }
+
+                long now = SystemClock.elapsedRealtime();
+                if (now - this.lastLevelTime >= LEVEL_INTERVAL) {
+                    this.lastLevelTime = now;
+                    this.listener.onBufferLevel(getBufferedMs());
+                }
+            }
+        } catch (IllegalStateException e) {
+            Log.e(LOG_TAG, "Stream playback failed: " + e.toString());
+        } finally {
+            this.track.release();
+        }
+    }
+
+    // Only whole frames are taken from the buffer; a partial frame is completed by the next chunk
+    private int readWholeFrames(byte[] buffer, int maxLength) {
+        int available = this.ring.available();
+        int length = Math.min(maxLength, available - available % this.frameSize);
+        if (length > 0) {
+            this.ring.read(buffer, 0, length);
+        }
+
+        return length;
+    }
+
+    // Returns the stretcher while speed or pitch are changed, or while it still holds audio
+    private TimeStretcher updateStretcher(int chunkLength) {
+        float speed = this.speed;
+        float pitch = this.pitch;
+        boolean changed = speed != 1.0f || pitch != 1.0f;
+
+        if (this.stretcher == null) {
+            if (!changed) {
+                return null;
+            }
+            this.stretcher = new TimeStretcher(this.sampleRate, this.channels);
+            this.stretcherInput = new byte[chunkLength];
+        }
+
+        this.stretcher.setRate(speed, pitch);
+        return changed || this.stretcher.hasPending() ? this.stretcher : null;
+    }
+
+    // Pull stretched audio into `chunk`, feeding the stretcher from the buffer as it needs more
+    private int stretch(TimeStretcher stretcher, byte[] chunk) {
+        while (true) {
+            int length = stretcher.read(chunk, 0, chunk.length);
+            if (length > 0) {
+                return length;
+            }
+
+            int read = readWholeFrames(this.stretcherInput, Math.min(this.stretcherInput.length, stretcher.writableBytes()));
+            if (read > 0) {
+                stretcher.write(this.stretcherInput, 0, read);
+            } else if (this.ended && stretcher.hasPending()) {
+                // Also play what is too short for another segment
+                stretcher.end();
+                return stretcher.read(chunk, 0, chunk.length);
+            } else {
+                return 0;
+            }
+        }
+    }
+
+    @SuppressWarnings("deprecation")
+    private void applyVolume(float volume) {
+        if (Build.VERSION.SDK_INT >= Build.VERSION_CODES.LOLLIPOP) {
+            this.track.setVolume(volume);
+        } else {
+            this.track.setStereoVolume(volume, volume);
+        }
+        this.trackVolume = volume;
+    }
+
+    private void pauseTrack() {
+        if (this.trackPlaying) {
+            this.track.pause();
+            this.trackPlaying = false;
+        }
+    }
+
+    // Flushing a paused track also resets its playback head position
+    private void flush(int generation) {
+        pauseTrack();
+        this.track.flush();
+        this.ring.skip();
+        if (this.stretcher != null) {
+            this.stretcher.reset();
+        }
+        this.framesWritten = 0;
+        this.buffering = true;
+        this.flushed = generation;
+    }
+
+    private boolean isFlushPending() {
+        return this.flushRequested != this.flushed;
+    }
+
+    // Wait until the track has played everything written to it, then report the end of the stream
+    private void drain() {
+        if (!this.trackPlaying) {
+            this.track.play();
+            this.trackPlaying = true;
+        }
+
+        while (!this.released && this.playRequested && !isFlushPending()
+                && playedFrames() < this.framesWritten) {
+            LockSupport.parkNanos(this, IDLE_WAIT_NANOS);
+        }
+
+        if (!this.playRequested || isFlushPending() || this.released) {
+            return;
+        }
+
+        this.playRequested = false;
+        pauseTrack();
+        this.listener.onEnded();
+    }
+}
@@ -0,0 +1,316 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+/**
+ * Changes the speed and pitch of interleaved 16-bit PCM independently, in plain Java so that it
+ * works on every API level. The tempo is changed with WSOLA (waveform similarity based overlap-add):
+ * segments of the input are overlap-added at a fixed output hop, each taken from near its ideal
+ * input position where it best continues the previous one. Pitch is then shifted by resampling,
+ * which also scales the tempo back to the requested speed.
+ *
+ * Input is appended with `write()` and the result pulled with `read()`. Every buffer is allocated
+ * up front, so neither allocates. Not thread-safe; a stream player only uses it on its feeder thread.
+ */
+class TimeStretcher {
+    static final float MIN_RATE = 0.25f;
+    static final float MAX_RATE = 4.0f;
+
+    // Output hop, i.e. half a segment, and how far a segment may be moved from its ideal position
+    private static final int HOP_MS = 20;
+    private static final int SEEK_MS = 10;
+    // Candidates are first compared at this step, then the best one is refined frame by frame
+    private static final int COARSE_STEP = 4;
+
+    private final int channels;
+    private final int hop;
+    private final int seek;
+    private final float[] window;
+
+    // Input frames, interleaved; frame 0 is the oldest one still needed
+    private final float[] input;
+    private final int inputCapacity;
+    private int inputFrames = 0;
+    private boolean inputEnded = false;
+
+    // Start of the previous segment and ideal start of the next one, in input frames
+    private int previousStart = 0;
+    private double idealStart = 0;
+    private boolean primed = false;
+
+    // Second half of the previous windowed segment, added to the first half of the next one
+    private final float[] overlap;
+
+    // Tempo changed output of the segments, waiting to be resampled
+    private final float[] stretched;
+    private int stretchedFrames = 0;
+    private double resamplePosition = 0;
+
+    private float tempo = 1.0f;
+    private float pitch = 1.0f;
+
+    TimeStretcher(int sampleRate, int channels) {
+        this.channels = channels;
+        this.hop = Math.max(16, sampleRate * HOP_MS / 1000);
+        this.seek = Math.max(4, sampleRate * SEEK_MS / 1000);
+
+        // Periodic Hann window over two hops, so that overlapping halves always add up to one
+        this.window = new float[2 * this.hop];
+        for (int i = 0; i < this.window.length; i++) {
+            this.window[i] = (float) (0.5 - 0.5 * Math.cos(Math.PI * i / this.hop));
+        }
+
+        // Room for a segment, its search range and the input skipped by the fastest tempo, plus a chunk
+        this.inputCapacity = (int) (2 * this.hop + 2 * this.seek + MAX_RATE * this.hop) + sampleRate / 10;
+        this.input = new float[this.inputCapacity * channels];
+        this.overlap = new float[this.hop * channels];
+        this.stretched = new float[(this.hop + 2) * channels];
+    }
+
+    /**
+     * @param speed playback rate, 2 plays twice as fast
+     * @param pitch pitch factor, 2 is an octave up
+     */
+    void setRate(float speed, float pitch) {
+        this.pitch = clamp(pitch);
+        this.tempo = clamp(clamp(speed) / this.pitch);
+    }
+
+    private static float clamp(float rate) {
+        return Math.max(MIN_RATE, Math.min(MAX_RATE, rate));
+    }
+
+    /**
+     * Number of input bytes that `write()` currently accepts.
+     */
+    int writableBytes() {
+        compact();
+        return (this.inputCapacity - this.inputFrames) * 2 * this.channels;
+    }
+
+    /**
+     * Append interleaved little endian 16-bit PCM, at most `writableBytes()` of it. A partial frame
+     * at the end is dropped.
+     */
+    void write(byte[] data, int offset, int length) {
+        compact();
+
+        int frames = Math.min(length / (2 * this.channels), this.inputCapacity - this.inputFrames);
+        int dst = this.inputFrames * this.channels;
+        int end = offset + frames * 2 * this.channels;
+
+        for (int i = offset; i < end; i += 2) {
+            this.input[dst++] = (short) ((data[i] & 0xFF) | (data[i + 1] << 8));
+        }
+        this.inputFrames += frames;
+    }
+
+    /**
+     * No more input follows; `read()` then also returns the input that is too short for another
+     * segment.
+     */
+    void end() {
+        this.inputEnded = true;
+    }
+
+    /**
+     * Drop all input and output, e.g. when the stream is flushed.
+     */
+    void reset() {
+        this.inputFrames = 0;
+        this.inputEnded = false;
+        this.previousStart = 0;
+        this.idealStart = 0;
+        this.primed = false;
+        this.stretchedFrames = 0;
+        this.resamplePosition = 0;
+    }
+
+    /**
+     * Whether input is still buffered, i.e. `read()` will return more once enough is written or the
+     * input has ended.
+     */
+    boolean hasPending() {
+        return this.inputFrames > 0 || (int) this.resamplePosition + 1 < this.stretchedFrames;
+    }
+
+    /**
+     * Produce up to `length` bytes of output. Returns the number of bytes produced, which is 0 if
+     * more input is needed.
+     */
+    int read(byte[] out, int offset, int length) {
+        int frameBytes = 2 * this.channels;
+        int maxFrames = length / frameBytes;
+        int produced = 0;
+
+        while (produced < maxFrames) {
+            // Resampling interpolates between two frames, so the last one is kept for the next segment
+            if ((int) this.resamplePosition + 1 >= this.stretchedFrames && !stretchNext()) {
+                break;
+            }
+
+            while (produced < maxFrames && (int) this.resamplePosition + 1 < this.stretchedFrames) {
+                int index = (int) this.resamplePosition;
+                float fraction = (float) (this.resamplePosition - index);
+                int a = index * this.channels;
+                int b = a + this.channels;
+                int dst = offset + produced * frameBytes;
+
+                for (int c = 0; c < this.channels; c++) {
+                    float sample = this.stretched[a + c] + (this.stretched[b + c] - this.stretched[a + c]) * fraction;
+                    int value = Math.round(Math.max(-32768.0f, Math.min(32767.0f, sample)));
+                    out[dst++] = (byte) value;
+                    out[dst++] = (byte) (value >> 8);
+                }
+
+                produced++;
+                this.resamplePosition += this.pitch;
+            }
+        }
+
+        return produced * frameBytes;
+    }
+
+    // Move the frames that haven't been resampled yet to the front and append the next segment
+    private boolean stretchNext() {
+        int keep = Math.max(0, this.stretchedFrames - (int) this.resamplePosition);
+        System.arraycopy(this.stretched, (this.stretchedFrames - keep) * this.channels, this.stretched, 0,
+                keep * this.channels);
+        this.resamplePosition -= this.stretchedFrames - keep;
+        this.stretchedFrames = keep;
+
+        // Once the input has ended, the last segments are searched for in what is left
+        int start = (int) Math.round(this.idealStart);
+        int margin = this.inputEnded ? 0 : this.seek;
+        if (this.inputFrames >= start + margin + 2 * this.hop) {
+            appendSegment(this.primed ? bestStart(start, this.inputFrames - 2 * this.hop) : start);
+            return true;
+        }
+
+        if (this.inputEnded) {
+            return appendRemainder();
+        }
+
+        return false;
+    }
+
+    private void appendSegment(int start) {
+        int n = this.hop * this.channels;
+        int src = start * this.channels;
+        int dst = this.stretchedFrames * this.channels;
+
+        if (!this.primed) {
+            // Nothing to cross-fade with yet, so the first half passes through unchanged
+            for (int i = 0; i < n; i++) {
+                this.overlap[i] = this.input[src + i] * this.window[this.hop + i / this.channels];
+            }
+            this.primed = true;
+        }
+
+        for (int i = 0; i < n; i++) {
+            int frame = i / this.channels;
+            this.stretched[dst + i] = this.overlap[i] + this.input[src + i] * this.window[frame];
+            this.overlap[i] = this.input[src + n + i] * this.window[this.hop + frame];
+        }
+
+        this.stretchedFrames += this.hop;
+        this.previousStart = start;
+        this.idealStart += this.hop * this.tempo;
+    }
+
+    // After the last segment, the rest of the input completes the pending overlap and passes through
+    private boolean appendRemainder() {
+        int start = this.primed ? this.previousStart + this.hop : 0;
+        int frames = Math.min(this.inputFrames - start, this.hop);
+        if (frames <= 0) {
+            this.inputFrames = 0;
+            return false;
+        }
+
+        int src = start * this.channels;
+        int dst = this.stretchedFrames * this.channels;
+        for (int i = 0; i < frames * this.channels; i++) {
+            if (this.primed) {
+                this.stretched[dst + i] = this.overlap[i] + this.input[src + i] * this.window[i / this.channels];
+            } else {
+                this.stretched[dst + i] = this.input[src + i];
+            }
+        }
+        this.stretchedFrames += frames;
+
+        // Whatever is left starts over without an overlap, unless the tempo would skip past it anyway,
+        // as jumping there would click
+        int next = start + frames;
+        if (this.primed && Math.round(this.idealStart) + this.hop > next) {
+            next = this.inputFrames;
+        }
+        int rest = this.inputFrames - next;
+        System.arraycopy(this.input, next * this.channels, this.input, 0, rest * this.channels);
+        this.inputFrames = rest;
+        this.previousStart = 0;
+        this.idealStart = 0;
+        this.primed = false;
+        return true;
+    }
+
+    // Start within the seek range around `ideal`, up to `limit`, whose first half best continues the
+    // previous segment
+    private int bestStart(int ideal, int limit) {
+        int natural = this.previousStart + this.hop;
+        int from = Math.max(0, ideal - this.seek);
+        int to = Math.min(limit, ideal + this.seek);
+
+        int best = from;
+        float bestScore = -Float.MAX_VALUE;
+        for (int start = from; start <= to; start += COARSE_STEP) {
+            float score = similarity(natural, start, COARSE_STEP);
+            if (score > bestScore) {
+                bestScore = score;
+                best = start;
+            }
+        }
+
+        int coarse = best;
+        for (int start = Math.max(from, coarse - COARSE_STEP + 1); start <= Math.min(to, coarse + COARSE_STEP - 1); start++) {
+            float score = similarity(natural, start, 1);
+            if (score > bestScore) {
+                bestScore = score;
+                best = start;
+            }
+        }
+
+        return best;
+    }
+
+    // Cross-correlation of one hop of the channel sums, normalized by the candidate's energy
+    private float similarity(int reference, int candidate, int step) {
+        float correlation = 0;
+        float energy = 1e-3f;
+
+        for (int i = 0; i < this.hop; i += step) {
+            int a = (reference + i) * this.channels;
+            int b = (candidate + i) * this.channels;
+            float x = 0;
+            float y = 0;
+            for (int c = 0; c < this.channels; c++) {
+                x += this.input[a + c];
+                y += this.input[b + c];
+            }
+            correlation += x * y;
+            energy += y * y;
+        }
+
+        return correlation / (float) Math.sqrt(energy);
+    }
+
+    // Drop input frames that no later segment or search can reach anymore
+    private void compact() {
+        int discard = Math.min(this.previousStart, (int) this.idealStart - this.seek);
+        if (!this.primed || discard <= 0) {
+            return;
+        }
+
+        System.arraycopy(this.input, discard * this.channels, this.input, 0, (this.inputFrames - discard) * this.channels);
+        this.inputFrames -= discard;
+        this.previousStart -= discard;
+        this.idealStart -= discard;
+    }
+}
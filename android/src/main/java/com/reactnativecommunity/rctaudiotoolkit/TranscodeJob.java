@@ -0,0 +1,346 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.content.Context;
+import android.media.MediaCodec;
+import android.media.MediaCodecInfo;
+import android.media.MediaExtractor;
+import android.media.MediaFormat;
+import android.media.MediaRecorder;
+import android.net.Uri;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Decodes an audio file and encodes it again with the given MediaRecorder output format and
+ * encoder, e.g. to compress a recording before syncing it. Sample rate and channel count are kept.
+ * Jobs are ordered by priority, then by submission, when queued in a TranscodeQueue.
+ */
+class TranscodeJob implements Runnable, Comparable<TranscodeJob> {
+    private static final long TIMEOUT_US = 10000;
+    private static final AtomicLong sequence = new AtomicLong();
+
+    interface Listener {
+        void onProgress(TranscodeJob job, double progress);
+
+        /**
+         * Called once the job has finished, with a null `errorCode` on success.
+         */
+        void onFinished(TranscodeJob job, String errorCode, String message);
+    }
+
+    final int jobId;
+    final int priority;
+    private final long order = sequence.getAndIncrement();
+    private final Context context;
+    private final Uri source;
+    private final File destination;
+    private final int format;
+    private final int encoder;
+    private final int bitrate;
+    private final CodecPool codecs;
+    private final Listener listener;
+    private volatile boolean cancelled = false;
+
+    TranscodeJob(int jobId, int priority, Context context, Uri source, File destination,
+                 int format, int encoder, int bitrate, CodecPool codecs, Listener listener) {
+        this.jobId = jobId;
+        this.priority = priority;
+        this.context = context;
+        this.source = source;
+        this.destination = destination;
+        this.format = format;
+        this.encoder = encoder;
+        this.bitrate = bitrate;
+        this.codecs = codecs;
+        this.listener = listener;
+    }
+
+    void cancel() {
+        this.cancelled = true;
+    }
+
+    @Override
+    public int compareTo(TranscodeJob other) {
+        if (this.priority != other.priority) {
+            return this.priority > other.priority ? -1 : 1;
+        }
+
+        return this.order < other.order ? -1 : (this.order == other.order ? 0 : 1);
+    }
+
+    @Override
+    public void run() {
+        if (this.cancelled) {
+            this.listener.onFinished(this, "cancelled", "Transcoding was cancelled");
+            return;
+        }
+
+        File temp = new File(this.destination.getPath() + ".tmp");
+        String errorCode = null;
+        String message = null;
+
+        try {
+            transcode(temp);
+
+            if (this.destination.exists() && !this.destination.delete()) {
+                throw new IOException("Could not replace " + this.destination);
+            }
+            if (!temp.renameTo(this.destination)) {
+                throw new IOException("Could not write " + this.destination);
+            }
+        } catch (IOException | RuntimeException e) {
+            // Codecs throw a variety of runtime exceptions, and every one of them has to finish the job,
+            // or it would never be removed from the queue and its callback never invoked
+            if (this.cancelled) {
+                errorCode = "cancelled";
+                message = "Transcoding was cancelled";
+            } else {
+                errorCode = "transcodefail";
+                message = e.toString();
+            }
+        } finally {
+            temp.delete();
+        }
+
+        this.listener.onFinished(this, errorCode, message);
+    }
+
+    private void transcode(File output) throws IOException {
+        MediaExtractor extractor = new MediaExtractor();
+        MediaCodec decoder = null;
+        MediaCodec encoder = null;
+        String inputMime = null;
+        String outputMime = mimeForEncoder(this.encoder);
+        EncodedSink sink = null;
+        boolean success = false;
+
+        try {
+            extractor.setDataSource(this.context, this.source, null);
+
+            MediaFormat inputFormat = null;
+            for (int i = 0; i < extractor.getTrackCount(); i++) {
+                MediaFormat trackFormat = extractor.getTrackFormat(i);
+                String mime = trackFormat.getString(MediaFormat.KEY_MIME);
+                if (mime != null && mime.startsWith("audio/")) {
+                    extractor.selectTrack(i);
+                    inputFormat = trackFormat;
+                    inputMime = mime;
+                    break;
+                }
+            }
+
+            if (inputFormat == null) {
+                throw new IOException("No audio track found in " + this.source);
+            }
+
+            long duration = inputFormat.containsKey(MediaFormat.KEY_DURATION)
+                    ? inputFormat.getLong(MediaFormat.KEY_DURATION) : -1;
+            int sampleRate = inputFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+            int channels = inputFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+
+            decoder = this.codecs.acquireDecoder(inputMime);
+            decoder.configure(inputFormat, null, null, 0);
+            decoder.start();
+
+            // Buffer arrays are deprecated in API 21 but are the only option on API 19
+            ByteBuffer[] decoderInputs = decoder.getInputBuffers();
+            ByteBuffer[] decoderOutputs = decoder.getOutputBuffers();
+            ByteBuffer[] encoderInputs = null;
+            ByteBuffer[] encoderOutputs = null;
+            MediaCodec.BufferInfo decoderInfo = new MediaCodec.BufferInfo();
+            MediaCodec.BufferInfo encoderInfo = new MediaCodec.BufferInfo();
+
+            // Decoded PCM waiting to be passed to the encoder, which may take several input buffers
+            ByteBuffer pcm = null;
+            int pcmIndex = -1;
+            int pcmStart = 0;
+            long pcmTime = 0;
+
+            boolean extractorDone = false;
+            boolean decoderDone = false;
+            boolean encoderInputDone = false;
+            boolean encoderDone = false;
+            double lastProgress = 0;
+
+            while (!encoderDone) {
+                if (this.cancelled) {
+                    throw new IOException("Transcoding was cancelled");
+                }
+
+                if (!extractorDone) {
+                    int inputIndex = decoder.dequeueInputBuffer(0);
+                    if (inputIndex >= 0) {
+                        int size = extractor.readSampleData(decoderInputs[inputIndex], 0);
+                        if (size < 0) {
+                            decoder.queueInputBuffer(inputIndex, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            extractorDone = true;
+                        } else {
+                            decoder.queueInputBuffer(inputIndex, 0, size, extractor.getSampleTime(), 0);
+                            extractor.advance();
+                        }
+                    }
+                }
+
+                if (pcm == null && !decoderDone) {
+                    int outputIndex = decoder.dequeueOutputBuffer(decoderInfo, TIMEOUT_US);
+                    if (outputIndex >= 0) {
+                        if (decoderInfo.size > 0) {
+                            pcm = decoderOutputs[outputIndex];
+                            pcm.position(decoderInfo.offset);
+                            pcm.limit(decoderInfo.offset + decoderInfo.size);
+                            pcmIndex = outputIndex;
+                            pcmStart = decoderInfo.offset;
+                            pcmTime = decoderInfo.presentationTimeUs;
+                        } else {
+                            decoder.releaseOutputBuffer(outputIndex, false);
+                        }
+
+                        if ((decoderInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                            decoderDone = true;
+                        }
+                    } else if (outputIndex == MediaCodec.INFO_OUTPUT_BUFFERS_CHANGED) {
+                        decoderOutputs = decoder.getOutputBuffers();
+                    } else if (outputIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED && encoder == null) {
+                        // Decoders may report the real sample rate/channel count only once decoding starts
+                        MediaFormat decodedFormat = decoder.getOutputFormat();
+                        sampleRate = decodedFormat.getInteger(MediaFormat.KEY_SAMPLE_RATE);
+                        channels = decodedFormat.getInteger(MediaFormat.KEY_CHANNEL_COUNT);
+                    }
+                }
+
+                // The encoder is configured once the decoded format is known
+                if (encoder == null && (pcm != null || decoderDone)) {
+                    MediaFormat encodedFormat = encoderFormat(outputMime, sampleRate, channels);
+                    sink = EncodedSink.create(output, this.format, encodedFormat);
+
+                    encoder = this.codecs.acquireEncoder(outputMime);
+                    encoder.configure(encodedFormat, null, null, MediaCodec.CONFIGURE_FLAG_ENCODE);
+                    encoder.start();
+                    encoderInputs = encoder.getInputBuffers();
+                    encoderOutputs = encoder.getOutputBuffers();
+                }
+
+                if (encoder != null && !encoderInputDone) {
+                    if (pcm != null) {
+                        int inputIndex = encoder.dequeueInputBuffer(TIMEOUT_US);
+                        if (inputIndex >= 0) {
+                            ByteBuffer input = encoderInputs[inputIndex];
+                            input.clear();
+
+                            int length = Math.min(pcm.remaining(), input.remaining());
+                            long time = pcmTime + (pcm.position() - pcmStart) * 1000000L / (2L * channels * sampleRate);
+
+                            ByteBuffer part = pcm.duplicate();
+                            part.limit(part.position() + length);
+                            input.put(part);
+                            pcm.position(pcm.position() + length);
+
+                            encoder.queueInputBuffer(inputIndex, 0, length, time, 0);
+
+                            if (!pcm.hasRemaining()) {
+                                decoder.releaseOutputBuffer(pcmIndex, false);
+                                pcm = null;
+                            }
+                        }
+                    } else if (decoderDone) {
+                        int inputIndex = encoder.dequeueInputBuffer(TIMEOUT_US);
+                        if (inputIndex >= 0) {
+                            encoder.queueInputBuffer(inputIndex, 0, 0, 0, MediaCodec.BUFFER_FLAG_END_OF_STREAM);
+                            encoderInputDone = true;
+                        }
+                    }
+                }
+
+                if (encoder != null) {
+                    int outputIndex = encoder.dequeueOutputBuffer(encoderInfo, encoderInputDone ? TIMEOUT_US : 0);
+                    if (outputIndex >= 0) {
+                        // Codec specific data is part of the output format
+                        if ((encoderInfo.flags & MediaCodec.BUFFER_FLAG_CODEC_CONFIG) == 0 && encoderInfo.size > 0) {
+                            ByteBuffer buffer = encoderOutputs[outputIndex];
+                            buffer.position(encoderInfo.offset);
+                            buffer.limit(encoderInfo.offset + encoderInfo.size);
+                            sink.write(buffer, encoderInfo);
+
+                            if (duration > 0) {
+                                double progress = Math.min(1.0, encoderInfo.presentationTimeUs / (double) duration);
+                                if (progress - lastProgress >= 0.01) {
+                                    lastProgress = progress;
+                                    this.listener.onProgress(this, progress);
+                                }
+                            }
+                        }
+                        encoder.releaseOutputBuffer(outputIndex, false);
+
+                        if ((encoderInfo.flags & MediaCodec.BUFFER_FLAG_END_OF_STREAM) != 0) {
+                            encoderDone = true;
+                        }
+                    } else if (outputIndex == MediaCodec.INFO_OUTPUT_BUFFERS_CHANGED) {
+                        encoderOutputs = encoder.getOutputBuffers();
+                    } else if (outputIndex == MediaCodec.INFO_OUTPUT_FORMAT_CHANGED) {
+                        sink.start(encoder.getOutputFormat());
+                    }
+                }
+            }
+
+            sink.finish();
+            this.listener.onProgress(this, 1.0);
+            success = true;
+        } finally {
+            if (sink != null) {
+                sink.close();
+            }
+            if (encoder != null) {
+                this.codecs.recycleEncoder(outputMime, encoder, success);
+            }
+            if (decoder != null) {
+                this.codecs.recycleDecoder(inputMime, decoder, success);
+            }
+            extractor.release();
+        }
+    }
+
+    private MediaFormat encoderFormat(String mime, int sampleRate, int channels) {
+        MediaFormat format = MediaFormat.createAudioFormat(mime, sampleRate, channels);
+        format.setInteger(MediaFormat.KEY_BIT_RATE, this.bitrate);
+
+        if (MediaFormat.MIMETYPE_AUDIO_AAC.equals(mime)) {
+            int profile = MediaCodecInfo.CodecProfileLevel.AACObjectLC;
+
+            // ADTS headers written by AdtsSink only describe plain AAC-LC
+            if (this.format != MediaRecorder.OutputFormat.AAC_ADTS) {
+                if (this.encoder == MediaRecorder.AudioEncoder.HE_AAC) {
+                    profile = MediaCodecInfo.CodecProfileLevel.AACObjectHE;
+                } else if (this.encoder == MediaRecorder.AudioEncoder.AAC_ELD) {
+                    profile = MediaCodecInfo.CodecProfileLevel.AACObjectELD;
+                }
+            }
+
+            format.setInteger(MediaFormat.KEY_AAC_PROFILE, profile);
+        }
+
+        return format;
+    }
+
+    static String mimeForEncoder(int encoder) throws IOException {
+        switch (encoder) {
+            case MediaRecorder.AudioEncoder.DEFAULT:
+            case MediaRecorder.AudioEncoder.AAC:
+            case MediaRecorder.AudioEncoder.HE_AAC:
+            case MediaRecorder.AudioEncoder.AAC_ELD:
+                return MediaFormat.MIMETYPE_AUDIO_AAC;
+            case MediaRecorder.AudioEncoder.AMR_NB:
+                return MediaFormat.MIMETYPE_AUDIO_AMR_NB;
+            case MediaRecorder.AudioEncoder.AMR_WB:
+                return MediaFormat.MIMETYPE_AUDIO_AMR_WB;
+            case MediaRecorder.AudioEncoder.VORBIS:
+                return MediaFormat.MIMETYPE_AUDIO_VORBIS;
+            case 7: // MediaRecorder.AudioEncoder.OPUS, API 29
+                return "audio/opus";
+            default:
+                throw new IOException("Encoder " + encoder + " is not supported for transcoding");
+        }
+    }
+}
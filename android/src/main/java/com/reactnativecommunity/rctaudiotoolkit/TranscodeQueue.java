@@ -0,0 +1,63 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.PriorityBlockingQueue;
+import java.util.concurrent.ThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Runs transcoding jobs on a bounded pool of workers, highest priority first. Codecs are shared
+ * between the jobs through a CodecPool.
+ */
+class TranscodeQueue {
+    private static final long KEEP_ALIVE_SECONDS = 30;
+
+    private final ThreadPoolExecutor executor;
+    private final Map<Integer, TranscodeJob> jobs = new ConcurrentHashMap<>();
+    final CodecPool codecs;
+
+    TranscodeQueue(int workers) {
+        // The executor is only given TranscodeJobs directly, so the queue can order them
+        this.executor = new ThreadPoolExecutor(workers, workers, KEEP_ALIVE_SECONDS, TimeUnit.SECONDS,
+                new PriorityBlockingQueue<Runnable>());
+        this.executor.allowCoreThreadTimeOut(true);
+        this.codecs = new CodecPool(workers);
+    }
+
+    void submit(TranscodeJob job) {
+        this.jobs.put(job.jobId, job);
+        this.executor.execute(job);
+    }
+
+    /**
+     * Forget a job once it has reported that it finished.
+     */
+    void remove(TranscodeJob job) {
+        this.jobs.remove(job.jobId);
+    }
+
+    boolean cancel(int jobId) {
+        TranscodeJob job = this.jobs.get(jobId);
+        if (job == null) {
+            return false;
+        }
+
+        job.cancel();
+
+        // A job that has not started yet reports its cancellation right away
+        if (this.executor.remove(job)) {
+            job.run();
+        }
+
+        return true;
+    }
+
+    void shutdown() {
+        for (TranscodeJob job : this.jobs.values()) {
+            job.cancel();
+        }
+        this.executor.shutdown();
+        this.codecs.releaseAll();
+    }
+}
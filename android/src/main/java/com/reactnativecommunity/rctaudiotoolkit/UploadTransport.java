@@ -0,0 +1,30 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.json.JSONObject;
+
+import java.io.IOException;
+
+/**
+ * Sends the chunks of a recording and its final manifest to a server. Implementations are called
+ * from a single upload thread and should throw an IOException for failures that can be retried.
+ */
+interface UploadTransport {
+    void sendChunk(String uploadId, int index, long offset, byte[] data) throws IOException;
+
+    void sendManifest(String uploadId, JSONObject manifest) throws IOException;
+
+    interface Factory {
+        /**
+         * Create a transport for the `upload` recorder options, converted to JSON so that they
+         * can be restored from the upload journal.
+         */
+        UploadTransport create(JSONObject options);
+
+        Factory HTTP = new Factory() {
+            @Override
+            public UploadTransport create(JSONObject options) {
+                return new HttpUploadTransport(options);
+            }
+        };
+    }
+}
@@ -0,0 +1,63 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AudioMetricsTest {
+    @Before
+    public void setUp() {
+        AudioMetrics.reset();
+    }
+
+    @Test
+    public void bucketsRoundTrip() {
+        for (long value = 0; value < 1L << 20; value += 1 + value / 7) {
+            long start = AudioMetrics.valueOf(AudioMetrics.bucketOf(value));
+            assertTrue(value + " -> " + start, start <= value);
+            assertTrue(value + " -> " + start, value - start <= value / 16);
+        }
+
+        for (int bucket = 0; bucket < 200; bucket++) {
+            assertEquals(bucket, AudioMetrics.bucketOf(AudioMetrics.valueOf(bucket)));
+        }
+    }
+
+    @Test
+    public void reportsPercentiles() {
+        assertEquals(0, AudioMetrics.percentile(AudioMetrics.PLAYER_SEEK, 0.5));
+
+        for (int micros = 1; micros <= 100; micros++) {
+            AudioMetrics.recordMicros(AudioMetrics.PLAYER_SEEK, micros);
+        }
+
+        assertEquals(50, AudioMetrics.percentile(AudioMetrics.PLAYER_SEEK, 0.50));
+        assertEquals(88, AudioMetrics.percentile(AudioMetrics.PLAYER_SEEK, 0.90));
+        assertEquals(96, AudioMetrics.percentile(AudioMetrics.PLAYER_SEEK, 0.99));
+        assertEquals(0, AudioMetrics.percentile(AudioMetrics.PLAYER_PLAY, 0.50));
+    }
+
+    @Test
+    public void keepsFullErrorCodes() {
+        int[][] codes = {
+                {1, -1004}, {1, Integer.MIN_VALUE}, {-38, 0}, {100, 0},
+                {Integer.MAX_VALUE, Integer.MIN_VALUE}, {Integer.MIN_VALUE, -1}, {1 << 27, -(1 << 27) - 1}
+        };
+
+        for (int i = 0; i < codes.length; i++) {
+            for (int n = 0; n <= i; n++) {
+                AudioMetrics.recordError(AudioMetrics.SOURCE_PLAYER, codes[i][0], codes[i][1]);
+            }
+        }
+        AudioMetrics.recordError(AudioMetrics.SOURCE_RECORDER, 1, Integer.MIN_VALUE);
+
+        for (int i = 0; i < codes.length; i++) {
+            assertEquals(i + 1, AudioMetrics.errorCount(AudioMetrics.SOURCE_PLAYER, codes[i][0], codes[i][1]));
+        }
+        assertEquals(1, AudioMetrics.errorCount(AudioMetrics.SOURCE_RECORDER, 1, Integer.MIN_VALUE));
+        assertEquals(0, AudioMetrics.errorCount(AudioMetrics.SOURCE_RECORDER, 1, -1004));
+        assertEquals(0, AudioMetrics.errorCount(AudioMetrics.SOURCE_PLAYER, 1, 0));
+    }
+}
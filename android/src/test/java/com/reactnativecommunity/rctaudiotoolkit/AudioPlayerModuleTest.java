@@ -0,0 +1,222 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.util.Map;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AudioPlayerModuleTest {
+    // Inline data, so that preparing doesn't go through Uri
+    private static final String PATH = "data:audio/wav;base64,UklGRg==";
+    private static final int CYCLES = 2000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private FakeReactContext context;
+    private FakePlayerBackend.Factory players;
+    private AudioPlayerModule module;
+
+    @Before
+    public void setUp() throws Exception {
+        this.context = new FakeReactContext(this.folder.newFolder("files"));
+        this.players = new FakePlayerBackend.Factory(this.context.queue);
+        this.module = new AudioPlayerModule(this.context, this.players);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                module.onCatalystInstanceDestroy();
+            }
+        });
+        this.context.shutdown();
+    }
+
+    // Without an AudioManager on the JVM, players must not request audio focus
+    private static ReadableMap options(boolean autoDestroy) {
+        return JavaOnlyMap.of("mixWithOthers", true, "autoDestroy", autoDestroy);
+    }
+
+    private FakeReactContext.Result prepare(final int playerId, final ReadableMap options) throws Exception {
+        final FakeReactContext.Result result = new FakeReactContext.Result();
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                module.prepare(playerId, PATH, options, result);
+            }
+        });
+        return result;
+    }
+
+    private FakeReactContext.Result play(final int playerId) throws Exception {
+        final FakeReactContext.Result result = new FakeReactContext.Result();
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                module.play(playerId, result);
+            }
+        });
+        return result;
+    }
+
+    private FakeReactContext.Result seek(final int playerId, final int position) throws Exception {
+        final FakeReactContext.Result result = new FakeReactContext.Result();
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                module.seek(playerId, position, result);
+            }
+        });
+        return result;
+    }
+
+    private FakeReactContext.Result destroy(final int playerId) throws Exception {
+        final FakeReactContext.Result result = new FakeReactContext.Result();
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                module.destroy(playerId, result);
+            }
+        });
+        return result;
+    }
+
+    private static ReadableMap info(FakeReactContext.Result result) throws InterruptedException {
+        Object[] args = result.await();
+        assertNull(args[0]);
+        return (ReadableMap) args[1];
+    }
+
+    private void assertNoPlayers() throws Exception {
+        int state = this.context.call(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return module.playerPool.size() + module.playerStatus.size() + module.playerPath.size()
+                        + module.playerOptions.size() + module.playerAutoDestroy.size()
+                        + module.playerContinueInBackground.size() + module.playerMixWithOthers.size()
+                        + module.playerUsage.size() + module.preparedPlayers.size()
+                        + module.playerPrepareCallback.size() + module.playerSeekCallback.size()
+                        + module.playerSeekStart.size() + module.focusPausedPlayers.size();
+            }
+        });
+
+        assertEquals(0, state);
+        assertEquals(this.players.created.get(), this.players.released.get());
+    }
+
+    @Test
+    public void preparesAfterDelay() throws Exception {
+        this.players.prepareDelayMs = 50;
+        this.players.durationMs = 1234;
+
+        ReadableMap info = info(prepare(1, options(true)));
+
+        assertEquals(1234, info.getDouble("duration"), 0);
+        assertEquals(0, info.getDouble("position"), 0);
+        assertEquals(1234, this.module.getStatusSync(1).getDouble("duration"), 0);
+    }
+
+    @Test
+    public void playsToCompletionAndAutoDestroys() throws Exception {
+        this.players.durationMs = 50;
+
+        info(prepare(1, options(true)));
+        info(play(1));
+        this.context.awaitEvents("ended", 1);
+
+        assertEquals(1, this.players.created.get());
+        assertNoPlayers();
+    }
+
+    @Test
+    public void seeksAfterDelay() throws Exception {
+        this.players.seekDelayMs = 30;
+
+        info(prepare(1, options(false)));
+        ReadableMap info = info(seek(1, 500));
+
+        assertEquals(500, info.getDouble("position"), 0);
+        this.context.awaitEvents("seeked", 1);
+
+        destroy(1).await();
+        assertNoPlayers();
+    }
+
+    @Test
+    public void newSeekFailsPendingSeek() throws Exception {
+        this.players.seekDelayMs = 1000;
+
+        info(prepare(1, options(false)));
+        FakeReactContext.Result first = seek(1, 500);
+        FakeReactContext.Result second = seek(1, 700);
+
+        assertEquals("seekfail", first.error().get("err"));
+        assertEquals(700, info(second).getDouble("position"), 0);
+        this.context.awaitEvents("seeked", 1);
+
+        destroy(1).await();
+        assertNoPlayers();
+    }
+
+    @Test
+    public void destroyWhilePreparingFailsPrepare() throws Exception {
+        this.players.prepareDelayMs = 1000;
+
+        FakeReactContext.Result prepared = prepare(1, options(true));
+        destroy(1).await();
+
+        assertEquals("prepare", prepared.error().get("err"));
+        assertNoPlayers();
+    }
+
+    @Test
+    public void prepareErrorFailsPrepareAndDestroys() throws Exception {
+        this.players.prepareErrorWhat = 1;
+        this.players.prepareErrorExtra = -1004;
+
+        Map<String, Object> err = prepare(1, options(true)).error();
+
+        assertEquals("prepare", err.get("err"));
+        assertEquals(1, ((Number) err.get("what")).intValue());
+        assertEquals(-1004, ((Number) err.get("extra")).intValue());
+        this.context.awaitEvents("error", 1);
+        assertNoPlayers();
+    }
+
+    @Test
+    public void cyclesLeaveNoState() throws Exception {
+        for (int i = 0; i < CYCLES; i++) {
+            int playerId = i % 8;
+            info(prepare(playerId, options(false)));
+            info(play(playerId));
+            destroy(playerId).await();
+        }
+
+        assertEquals(CYCLES, this.players.created.get());
+        assertNoPlayers();
+    }
+
+    @Test
+    public void reprepareReleasesPreviousPlayer() throws Exception {
+        for (int i = 0; i < CYCLES; i++) {
+            info(prepare(1, options(false)));
+        }
+        destroy(1).await();
+
+        assertEquals(CYCLES, this.players.created.get());
+        assertNoPlayers();
+    }
+}
@@ -0,0 +1,195 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.concurrent.Callable;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+
+public class AudioRecorderModuleTest {
+    private static final int CYCLES = 2000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private File filesDir;
+    private FakeReactContext context;
+    private FakeRecorderBackend.Factory recorders;
+    private AudioRecorderModule module;
+
+    @Before
+    public void setUp() throws Exception {
+        this.filesDir = this.folder.newFolder("files");
+        this.context = new FakeReactContext(this.filesDir);
+        this.recorders = new FakeRecorderBackend.Factory();
+        this.module = new AudioRecorderModule(this.context, this.recorders);
+    }
+
+    @After
+    public void tearDown() throws Exception {
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                module.onCatalystInstanceDestroy();
+            }
+        });
+        this.context.shutdown();
+    }
+
+    private FakeReactContext.Result prepare(final int recorderId, final ReadableMap options) throws Exception {
+        final FakeReactContext.Result result = new FakeReactContext.Result();
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                module.prepare(recorderId, "recording.mp4", options, result);
+            }
+        });
+        return result;
+    }
+
+    private FakeReactContext.Result record(final int recorderId) throws Exception {
+        final FakeReactContext.Result result = new FakeReactContext.Result();
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                module.record(recorderId, result);
+            }
+        });
+        return result;
+    }
+
+    private FakeReactContext.Result stop(final int recorderId) throws Exception {
+        final FakeReactContext.Result result = new FakeReactContext.Result();
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                module.stop(recorderId, result);
+            }
+        });
+        return result;
+    }
+
+    private FakeReactContext.Result destroy(final int recorderId) throws Exception {
+        final FakeReactContext.Result result = new FakeReactContext.Result();
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                module.destroy(recorderId, result);
+            }
+        });
+        return result;
+    }
+
+    private void assertNoRecorders() throws Exception {
+        int state = this.context.call(new Callable<Integer>() {
+            @Override
+            public Integer call() {
+                return module.recorderPool.size() + module.recorderAutoDestroy.size()
+                        + module.pausedRecorders.size() + module.recorderSource.size();
+            }
+        });
+
+        assertEquals(0, state);
+        assertEquals(this.recorders.created.get(), this.recorders.released.get());
+    }
+
+    @Test
+    public void preparesRecordsAndStops() throws Exception {
+        this.recorders.prepareDelayMs = 20;
+        this.recorders.stopDelayMs = 20;
+
+        Object[] prepared = prepare(1, new JavaOnlyMap()).await();
+        assertNull(prepared[0]);
+        assertEquals(new File(this.filesDir, "recording.mp4").getPath(), prepared[1]);
+
+        assertNull(record(1).error());
+        assertNull(stop(1).error());
+
+        assertEquals(1, this.recorders.created.get());
+        assertNoRecorders();
+    }
+
+    @Test
+    public void failedPrepareReportsError() throws Exception {
+        this.recorders.failPrepare = true;
+
+        assertEquals("preparefail", prepare(1, new JavaOnlyMap()).error().get("err"));
+        assertEquals("notfound", stop(2).error().get("err"));
+
+        destroy(1).await();
+        assertNoRecorders();
+    }
+
+    @Test
+    public void errorDestroysRecorder() throws Exception {
+        assertNull(prepare(1, new JavaOnlyMap()).error());
+        assertNull(record(1).error());
+
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                FakeRecorderBackend recorder = (FakeRecorderBackend) module.recorderPool.get(1);
+                recorder.getListener().onError(recorder, 1, -1007);
+            }
+        });
+
+        assertEquals(1, this.context.eventCount("error"));
+        assertNoRecorders();
+    }
+
+    @Test
+    public void metersWhileRecording() throws Exception {
+        this.recorders.amplitude = 16384;
+
+        assertNull(prepare(1, JavaOnlyMap.of("meteringInterval", 5, "autoDestroy", false)).error());
+        assertEquals(-160, this.module.getMeterLevelSync(1), 0);
+
+        assertNull(record(1).error());
+        this.context.awaitEvents("meter", 2);
+        assertEquals(-6, this.module.getMeterLevelSync(1), 0);
+        assertEquals(-160, this.module.getMeterLevelSync(2), 0);
+
+        assertNull(stop(1).error());
+        assertEquals(-160, this.module.getMeterLevelSync(1), 0);
+
+        destroy(1).await();
+        assertNoRecorders();
+    }
+
+    @Test
+    public void metersRecordersWithLargeIds() throws Exception {
+        this.recorders.amplitude = 32767;
+
+        // Beyond the cached boxed Integers, so that ids must be compared by value
+        assertNull(prepare(1000, JavaOnlyMap.of("meteringInterval", 5)).error());
+        assertNull(record(1000).error());
+        this.context.awaitEvents("meter", 2);
+        assertEquals(0, this.module.getMeterLevelSync(1000), 0);
+
+        destroy(1000).await();
+        assertEquals(-160, this.module.getMeterLevelSync(1000), 0);
+        assertNoRecorders();
+    }
+
+    @Test
+    public void cyclesLeaveNoState() throws Exception {
+        for (int i = 0; i < CYCLES; i++) {
+            int recorderId = i % 8;
+            assertNull(prepare(recorderId, new JavaOnlyMap()).error());
+            assertNull(record(recorderId).error());
+            assertNull(stop(recorderId).error());
+        }
+
+        assertEquals(CYCLES, this.recorders.created.get());
+        assertNoRecorders();
+    }
+}
@@ -0,0 +1,139 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.bridge.WritableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Queries per second from the JS side: synchronous methods, called directly on the calling thread,
+ * against `getCurrentTime()`, which goes through the native modules thread and a Callback. The
+ * bridge's own serialization isn't included. Run `main()` from the IDE, or with the unit test
+ * classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BridgeCallBenchmark {
+    private static final String PATH = "data:audio/wav;base64,UklGRg==";
+    private static final Integer PLAYER_ID = 1;
+    private static final Integer RECORDER_ID = 2;
+
+    private File dir;
+    private FakeReactContext context;
+    private AudioPlayerModule players;
+    private AudioRecorderModule recorders;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.dir = Files.createTempDirectory("BridgeCallBenchmark").toFile();
+        this.context = new FakeReactContext(this.dir);
+        FakePlayerBackend.Factory playerFactory = new FakePlayerBackend.Factory(this.context.queue);
+        playerFactory.durationMs = Integer.MAX_VALUE;
+        FakeRecorderBackend.Factory recorderFactory = new FakeRecorderBackend.Factory();
+        recorderFactory.amplitude = 1000;
+        this.players = new AudioPlayerModule(this.context, playerFactory);
+        this.recorders = new AudioRecorderModule(this.context, recorderFactory);
+
+        // There is no AudioManager to request focus from
+        final ReadableMap playerOptions = JavaOnlyMap.of("mixWithOthers", true, "autoDestroy", false);
+        final ReadableMap recorderOptions = JavaOnlyMap.of("meteringInterval", 100);
+        final FakeReactContext.Result prepared = new FakeReactContext.Result();
+        final FakeReactContext.Result played = new FakeReactContext.Result();
+        final FakeReactContext.Result recorderPrepared = new FakeReactContext.Result();
+        final FakeReactContext.Result recorded = new FakeReactContext.Result();
+
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                players.prepare(PLAYER_ID, PATH, playerOptions, prepared);
+                recorders.prepare(RECORDER_ID, "recording.mp4", recorderOptions, recorderPrepared);
+                recorders.record(RECORDER_ID, recorded);
+            }
+        });
+        prepared.await();
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                players.play(PLAYER_ID, played);
+            }
+        });
+        if (played.error() != null || recorded.error() != null) {
+            throw new IllegalStateException("Player or recorder didn't start");
+        }
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                players.destroy(PLAYER_ID, null);
+                recorders.destroy(RECORDER_ID, null);
+                players.onCatalystInstanceDestroy();
+                recorders.onCatalystInstanceDestroy();
+            }
+        });
+        this.context.shutdown();
+
+        File[] files = this.dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        this.dir.delete();
+    }
+
+    @Benchmark
+    public double currentTimeSync() {
+        return this.players.getCurrentTimeSync(PLAYER_ID);
+    }
+
+    @Benchmark
+    public WritableMap statusSync() {
+        return this.players.getStatusSync(PLAYER_ID);
+    }
+
+    @Benchmark
+    public double meterLevelSync() {
+        return this.recorders.getMeterLevelSync(RECORDER_ID);
+    }
+
+    @Benchmark
+    public Object currentTimeCallback() throws Exception {
+        final FakeReactContext.Result result = new FakeReactContext.Result();
+        this.context.queue.execute(new Runnable() {
+            @Override
+            public void run() {
+                players.getCurrentTime(PLAYER_ID, result);
+            }
+        });
+        return result.await()[1];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(BridgeCallBenchmark.class.getSimpleName()).build()).run();
+    }
+}
@@ -0,0 +1,237 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.content.Context;
+import android.media.PlaybackParams;
+import android.net.Uri;
+
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A player that plays nothing but takes its time like MediaPlayer does: prepare and seek complete
+ * after their delays, and playback completes once it has run for the duration. Listeners are called
+ * on the queue thread, which stands for the thread the player was created on.
+ */
+class FakePlayerBackend implements PlayerBackend {
+    private final Factory factory;
+    private Listener listener;
+    private boolean prepared;
+    private boolean released;
+    private boolean playing;
+    private boolean looping;
+    private int position;
+    private long startedAt;
+    private ScheduledFuture<?> prepareTask;
+    private ScheduledFuture<?> seekTask;
+    private ScheduledFuture<?> completionTask;
+
+    private FakePlayerBackend(Factory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Creates players with the same timings, and counts them so that tests can check none leak.
+     */
+    static class Factory implements PlayerBackend.Factory {
+        final ScheduledExecutorService queue;
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger released = new AtomicInteger();
+        volatile long prepareDelayMs;
+        volatile long seekDelayMs;
+        volatile int durationMs = 10000;
+        // Fail prepare with this MediaPlayer error instead, if not 0
+        volatile int prepareErrorWhat;
+        volatile int prepareErrorExtra;
+
+        Factory(ScheduledExecutorService queue) {
+            this.queue = queue;
+        }
+
+        @Override
+        public PlayerBackend create() {
+            this.created.incrementAndGet();
+            return new FakePlayerBackend(this);
+        }
+    }
+
+    private void checkState(boolean valid) {
+        if (!valid || this.released) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private ScheduledFuture<?> schedule(final Runnable task, long delayMs) {
+        return this.factory.queue.schedule(new Runnable() {
+            @Override
+            public void run() {
+                if (!released) {
+                    task.run();
+                }
+            }
+        }, delayMs, TimeUnit.MILLISECONDS);
+    }
+
+    private static void cancel(ScheduledFuture<?> task) {
+        if (task != null) {
+            task.cancel(false);
+        }
+    }
+
+    @Override
+    public void setDataSource(String path) {
+        checkState(true);
+    }
+
+    @Override
+    public void setDataSource(Context context, Uri uri) {
+        checkState(true);
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void prepareAsync(final Runnable onPrepared) {
+        checkState(!this.prepared && this.prepareTask == null);
+
+        this.prepareTask = schedule(new Runnable() {
+            @Override
+            public void run() {
+                prepareTask = null;
+                if (factory.prepareErrorWhat != 0) {
+                    listener.onError(FakePlayerBackend.this, factory.prepareErrorWhat, factory.prepareErrorExtra);
+                    return;
+                }
+                prepared = true;
+                onPrepared.run();
+            }
+        }, this.factory.prepareDelayMs);
+    }
+
+    @Override
+    public void start() {
+        checkState(this.prepared);
+        if (this.playing) {
+            return;
+        }
+        if (this.position >= this.factory.durationMs) {
+            this.position = 0;
+        }
+        this.playing = true;
+        this.startedAt = System.nanoTime();
+        scheduleCompletion();
+    }
+
+    private void scheduleCompletion() {
+        cancel(this.completionTask);
+        this.completionTask = schedule(new Runnable() {
+            @Override
+            public void run() {
+                completionTask = null;
+                if (looping) {
+                    position = 0;
+                    startedAt = System.nanoTime();
+                    scheduleCompletion();
+                    return;
+                }
+                playing = false;
+                position = factory.durationMs;
+                listener.onCompletion(FakePlayerBackend.this);
+            }
+        }, this.factory.durationMs - this.position);
+    }
+
+    @Override
+    public void pause() {
+        checkState(this.prepared);
+        this.position = getCurrentPosition();
+        this.playing = false;
+        cancel(this.completionTask);
+        this.completionTask = null;
+    }
+
+    @Override
+    public void seekTo(int msec) {
+        checkState(this.prepared);
+        this.position = Math.max(0, Math.min(msec, this.factory.durationMs));
+        if (this.playing) {
+            this.startedAt = System.nanoTime();
+            scheduleCompletion();
+        }
+
+        cancel(this.seekTask);
+        this.seekTask = schedule(new Runnable() {
+            @Override
+            public void run() {
+                seekTask = null;
+                listener.onSeekComplete(FakePlayerBackend.this);
+            }
+        }, this.factory.seekDelayMs);
+    }
+
+    @Override
+    public void seekTo(long msec, int mode) {
+        seekTo((int) msec);
+    }
+
+    @Override
+    public boolean isPlaying() {
+        return this.playing && !this.released;
+    }
+
+    @Override
+    public int getCurrentPosition() {
+        if (!this.playing) {
+            return this.position;
+        }
+        long elapsed = (System.nanoTime() - this.startedAt) / 1000000;
+        return (int) Math.min(this.position + elapsed, this.factory.durationMs);
+    }
+
+    @Override
+    public int getDuration() {
+        return this.prepared ? this.factory.durationMs : -1;
+    }
+
+    @Override
+    public int getAudioSessionId() {
+        return 1;
+    }
+
+    @Override
+    public void setVolume(float left, float right) {
+        checkState(true);
+    }
+
+    @Override
+    public void setLooping(boolean looping) {
+        checkState(true);
+        this.looping = looping;
+    }
+
+    @Override
+    public void setWakeMode(Context context, int mode) {
+    }
+
+    @Override
+    public void setPlaybackParams(PlaybackParams params) {
+        checkState(this.prepared);
+    }
+
+    @Override
+    public void release() {
+        if (this.released) {
+            return;
+        }
+        this.released = true;
+        this.playing = false;
+        cancel(this.prepareTask);
+        cancel(this.seekTask);
+        cancel(this.completionTask);
+        this.factory.released.incrementAndGet();
+    }
+}
@@ -0,0 +1,172 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import android.content.Context;
+import android.content.ContextWrapper;
+
+import com.facebook.react.bridge.Callback;
+import com.facebook.react.bridge.JavaScriptModule;
+import com.facebook.react.bridge.ReactApplicationContext;
+import com.facebook.react.bridge.ReadableMap;
+import com.facebook.react.modules.core.DeviceEventManagerModule;
+
+import java.io.File;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Lets the modules run on the JVM: module methods run on a single "native modules" thread, like
+ * they do in the app, and events are counted instead of being sent to JS.
+ */
+class FakeReactContext extends ReactApplicationContext {
+    final ScheduledThreadPoolExecutor queue = new ScheduledThreadPoolExecutor(1);
+
+    private final File dir;
+    private final Map<String, AtomicInteger> events = new ConcurrentHashMap<>();
+    private final DeviceEventManagerModule.RCTDeviceEventEmitter emitter =
+            new DeviceEventManagerModule.RCTDeviceEventEmitter() {
+                @Override
+                public void emit(String eventName, Object data) {
+                    count(((ReadableMap) data).getString("event")).incrementAndGet();
+                }
+            };
+
+    FakeReactContext(File dir) {
+        super(new BaseContext());
+        JsMaps.useJavaOnly();
+        // Players cancel their completion when paused or released, so don't let those pile up
+        this.queue.setRemoveOnCancelPolicy(true);
+        this.dir = dir;
+    }
+
+    /**
+     * Number of events of a kind emitted so far, e.g. "ended", by all players or recorders.
+     */
+    int eventCount(String event) {
+        return count(event).get();
+    }
+
+    void awaitEvents(String event, int count) throws InterruptedException {
+        long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(10);
+        while (eventCount(event) < count) {
+            if (System.nanoTime() > deadline) {
+                throw new AssertionError("Expected " + count + " \"" + event + "\" events, got " + eventCount(event));
+            }
+            Thread.sleep(1);
+        }
+    }
+
+    private AtomicInteger count(String event) {
+        AtomicInteger count = this.events.get(event);
+        if (count == null) {
+            this.events.putIfAbsent(event, new AtomicInteger());
+            count = this.events.get(event);
+        }
+        return count;
+    }
+
+    /**
+     * Run on the queue thread and wait, e.g. to read module state between calls.
+     */
+    <T> T call(Callable<T> task) throws Exception {
+        return this.queue.submit(task).get(10, TimeUnit.SECONDS);
+    }
+
+    void run(final Runnable task) throws Exception {
+        call(new Callable<Void>() {
+            @Override
+            public Void call() {
+                task.run();
+                return null;
+            }
+        });
+    }
+
+    void shutdown() throws InterruptedException {
+        this.queue.shutdownNow();
+        this.queue.awaitTermination(10, TimeUnit.SECONDS);
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public <T extends JavaScriptModule> T getJSModule(Class<T> jsInterface) {
+        return (T) this.emitter;
+    }
+
+    @Override
+    public void runOnNativeModulesQueueThread(Runnable runnable) {
+        this.queue.execute(runnable);
+    }
+
+    @Override
+    public Context getApplicationContext() {
+        return this;
+    }
+
+    @Override
+    public File getFilesDir() {
+        return this.dir;
+    }
+
+    @Override
+    public File getCacheDir() {
+        return this.dir;
+    }
+
+    @Override
+    public Object getSystemService(String name) {
+        // There is no AudioManager on the JVM, so players must mix with others
+        return null;
+    }
+
+    /**
+     * The callback a module method is given, to wait for its result.
+     */
+    static class Result implements Callback {
+        private final CountDownLatch latch = new CountDownLatch(1);
+        private volatile Object[] args;
+
+        @Override
+        public void invoke(Object... args) {
+            this.args = args;
+            this.latch.countDown();
+        }
+
+        /**
+         * Returns the arguments the callback was invoked with.
+         */
+        Object[] await() throws InterruptedException {
+            if (!this.latch.await(10, TimeUnit.SECONDS)) {
+                throw new AssertionError("Callback wasn't invoked");
+            }
+            return this.args;
+        }
+
+        /**
+         * Returns the error passed to the callback, or null if it succeeded.
+         */
+        Map<String, Object> error() throws InterruptedException {
+            Object[] args = await();
+            if (args.length == 0 || args[0] == null) {
+                return null;
+            }
+            return ((ReadableMap) args[0]).toHashMap();
+        }
+    }
+
+    // ReactApplicationContext wraps the application context of the context it is given
+    private static class BaseContext extends ContextWrapper {
+        BaseContext() {
+            super(null);
+        }
+
+        @Override
+        public Context getApplicationContext() {
+            return this;
+        }
+    }
+}
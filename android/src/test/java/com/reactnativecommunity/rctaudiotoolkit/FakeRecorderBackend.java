@@ -0,0 +1,150 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import java.io.IOException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A recorder that records nothing. Like MediaRecorder, prepare and stop block the calling thread,
+ * here for their configured delays, and calls out of order throw IllegalStateException.
+ */
+class FakeRecorderBackend implements RecorderBackend {
+    private final Factory factory;
+    private Listener listener;
+    private String outputFile;
+    private boolean prepared;
+    private boolean recording;
+    private boolean released;
+
+    private FakeRecorderBackend(Factory factory) {
+        this.factory = factory;
+    }
+
+    /**
+     * Creates recorders with the same behavior, and counts them so that tests can check none leak.
+     */
+    static class Factory implements RecorderBackend.Factory {
+        final AtomicInteger created = new AtomicInteger();
+        final AtomicInteger released = new AtomicInteger();
+        volatile long prepareDelayMs;
+        volatile long stopDelayMs;
+        volatile int amplitude;
+        volatile boolean failPrepare;
+
+        @Override
+        public RecorderBackend create() {
+            this.created.incrementAndGet();
+            return new FakeRecorderBackend(this);
+        }
+    }
+
+    Listener getListener() {
+        return this.listener;
+    }
+
+    private void checkState(boolean valid) {
+        if (!valid || this.released) {
+            throw new IllegalStateException();
+        }
+    }
+
+    private static void sleep(long delayMs) {
+        if (delayMs <= 0) {
+            return;
+        }
+        try {
+            Thread.sleep(delayMs);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    @Override
+    public void setAudioSource(int source) {
+        checkState(!this.prepared);
+    }
+
+    @Override
+    public void setOutputFormat(int format) {
+        checkState(!this.prepared);
+    }
+
+    @Override
+    public void setAudioEncoder(int encoder) {
+        checkState(!this.prepared);
+    }
+
+    @Override
+    public void setAudioEncodingBitRate(int bitrate) {
+        checkState(!this.prepared);
+    }
+
+    @Override
+    public void setAudioChannels(int channels) {
+        checkState(!this.prepared);
+    }
+
+    @Override
+    public void setAudioSamplingRate(int sampleRate) {
+        checkState(!this.prepared);
+    }
+
+    @Override
+    public void setOutputFile(String path) {
+        checkState(!this.prepared);
+        this.outputFile = path;
+    }
+
+    @Override
+    public void setListener(Listener listener) {
+        this.listener = listener;
+    }
+
+    @Override
+    public void prepare() throws IOException {
+        checkState(!this.prepared && this.outputFile != null);
+        sleep(this.factory.prepareDelayMs);
+        if (this.factory.failPrepare) {
+            throw new IOException("prepare failed");
+        }
+        this.prepared = true;
+    }
+
+    @Override
+    public void start() {
+        checkState(this.prepared && !this.recording);
+        this.recording = true;
+    }
+
+    @Override
+    public void stop() {
+        checkState(this.recording);
+        sleep(this.factory.stopDelayMs);
+        this.recording = false;
+        this.prepared = false;
+    }
+
+    @Override
+    public void pause() {
+        checkState(this.recording);
+    }
+
+    @Override
+    public void resume() {
+        checkState(this.recording);
+    }
+
+    @Override
+    public int getMaxAmplitude() {
+        return this.recording ? this.factory.amplitude : 0;
+    }
+
+    @Override
+    public void release() {
+        if (this.released) {
+            return;
+        }
+        this.released = true;
+        this.recording = false;
+        this.factory.released.incrementAndGet();
+    }
+}
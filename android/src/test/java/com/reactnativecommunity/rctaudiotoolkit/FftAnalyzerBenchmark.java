@@ -0,0 +1,60 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to window, transform and band one frame, i.e. the work done for every `size` samples pushed.
+ * Run `main()` from the IDE, or with the unit test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MICROSECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class FftAnalyzerBenchmark {
+    private static final int SAMPLE_RATE = 44100;
+
+    @Param({"256", "512", "1024", "2048", "4096"})
+    public int size;
+
+    @Param({"rectangular", "hann", "blackman"})
+    public String window;
+
+    private FftAnalyzer analyzer;
+    private short[] frame;
+    private float[] bands;
+
+    @Setup
+    public void setUp() {
+        this.analyzer = new FftAnalyzer(this.size, FftAnalyzer.windowFromName(this.window), 32, SAMPLE_RATE);
+        this.frame = FftAnalyzerTest.sine(this.size, 440, 0.5);
+        this.bands = new float[this.analyzer.getBandCount()];
+    }
+
+    @Benchmark
+    public float analyzeFrame() {
+        this.analyzer.pushPcm16(this.frame, 0, this.frame.length);
+        this.analyzer.copyBands(this.bands);
+        return this.bands[0];
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(FftAnalyzerBenchmark.class.getSimpleName()).build()).run();
+    }
+}
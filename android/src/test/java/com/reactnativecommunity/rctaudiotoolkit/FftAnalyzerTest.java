@@ -0,0 +1,128 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class FftAnalyzerTest {
+    private static final int SAMPLE_RATE = 44100;
+
+    static short[] sine(int samples, double frequency, double amplitude) {
+        short[] pcm = new short[samples];
+        for (int i = 0; i < samples; i++) {
+            pcm[i] = (short) Math.round(amplitude * 32767 * Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE));
+        }
+        return pcm;
+    }
+
+    private static int loudestBand(float[] bands) {
+        int loudest = 0;
+        for (int i = 1; i < bands.length; i++) {
+            if (bands[i] > bands[loudest]) {
+                loudest = i;
+            }
+        }
+        return loudest;
+    }
+
+    // Band that holds the given FFT bin, using the same edges as the analyzer
+    private static int bandOf(int bin, int bandCount, int size) {
+        int bins = size / 2;
+        int firstBin = (int) Math.max(1.0, 20.0 / (SAMPLE_RATE / 2.0 / bins));
+        int[] edges = FftAnalyzer.bandEdges(bandCount, firstBin, bins);
+        for (int b = 0; b < bandCount; b++) {
+            if (bin >= edges[b] && bin < edges[b + 1]) {
+                return b;
+            }
+        }
+        return -1;
+    }
+
+    @Test
+    public void fullScaleSineReadsZeroDbfs() {
+        int size = 1024;
+        int bin = 24;
+        FftAnalyzer analyzer = new FftAnalyzer(size, FftAnalyzer.WINDOW_RECTANGULAR, 32, SAMPLE_RATE);
+        short[] pcm = sine(size, (double) bin * SAMPLE_RATE / size, 1.0);
+        analyzer.pushPcm16(pcm, 0, pcm.length);
+
+        float[] bands = new float[analyzer.getBandCount()];
+        assertEquals(1, analyzer.copyBands(bands));
+        assertEquals(bandOf(bin, bands.length, size), loudestBand(bands));
+        assertEquals(0.0, bands[loudestBand(bands)], 0.1);
+    }
+
+    @Test
+    public void windowedSineLandsInItsBand() {
+        int size = 2048;
+        double frequency = 1000;
+        for (int window : new int[]{FftAnalyzer.WINDOW_HANN, FftAnalyzer.WINDOW_HAMMING, FftAnalyzer.WINDOW_BLACKMAN}) {
+            FftAnalyzer analyzer = new FftAnalyzer(size, window, 16, SAMPLE_RATE);
+            short[] pcm = sine(size, frequency, 1.0);
+            analyzer.pushPcm16(pcm, 0, pcm.length);
+
+            float[] bands = new float[analyzer.getBandCount()];
+            analyzer.copyBands(bands);
+            int bin = (int) Math.round(frequency * size / SAMPLE_RATE);
+            assertEquals(bandOf(bin, bands.length, size), loudestBand(bands));
+            // The window spreads the tone over neighbouring bins, which are all in the same band
+            assertEquals(0.0, bands[loudestBand(bands)], 0.5);
+        }
+    }
+
+    @Test
+    public void bandEdgesIncreaseForManyBands() {
+        for (int count : new int[]{1, 32, 255, 511}) {
+            int[] edges = FftAnalyzer.bandEdges(count, 1, 512);
+            assertEquals(1, edges[0]);
+            assertEquals(512, edges[count]);
+            for (int i = 1; i <= count; i++) {
+                assertTrue("edges must increase at " + i + " of " + count, edges[i] > edges[i - 1]);
+            }
+        }
+    }
+
+    @Test
+    public void bandCountIsLimitedByBins() {
+        FftAnalyzer analyzer = new FftAnalyzer(256, FftAnalyzer.WINDOW_HANN, 1000, SAMPLE_RATE);
+        assertTrue(analyzer.getBandCount() < 128);
+    }
+
+    @Test
+    public void pushPcm16DownmixesChannels() {
+        int size = 512;
+        short[] mono = sine(size, 2000, 0.5);
+        byte[] inPhase = new byte[size * 4];
+        byte[] opposed = new byte[size * 4];
+        for (int i = 0; i < size; i++) {
+            short inverted = (short) -mono[i];
+            inPhase[i * 4] = inPhase[i * 4 + 2] = (byte) mono[i];
+            inPhase[i * 4 + 1] = inPhase[i * 4 + 3] = (byte) (mono[i] >> 8);
+            opposed[i * 4] = (byte) mono[i];
+            opposed[i * 4 + 1] = (byte) (mono[i] >> 8);
+            opposed[i * 4 + 2] = (byte) inverted;
+            opposed[i * 4 + 3] = (byte) (inverted >> 8);
+        }
+
+        FftAnalyzer reference = new FftAnalyzer(size, FftAnalyzer.WINDOW_HANN, 16, SAMPLE_RATE);
+        reference.pushPcm16(mono, 0, size);
+        float[] expected = new float[reference.getBandCount()];
+        reference.copyBands(expected);
+
+        FftAnalyzer stereo = new FftAnalyzer(size, FftAnalyzer.WINDOW_HANN, 16, SAMPLE_RATE);
+        stereo.pushPcm16(inPhase, 0, inPhase.length, 2);
+        float[] actual = new float[stereo.getBandCount()];
+        assertEquals(1, stereo.copyBands(actual));
+        for (int i = 0; i < expected.length; i++) {
+            assertEquals(expected[i], actual[i], 0.01);
+        }
+
+        FftAnalyzer cancelled = new FftAnalyzer(size, FftAnalyzer.WINDOW_HANN, 16, SAMPLE_RATE);
+        cancelled.pushPcm16(opposed, 0, opposed.length, 2);
+        cancelled.copyBands(actual);
+        for (float level : actual) {
+            assertEquals(FftAnalyzer.MIN_LEVEL, level, 0.0);
+        }
+    }
+}
@@ -0,0 +1,79 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.fail;
+
+public class HttpUploadTransportTest {
+    private LocalUploadServer server;
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = new LocalUploadServer();
+    }
+
+    @After
+    public void tearDown() {
+        this.server.stop();
+    }
+
+    private JSONObject options() throws Exception {
+        JSONObject headers = new JSONObject();
+        headers.put("Authorization", "Bearer token");
+
+        JSONObject options = new JSONObject();
+        options.put("url", this.server.url("/chunks"));
+        options.put("manifestUrl", this.server.url("/manifest"));
+        options.put("headers", headers);
+        return options;
+    }
+
+    @Test
+    public void sendsChunkWithRangeAndHeaders() throws Exception {
+        byte[] data = {1, 2, 3, 4};
+        new HttpUploadTransport(options()).sendChunk("upload", 2, 100, data);
+
+        List<LocalUploadServer.Request> requests = this.server.getRequests();
+        assertEquals(1, requests.size());
+
+        LocalUploadServer.Request request = requests.get(0);
+        assertEquals("/chunks", request.path);
+        assertEquals("upload", request.headers.getFirst("X-Upload-Id"));
+        assertEquals("2", request.headers.getFirst("X-Chunk-Index"));
+        assertEquals("bytes 100-103/*", request.headers.getFirst("Content-Range"));
+        assertEquals("Bearer token", request.headers.getFirst("Authorization"));
+        assertArrayEquals(data, request.body);
+    }
+
+    @Test
+    public void sendsManifestToManifestUrl() throws Exception {
+        JSONObject manifest = new JSONObject();
+        manifest.put("size", 4);
+        new HttpUploadTransport(options()).sendManifest("upload", manifest);
+
+        LocalUploadServer.Request request = this.server.getRequests().get(0);
+        assertEquals("/manifest", request.path);
+        assertEquals("application/json", request.headers.getFirst("Content-Type"));
+        assertEquals(4, new JSONObject(new String(request.body, "UTF-8")).getInt("size"));
+    }
+
+    @Test
+    public void failsOnErrorStatus() throws Exception {
+        this.server.setStatus(503);
+
+        try {
+            new HttpUploadTransport(options()).sendChunk("upload", 0, 0, new byte[1]);
+            fail("Expected an IOException");
+        } catch (IOException e) {
+            assertEquals("Upload failed with HTTP status 503", e.getMessage());
+        }
+    }
+}
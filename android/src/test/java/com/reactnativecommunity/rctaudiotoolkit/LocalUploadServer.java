@@ -0,0 +1,82 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import com.sun.net.httpserver.Headers;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Stands in for an upload server on localhost. Records every request and answers with a
+ * configurable status.
+ */
+class LocalUploadServer {
+    static class Request {
+        final String path;
+        final Headers headers;
+        final byte[] body;
+
+        Request(String path, Headers headers, byte[] body) {
+            this.path = path;
+            this.headers = headers;
+            this.body = body;
+        }
+    }
+
+    private final HttpServer server;
+    private final List<Request> requests = new ArrayList<>();
+    private volatile int status = 200;
+
+    LocalUploadServer() throws IOException {
+        this.server = HttpServer.create(new InetSocketAddress(InetAddress.getLoopbackAddress(), 0), 0);
+        this.server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                byte[] body = readAll(exchange.getRequestBody());
+                synchronized (requests) {
+                    requests.add(new Request(exchange.getRequestURI().getPath(), exchange.getRequestHeaders(), body));
+                }
+
+                exchange.sendResponseHeaders(status, -1);
+                exchange.close();
+            }
+        });
+        this.server.start();
+    }
+
+    String url(String path) {
+        return "http://127.0.0.1:" + this.server.getAddress().getPort() + path;
+    }
+
+    void setStatus(int status) {
+        this.status = status;
+    }
+
+    List<Request> getRequests() {
+        synchronized (this.requests) {
+            return new ArrayList<>(this.requests);
+        }
+    }
+
+    void stop() {
+        this.server.stop(0);
+    }
+
+    private static byte[] readAll(InputStream in) throws IOException {
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        byte[] buffer = new byte[8192];
+        int count;
+        while ((count = in.read(buffer)) > 0) {
+            out.write(buffer, 0, count);
+        }
+
+        return out.toByteArray();
+    }
+}
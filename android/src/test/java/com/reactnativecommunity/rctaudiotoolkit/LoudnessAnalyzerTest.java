@@ -0,0 +1,33 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class LoudnessAnalyzerTest {
+    private static int gainFor(double loudness, double peak) {
+        return LoudnessAnalyzer.gainFor(new LoudnessAnalyzer.Result(loudness, peak), -18);
+    }
+
+    @Test
+    public void reachesTarget() {
+        assertEquals(-600, gainFor(-12, -1));
+        assertEquals(500, gainFor(-23, -10));
+    }
+
+    @Test
+    public void keepsPeakBelowFullScale() {
+        assertEquals(300, gainFor(-26, -3));
+    }
+
+    @Test
+    public void limitsBoost() {
+        assertEquals(1200, gainFor(-40, -30));
+    }
+
+    @Test
+    public void leavesNearSilenceAlone() {
+        assertEquals(0, gainFor(-60, -50));
+        assertEquals(0, gainFor(LoudnessAnalyzer.MIN_LOUDNESS, -90));
+    }
+}
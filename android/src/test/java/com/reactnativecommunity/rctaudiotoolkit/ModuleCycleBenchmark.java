@@ -0,0 +1,152 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import com.facebook.react.bridge.JavaOnlyMap;
+import com.facebook.react.bridge.ReadableMap;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.io.File;
+import java.nio.file.Files;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Prepare/play/destroy and prepare/record/stop cycles per second through the modules, with fake
+ * backends that complete immediately, so that only the modules' own bookkeeping and the hops to the
+ * native modules thread are measured. Each call waits for its callback, like awaiting the promise
+ * in JS. Add `-prof gc` to see the allocations per cycle. Run `main()` from the IDE, or with the
+ * unit test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ModuleCycleBenchmark {
+    private static final String PATH = "data:audio/wav;base64,UklGRg==";
+    private static final int IDS = 8;
+
+    private File dir;
+    private FakeReactContext context;
+    private AudioPlayerModule players;
+    private AudioRecorderModule recorders;
+    private ReadableMap playerOptions;
+    private ReadableMap recorderOptions;
+    private int cycle;
+
+    @Setup
+    public void setUp() throws Exception {
+        this.dir = Files.createTempDirectory("ModuleCycleBenchmark").toFile();
+        this.context = new FakeReactContext(this.dir);
+        this.players = new AudioPlayerModule(this.context, new FakePlayerBackend.Factory(this.context.queue));
+        this.recorders = new AudioRecorderModule(this.context, new FakeRecorderBackend.Factory());
+        // There is no AudioManager to request focus from
+        this.playerOptions = JavaOnlyMap.of("mixWithOthers", true, "autoDestroy", false);
+        this.recorderOptions = new JavaOnlyMap();
+    }
+
+    @TearDown
+    public void tearDown() throws Exception {
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                players.onCatalystInstanceDestroy();
+                recorders.onCatalystInstanceDestroy();
+            }
+        });
+        this.context.shutdown();
+
+        File[] files = this.dir.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        this.dir.delete();
+    }
+
+    private static void check(FakeReactContext.Result result) throws InterruptedException {
+        Map<String, Object> err = result.error();
+        if (err != null) {
+            throw new IllegalStateException(err.toString());
+        }
+    }
+
+    @Benchmark
+    public void playerCycle() throws Exception {
+        final int playerId = this.cycle++ % IDS;
+        final FakeReactContext.Result prepared = new FakeReactContext.Result();
+        final FakeReactContext.Result played = new FakeReactContext.Result();
+        final FakeReactContext.Result destroyed = new FakeReactContext.Result();
+
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                players.prepare(playerId, PATH, playerOptions, prepared);
+            }
+        });
+        check(prepared);
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                players.play(playerId, played);
+            }
+        });
+        check(played);
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                players.destroy(playerId, destroyed);
+            }
+        });
+        check(destroyed);
+    }
+
+    @Benchmark
+    public void recorderCycle() throws Exception {
+        final int recorderId = this.cycle++ % IDS;
+        final FakeReactContext.Result prepared = new FakeReactContext.Result();
+        final FakeReactContext.Result recorded = new FakeReactContext.Result();
+        final FakeReactContext.Result stopped = new FakeReactContext.Result();
+
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                recorders.prepare(recorderId, "recording.mp4", recorderOptions, prepared);
+            }
+        });
+        check(prepared);
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                recorders.record(recorderId, recorded);
+            }
+        });
+        check(recorded);
+        this.context.run(new Runnable() {
+            @Override
+            public void run() {
+                recorders.stop(recorderId, stopped);
+            }
+        });
+        check(stopped);
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(ModuleCycleBenchmark.class.getSimpleName()).build()).run();
+    }
+}
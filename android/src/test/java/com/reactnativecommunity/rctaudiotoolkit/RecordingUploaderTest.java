@@ -0,0 +1,213 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RecordingUploaderTest {
+    private static final int CHUNK_SIZE = 1000;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private LocalUploadServer server;
+    private File cacheDir;
+    private File recording;
+    private byte[] contents;
+
+    private static class Result implements RecordingUploader.Listener {
+        final CountDownLatch latch = new CountDownLatch(1);
+        volatile long size = -1;
+        volatile String error;
+
+        @Override
+        public void onUploadFinished(RecordingUploader uploader, long size, int chunks) {
+            this.size = size;
+            this.latch.countDown();
+        }
+
+        @Override
+        public void onUploadError(RecordingUploader uploader, String message) {
+            this.error = message;
+            this.latch.countDown();
+        }
+
+        void await() throws InterruptedException {
+            assertTrue("Upload didn't complete", this.latch.await(10, TimeUnit.SECONDS));
+        }
+    }
+
+    @Before
+    public void setUp() throws IOException {
+        this.server = new LocalUploadServer();
+        this.cacheDir = this.folder.newFolder("cache");
+        this.recording = this.folder.newFile("recording.mp4");
+
+        this.contents = new byte[2500];
+        new Random(1).nextBytes(this.contents);
+        FileOutputStream out = new FileOutputStream(this.recording);
+        try {
+            out.write(this.contents);
+        } finally {
+            out.close();
+        }
+    }
+
+    @After
+    public void tearDown() {
+        this.server.stop();
+    }
+
+    private JSONObject options() throws Exception {
+        JSONObject headers = new JSONObject();
+        headers.put("Authorization", "Bearer secret");
+
+        JSONObject options = new JSONObject();
+        options.put("url", this.server.url("/chunks"));
+        options.put("manifestUrl", this.server.url("/manifest"));
+        options.put("headers", headers);
+        options.put("chunkSize", CHUNK_SIZE);
+        options.put("maxAttempts", 1);
+        return options;
+    }
+
+    private File journal() {
+        return new File(this.cacheDir, "RCTAudioToolkitUpload-upload.json");
+    }
+
+    @Test
+    public void uploadsChunksAndManifest() throws Exception {
+        JSONObject options = options();
+        Result result = new Result();
+        RecordingUploader uploader = new RecordingUploader("upload", this.recording, this.cacheDir, options,
+                UploadTransport.Factory.HTTP.create(options), result);
+
+        uploader.start();
+        assertTrue(uploader.finish());
+        result.await();
+
+        assertNull(result.error);
+        assertEquals(this.contents.length, result.size);
+        assertFalse(journal().exists());
+
+        ByteArrayOutputStream uploaded = new ByteArrayOutputStream();
+        List<LocalUploadServer.Request> requests = this.server.getRequests();
+        for (LocalUploadServer.Request request : requests.subList(0, requests.size() - 1)) {
+            assertEquals("/chunks", request.path);
+            uploaded.write(request.body);
+        }
+        assertArrayEquals(this.contents, uploaded.toByteArray());
+
+        LocalUploadServer.Request manifest = requests.get(requests.size() - 1);
+        assertEquals("/manifest", manifest.path);
+        JSONArray chunks = new JSONObject(new String(manifest.body, "UTF-8")).getJSONArray("chunks");
+        assertEquals(3, chunks.length());
+    }
+
+    @Test
+    public void journalLeavesOutHeaders() throws Exception {
+        this.server.setStatus(500);
+
+        JSONObject options = options();
+        Result result = new Result();
+        RecordingUploader uploader = new RecordingUploader("upload", this.recording, this.cacheDir, options,
+                UploadTransport.Factory.HTTP.create(options), result);
+
+        uploader.start();
+        uploader.finish();
+        result.await();
+
+        assertEquals("Bearer secret", this.server.getRequests().get(0).headers.getFirst("Authorization"));
+        assertTrue(journal().exists());
+
+        String journal = new String(Files.readAllBytes(journal().toPath()), "UTF-8");
+        assertFalse(journal.contains("secret"));
+        assertFalse(journal.contains("headers"));
+    }
+
+    @Test
+    public void finishFailsAfterError() throws Exception {
+        this.server.setStatus(500);
+
+        JSONObject options = options();
+        Result result = new Result();
+        RecordingUploader uploader = new RecordingUploader("upload", this.recording, this.cacheDir, options,
+                UploadTransport.Factory.HTTP.create(options), result);
+
+        uploader.start();
+        uploader.finish();
+        result.await();
+
+        assertFalse(uploader.finish());
+    }
+
+    @Test
+    public void resumeSendsSuppliedHeaders() throws Exception {
+        this.server.setStatus(500);
+
+        JSONObject options = options();
+        Result failed = new Result();
+        RecordingUploader uploader = new RecordingUploader("upload", this.recording, this.cacheDir, options,
+                UploadTransport.Factory.HTTP.create(options), failed);
+        uploader.start();
+        uploader.finish();
+        failed.await();
+        int failedRequests = this.server.getRequests().size();
+
+        this.server.setStatus(200);
+        JSONObject headers = new JSONObject();
+        headers.put("Authorization", "Bearer renewed");
+
+        Result result = new Result();
+        List<RecordingUploader> uploaders = RecordingUploader.resume(this.cacheDir, Collections.<String>emptySet(),
+                headers, UploadTransport.Factory.HTTP, result);
+        assertEquals(1, uploaders.size());
+
+        uploaders.get(0).start();
+        result.await();
+
+        assertNull(result.error);
+        assertEquals(this.contents.length, result.size);
+        List<LocalUploadServer.Request> requests = this.server.getRequests();
+        for (LocalUploadServer.Request request : requests.subList(failedRequests, requests.size())) {
+            assertEquals("Bearer renewed", request.headers.getFirst("Authorization"));
+        }
+    }
+
+    @Test
+    public void resumeSkipsActiveUploads() throws Exception {
+        this.server.setStatus(500);
+
+        JSONObject options = options();
+        Result failed = new Result();
+        RecordingUploader uploader = new RecordingUploader("upload", this.recording, this.cacheDir, options,
+                UploadTransport.Factory.HTTP.create(options), failed);
+        uploader.start();
+        failed.await();
+
+        List<RecordingUploader> uploaders = RecordingUploader.resume(this.cacheDir, Collections.singleton("upload"),
+                null, UploadTransport.Factory.HTTP, new Result());
+        assertTrue(uploaders.isEmpty());
+    }
+}
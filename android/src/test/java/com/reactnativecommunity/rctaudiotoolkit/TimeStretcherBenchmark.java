@@ -0,0 +1,77 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+import org.openjdk.jmh.runner.Runner;
+import org.openjdk.jmh.runner.RunnerException;
+import org.openjdk.jmh.runner.options.OptionsBuilder;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Time to stretch one second of 44.1 kHz stereo in the 20 ms chunks StreamPlayer uses; anything
+ * well below 1000 ms per operation keeps up with real time. Run `main()` from the IDE, or with the
+ * unit test classpath.
+ */
+@State(Scope.Thread)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class TimeStretcherBenchmark {
+    private static final int SAMPLE_RATE = 44100;
+    private static final int CHANNELS = 2;
+    private static final int CHUNK = SAMPLE_RATE / 50 * 2 * CHANNELS;
+
+    @Param({"0.5", "1.25", "2.0"})
+    public float speed;
+
+    @Param({"1.0", "1.5"})
+    public float pitch;
+
+    private TimeStretcher stretcher;
+    private byte[] input;
+    private byte[] chunk;
+
+    @Setup
+    public void setUp() {
+        this.stretcher = new TimeStretcher(SAMPLE_RATE, CHANNELS);
+        this.stretcher.setRate(this.speed, this.pitch);
+        this.input = TimeStretcherTest.sine(SAMPLE_RATE, CHANNELS, 440);
+        this.chunk = new byte[CHUNK];
+    }
+
+    @Benchmark
+    public int stretchOneSecond() {
+        int produced = 0;
+        int offset = 0;
+
+        while (offset < this.input.length) {
+            int length = this.stretcher.read(this.chunk, 0, this.chunk.length);
+            if (length > 0) {
+                produced += length;
+                continue;
+            }
+
+            int count = Math.min(Math.min(CHUNK, this.input.length - offset), this.stretcher.writableBytes());
+            this.stretcher.write(this.input, offset, count);
+            offset += count;
+        }
+
+        return produced;
+    }
+
+    public static void main(String[] args) throws RunnerException {
+        new Runner(new OptionsBuilder().include(TimeStretcherBenchmark.class.getSimpleName()).build()).run();
+    }
+}
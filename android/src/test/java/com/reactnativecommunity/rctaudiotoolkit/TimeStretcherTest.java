@@ -0,0 +1,140 @@
+package com.reactnativecommunity.rctaudiotoolkit;
+
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TimeStretcherTest {
+    private static final int SAMPLE_RATE = 44100;
+
+    static byte[] sine(int frames, int channels, double frequency) {
+        byte[] pcm = new byte[frames * 2 * channels];
+        for (int i = 0; i < frames; i++) {
+            short value = (short) (10000 * Math.sin(2 * Math.PI * frequency * i / SAMPLE_RATE));
+            for (int c = 0; c < channels; c++) {
+                int index = (i * channels + c) * 2;
+                pcm[index] = (byte) value;
+                pcm[index + 1] = (byte) (value >> 8);
+            }
+        }
+        return pcm;
+    }
+
+    // Feed the input in chunks the way StreamPlayer does, and collect everything that comes out
+    static short[] process(TimeStretcher stretcher, byte[] input, int chunkLength) {
+        ByteArrayOutputStream output = new ByteArrayOutputStream();
+        byte[] chunk = new byte[chunkLength];
+        int offset = 0;
+
+        while (true) {
+            int length = stretcher.read(chunk, 0, chunk.length);
+            if (length > 0) {
+                output.write(chunk, 0, length);
+            } else if (offset < input.length) {
+                int count = Math.min(Math.min(chunkLength, input.length - offset), stretcher.writableBytes());
+                stretcher.write(input, offset, count);
+                offset += count;
+                if (offset == input.length) {
+                    stretcher.end();
+                }
+            } else {
+                break;
+            }
+        }
+
+        byte[] bytes = output.toByteArray();
+        short[] samples = new short[bytes.length / 2];
+        for (int i = 0; i < samples.length; i++) {
+            samples[i] = (short) ((bytes[2 * i] & 0xFF) | (bytes[2 * i + 1] << 8));
+        }
+        return samples;
+    }
+
+    private static short[] stretch(int channels, float speed, float pitch, byte[] input) {
+        TimeStretcher stretcher = new TimeStretcher(SAMPLE_RATE, channels);
+        stretcher.setRate(speed, pitch);
+        return process(stretcher, input, 3528);
+    }
+
+    private static double frequency(short[] samples, int channels) {
+        int crossings = 0;
+        for (int i = channels; i < samples.length; i += channels) {
+            if ((samples[i - channels] < 0) != (samples[i] < 0)) {
+                crossings++;
+            }
+        }
+        return crossings / 2.0 / ((double) samples.length / channels / SAMPLE_RATE);
+    }
+
+    private static int maxStep(short[] samples, int channels) {
+        int max = 0;
+        for (int i = channels; i < samples.length; i++) {
+            max = Math.max(max, Math.abs(samples[i] - samples[i - channels]));
+        }
+        return max;
+    }
+
+    @Test
+    public void unchangedRatePassesThrough() {
+        byte[] input = sine(SAMPLE_RATE, 2, 440);
+        short[] output = stretch(2, 1.0f, 1.0f, input);
+
+        assertEquals(SAMPLE_RATE, output.length / 2, 10);
+        for (int i = 0; i < output.length; i++) {
+            short expected = (short) ((input[2 * i] & 0xFF) | (input[2 * i + 1] << 8));
+            assertEquals(expected, output[i], 100);
+        }
+    }
+
+    @Test
+    public void speedChangesDurationButNotPitch() {
+        byte[] input = sine(3 * SAMPLE_RATE, 1, 440);
+
+        for (float speed : new float[]{0.5f, 1.5f, 2.0f}) {
+            short[] output = stretch(1, speed, 1.0f, input);
+
+            assertEquals(3 * SAMPLE_RATE / speed, output.length, SAMPLE_RATE * 0.05);
+            assertEquals(440, frequency(output, 1), 2);
+        }
+    }
+
+    @Test
+    public void pitchChangesFrequencyButNotDuration() {
+        byte[] input = sine(3 * SAMPLE_RATE, 2, 440);
+
+        for (float pitch : new float[]{0.5f, 1.5f, 2.0f}) {
+            short[] output = stretch(2, 1.0f, pitch, input);
+
+            assertEquals(3 * SAMPLE_RATE, output.length / 2, SAMPLE_RATE * 0.05);
+            assertEquals(440 * pitch, frequency(output, 2), 3);
+        }
+    }
+
+    @Test
+    public void segmentsJoinWithoutClicks() {
+        byte[] input = sine(2 * SAMPLE_RATE, 1, 440);
+        // Largest step between samples of the input sine
+        int limit = (int) Math.ceil(10000 * 2 * Math.PI * 440 / SAMPLE_RATE) + 2;
+
+        for (float speed : new float[]{0.8f, 1.3f, 3.0f}) {
+            assertTrue("speed " + speed, maxStep(stretch(1, speed, 1.0f, input), 1) <= limit);
+        }
+    }
+
+    @Test
+    public void resetDropsBufferedAudio() {
+        TimeStretcher stretcher = new TimeStretcher(SAMPLE_RATE, 1);
+        stretcher.setRate(1.5f, 1.0f);
+
+        byte[] input = sine(SAMPLE_RATE / 10, 1, 440);
+        stretcher.write(input, 0, input.length);
+        assertTrue(stretcher.hasPending());
+
+        stretcher.reset();
+        assertTrue(!stretcher.hasPending());
+        assertEquals(0, stretcher.read(new byte[4096], 0, 4096));
+    }
+}
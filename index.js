@@ -3,5 +3,8 @@
 import Player, { PlaybackCategories } from './src/Player';
 import Recorder from './src/Recorder';
 import MediaStates from './src/MediaStates';
+import Metrics from './src/Metrics';
+import Transcoder from './src/Transcoder';
+import StreamPlayer from './src/StreamPlayer';
 
-export { Player, Recorder, MediaStates, PlaybackCategories };
+export { Player, Recorder, MediaStates, PlaybackCategories, Metrics, Transcoder, StreamPlayer };
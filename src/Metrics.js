@@ -0,0 +1,42 @@
+import { NativeModules } from 'react-native';
+
+// Only import specific items from lodash to keep build size down
+import noop from 'lodash/noop';
+
+const RCTAudioPlayer = NativeModules.AudioPlayer;
+
+const notSupported = callback => {
+  setTimeout(() => callback({ err: 'notsupported', message: 'Metrics are only supported on Android' }), 0);
+};
+
+/**
+ * Latency histograms and error counters collected natively for player and
+ * recorder operations
+ */
+const Metrics = {
+  get(callback = noop) {
+    if (!RCTAudioPlayer.getMetrics) {
+      notSupported(callback);
+      return;
+    }
+
+    RCTAudioPlayer.getMetrics(callback);
+  },
+
+  reset(callback = noop) {
+    if (!RCTAudioPlayer.resetMetrics) {
+      notSupported(callback);
+      return;
+    }
+
+    RCTAudioPlayer.resetMetrics(callback);
+  },
+
+  setTracingEnabled(enabled) {
+    if (RCTAudioPlayer.setTracingEnabled) {
+      RCTAudioPlayer.setTracingEnabled(enabled);
+    }
+  },
+};
+
+export default Metrics;
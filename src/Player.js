@@ -12,8 +12,14 @@ import noop from 'lodash/noop';
 
 const RCTAudioPlayer = NativeModules.AudioPlayer;
 
+// Synchronous native methods are unavailable when debugging JS remotely
+const canCallSync = () => global.nativeCallSyncHook != null && RCTAudioPlayer.getCurrentTimeSync != null;
+
 let playerId = 0;
 
+// Stream players share the event namespace with players, so they draw from the same ids
+export const nextPlayerId = () => playerId++;
+
 export const PlaybackCategories = {
   Playback: 1,
   Ambient: 2,
@@ -23,6 +29,7 @@ export const PlaybackCategories = {
 const defaultPlayerOptions = {
   autoDestroy: true,
   continuesToPlayInBackground: false,
+  foregroundService: false,
   category: PlaybackCategories.Playback,
   mixWithOthers: false,
 };
@@ -45,6 +52,8 @@ class Player extends EventEmitter {
         options.autoDestroy = defaultPlayerOptions.autoDestroy;
       if (options.continuesToPlayInBackground == null)
         options.continuesToPlayInBackground = defaultPlayerOptions.continuesToPlayInBackground;
+      if (options.foregroundService == null)
+        options.foregroundService = defaultPlayerOptions.foregroundService;
       if (options.category == null)
         options.category = defaultPlayerOptions.category;
       if (options.mixWithOthers == null)
@@ -53,7 +62,7 @@ class Player extends EventEmitter {
       this._options = options;
     }
 
-    this._playerId = playerId++;
+    this._playerId = nextPlayerId();
     this._reset();
 
     const appEventEmitter = Platform.OS === 'ios' ? NativeAppEventEmitter : DeviceEventEmitter;
@@ -73,6 +82,11 @@ class Player extends EventEmitter {
     this._position = -1;
     this._lastSync = -1;
     this._looping = false;
+    this._loopStart = null;
+    this._loopEnd = null;
+    this._gain = null;
+    this._equalizer = null;
+    this._scrubbing = false;
   }
 
   _storeInfo(info) {
@@ -119,10 +133,20 @@ class Player extends EventEmitter {
         this._storeInfo(data.info);
         break;
       case 'forcePause':
-        this.pause();
+        // Playback was already paused on the native side
+        this._state = MediaStates.PAUSED;
+        this._storeInfo(data.info);
+        break;
+      case 'resume':
+        this._state = MediaStates.PLAYING;
+        this._storeInfo(data.info);
+        break;
+      case 'evicted':
+        // The player is prepared again transparently on its next use
+        this._storeInfo(data.info);
         break;
       case 'looped':
-        this._position = 0;
+        this._position = this._loopStart || 0;
         this._lastSync = Date.now();
         break;
     }
@@ -130,6 +154,190 @@ class Player extends EventEmitter {
     this.emit(event, data);
   }
 
+  /**
+   * Measure the loudness of the given files. Results are cached on disk, so
+   * that `normalizeLoudness` can apply them when a player is prepared.
+   */
+  static analyzeLoudness(paths, options = {}, callback = noop) {
+    if (!RCTAudioPlayer.analyzeLoudness) {
+      setTimeout(() => callback({ err: 'notsupported', message: 'Loudness analysis is only supported on Android' }), 0);
+      return;
+    }
+
+    RCTAudioPlayer.analyzeLoudness(paths, options, callback);
+  }
+
+  /**
+   * Read duration and stream information of the given files without
+   * preparing a player for each of them.
+   */
+  static probe(paths, callback = noop) {
+    if (!RCTAudioPlayer.probe) {
+      setTimeout(() => callback({ err: 'notsupported', message: 'Probing is only supported on Android' }), 0);
+      return;
+    }
+
+    RCTAudioPlayer.probe(paths, callback);
+  }
+
+  /**
+   * Run a batch command for many players in a single native call. Falls back
+   * to calling `fallback` with each index on platforms without batch support.
+   */
+  static _batch(method, players, args, fallback, onResult, callback) {
+    if (!RCTAudioPlayer[method]) {
+      async.times(players.length, (i, next) => {
+        fallback(i, (err) => next(null, err || null));
+      }, (err, errors) => callback(null, errors));
+      return;
+    }
+
+    RCTAudioPlayer[method](args, (err, results) => {
+      if (err) {
+        callback(err);
+        return;
+      }
+
+      const errors = results.map((result, i) => {
+        onResult(players[i], result.err || null, result.info);
+        return result.err || null;
+      });
+      callback(null, errors);
+    });
+  }
+
+  /**
+   * Start playback of many prepared players at once. Callback receives an
+   * array with an error or `null` for every player.
+   */
+  static playMany(players, callback = noop) {
+    Player._batch(
+      'playMany',
+      players,
+      players.map(player => player._playerId),
+      (i, next) => players[i].play(next),
+      (player, err, info) => player._updateState(err, MediaStates.PLAYING, [info]),
+      callback,
+    );
+  }
+
+  static pauseMany(players, callback = noop) {
+    Player._batch(
+      'pauseMany',
+      players,
+      players.map(player => player._playerId),
+      (i, next) => players[i].pause(next),
+      (player, err, info) => {
+        // Android emits a pause event on the native side
+        if (Platform.OS === 'ios') {
+          player._updateState(err, MediaStates.PAUSED, [info]);
+        }
+      },
+      callback,
+    );
+  }
+
+  /**
+   * Apply options to many players at once. `commands` is an array of
+   * `{ player, options }` objects, where options are the same as accepted by
+   * the property setters, e.g. `{ volume: 0.5 }`.
+   */
+  static setMany(commands, callback = noop) {
+    const players = commands.map(command => command.player);
+
+    commands.forEach(({ player, options }) => player._storeOptions(options));
+
+    Player._batch(
+      'setMany',
+      players,
+      commands.map(({ player, options }) => ({ playerId: player._playerId, options })),
+      (i, next) => RCTAudioPlayer.set(players[i]._playerId, commands[i].options, next),
+      noop,
+      callback,
+    );
+  }
+
+  static destroyMany(players, callback = noop) {
+    players.forEach(player => player._reset());
+
+    Player._batch(
+      'destroyMany',
+      players,
+      players.map(player => player._playerId),
+      (i, next) => RCTAudioPlayer.destroy(players[i]._playerId, next),
+      noop,
+      callback,
+    );
+  }
+
+  /**
+   * Limit the number of prepared players. Idle players beyond the limit are
+   * released, least recently used first, and prepared again when used.
+   */
+  static setMaxPreparedPlayers(count) {
+    if (RCTAudioPlayer.setMaxPreparedPlayers) {
+      RCTAudioPlayer.setMaxPreparedPlayers(count);
+    }
+  }
+
+  /**
+   * Recreate the players that existed when the app was last running, with
+   * their speed, volume and loop settings, prepared and seeked back to where
+   * they were. Callback receives an array of the restored players.
+   */
+  static restoreSessions(callback = noop) {
+    if (!RCTAudioPlayer.restoreSessions) {
+      setTimeout(() => callback({ err: 'notsupported', message: 'Restoring sessions is only supported on Android' }), 0);
+      return;
+    }
+
+    RCTAudioPlayer.getSessions((err, sessions) => {
+      if (err) {
+        callback(err);
+        return;
+      }
+
+      const players = sessions.map((session) => {
+        const player = new Player(session.path, { autoDestroy: false });
+        player._storeOptions({
+          volume: session.volume,
+          speed: session.speed,
+          looping: session.looping,
+          loopStart: session.loopStart != null ? session.loopStart : null,
+          loopEnd: session.loopEnd != null ? session.loopEnd : null,
+        });
+        player._updateState(null, MediaStates.PREPARING);
+        return player;
+      });
+
+      const commands = players.map(player => ({ playerId: player._playerId, options: player._options }));
+
+      RCTAudioPlayer.restoreSessions(commands, (err, results) => {
+        if (err) {
+          callback(err);
+          return;
+        }
+
+        results.forEach((result, i) => {
+          players[i]._updateState(result.err || null, MediaStates.PREPARED, [result.info]);
+        });
+        callback(null, players);
+      });
+    });
+  }
+
+  // Remember option values that were set natively without going through the property setters
+  _storeOptions(options) {
+    if (options.volume != null) this._volume = options.volume;
+    if (options.wakeLock != null) this._wakeLock = options.wakeLock;
+    if (options.looping != null) this._looping = options.looping;
+    if (options.loopStart !== undefined) this._loopStart = options.loopStart;
+    if (options.loopEnd !== undefined) this._loopEnd = options.loopEnd;
+    if (options.speed != null) this._speed = options.speed;
+    if (options.gain !== undefined) this._gain = options.gain;
+    if (options.equalizer !== undefined) this._equalizer = options.equalizer;
+  }
+
   prepare(callback = noop) {
     this._updateState(null, MediaStates.PREPARING);
 
@@ -142,17 +350,30 @@ class Player extends EventEmitter {
 
     // Set initial values for player options
     tasks.push((next) => {
-      RCTAudioPlayer.set(
-        this._playerId,
-        {
-          volume: this._volume,
-          pan: this._pan,
-          wakeLock: this._wakeLock,
-          looping: this._looping,
-          speed: this._speed,
-        },
-        next,
-      );
+      const options = {
+        volume: this._volume,
+        pan: this._pan,
+        wakeLock: this._wakeLock,
+        looping: this._looping,
+        speed: this._speed,
+      };
+
+      // Only send effects that were explicitly set, so that a gain cached
+      // natively for this file is not overridden
+      if (this._gain != null) {
+        options.gain = this._gain;
+      }
+      if (this._equalizer != null) {
+        options.equalizer = this._equalizer;
+      }
+      if (this._loopStart != null) {
+        options.loopStart = this._loopStart;
+      }
+      if (this._loopEnd != null) {
+        options.loopEnd = this._loopEnd;
+      }
+
+      RCTAudioPlayer.set(this._playerId, options, next);
     });
 
     async.series(tasks, (err, results) => {
@@ -227,6 +448,30 @@ class Player extends EventEmitter {
     RCTAudioPlayer.destroy(this._playerId, callback);
   }
 
+  /**
+   * Emit `spectrum` events with band levels in dBFS of what is played.
+   * Options are `fftSize`, `window`, `bands` and `interval`.
+   */
+  startAnalyzer(options = {}, callback = noop) {
+    if (!RCTAudioPlayer.startAnalyzer) {
+      setTimeout(() => callback({ err: 'notsupported', message: 'Spectrum analysis is only supported on Android' }), 0);
+      return this;
+    }
+
+    RCTAudioPlayer.startAnalyzer(this._playerId, options, callback);
+    return this;
+  }
+
+  stopAnalyzer(callback = noop) {
+    if (!RCTAudioPlayer.stopAnalyzer) {
+      setTimeout(callback, 0);
+      return this;
+    }
+
+    RCTAudioPlayer.stopAnalyzer(this._playerId, callback);
+    return this;
+  }
+
   seek(position = 0, callback = noop) {
     // Store old state, but not if it was already SEEKING
     if (this._state != MediaStates.SEEKING) {
@@ -270,12 +515,51 @@ class Player extends EventEmitter {
     this._setIfInitialized({ looping: value });
   }
 
+  set loopStart(value) {
+    this._loopStart = value;
+    this._setIfInitialized({ loopStart: value });
+  }
+
+  set loopEnd(value) {
+    this._loopEnd = value;
+    this._setIfInitialized({ loopEnd: value });
+  }
+
   set speed(value) {
     this._speed = value;
     this._setIfInitialized({ speed: value });
   }
 
+  set scrubbing(value) {
+    this._scrubbing = value;
+    this._setIfInitialized({ scrubbing: value });
+  }
+
+  set gain(value) {
+    this._gain = value;
+    this._setIfInitialized({ gain: value });
+  }
+
+  set equalizer(value) {
+    this._equalizer = value;
+    this._setIfInitialized({ equalizer: value });
+  }
+
+  // Native duration, position and playing state, or null if they can't be
+  // read synchronously
+  _getStatusSync() {
+    if (!canCallSync() || !RCTAudioPlayer.getStatusSync) {
+      return null;
+    }
+
+    return RCTAudioPlayer.getStatusSync(this._playerId);
+  }
+
   get currentTime() {
+    if (canCallSync()) {
+      return RCTAudioPlayer.getCurrentTimeSync(this._playerId);
+    }
+
     // Queue up an async call to get an accurate current time
     RCTAudioPlayer.getCurrentTime(this._playerId, (err, results) => {
       this._storeInfo(results);
@@ -301,8 +585,24 @@ class Player extends EventEmitter {
   get looping() {
     return this._looping;
   }
+  get loopStart() {
+    return this._loopStart;
+  }
+  get loopEnd() {
+    return this._loopEnd;
+  }
+  get scrubbing() {
+    return this._scrubbing;
+  }
+  get gain() {
+    return this._gain;
+  }
+  get equalizer() {
+    return this._equalizer;
+  }
   get duration() {
-    return this._duration;
+    const status = this._getStatusSync();
+    return status ? status.duration : this._duration;
   }
   get speed() {
     return this._speed;
@@ -321,7 +621,8 @@ class Player extends EventEmitter {
     return this._state == MediaStates.IDLE;
   }
   get isPlaying() {
-    return this._state == MediaStates.PLAYING;
+    const status = this._getStatusSync();
+    return status ? status.isPlaying : this._state == MediaStates.PLAYING;
   }
   get isStopped() {
     return this._state <= MediaStates.PREPARED;
@@ -48,6 +48,8 @@ class Recorder extends EventEmitter {
     this._duration = -1;
     this._position = -1;
     this._lastSync = -1;
+    this._meterLevel = -160;
+    this._startTime = -1;
   }
 
   _updateState(err, state) {
@@ -63,6 +65,9 @@ class Recorder extends EventEmitter {
       case 'info':
         // TODO
         break;
+      case 'meter':
+        this._meterLevel = data.value;
+        break;
       case 'error':
         this._reset();
         //this.emit('error', data);
@@ -97,7 +102,10 @@ class Recorder extends EventEmitter {
 
     // Start recording
     tasks.push((next) => {
-      RCTAudioRecorder.record(this._recorderId, next);
+      RCTAudioRecorder.record(this._recorderId, (err, info) => {
+        this._storeStartTime(info);
+        next(err);
+      });
     });
 
     async.series(tasks, (err) => {
@@ -108,6 +116,55 @@ class Recorder extends EventEmitter {
     return this;
   }
 
+  _storeStartTime(info) {
+    if (info && info.startTime != null) {
+      this._startTime = info.startTime;
+    }
+  }
+
+  /**
+   * Start many prepared recorders with a single native call, e.g. to capture
+   * several audio sources at once. Callback receives an array with an error or
+   * `null` for every recorder.
+   */
+  static recordMany(recorders, callback = noop) {
+    if (!RCTAudioRecorder.recordMany) {
+      async.times(recorders.length, (i, next) => {
+        recorders[i].record((err) => next(null, err || null));
+      }, (err, errors) => callback(null, errors));
+      return;
+    }
+
+    RCTAudioRecorder.recordMany(recorders.map(recorder => recorder._recorderId), (err, results) => {
+      if (err) {
+        callback(err);
+        return;
+      }
+
+      const errors = results.map((result, i) => {
+        recorders[i]._storeStartTime(result.info);
+        recorders[i]._updateState(result.err, MediaStates.RECORDING);
+        return result.err || null;
+      });
+      callback(null, errors);
+    });
+  }
+
+  /**
+   * Finish uploads that failed or were interrupted in an earlier session.
+   * The `headers` option is sent with every request, as request headers
+   * aren't persisted. Callback receives an array with a result for every
+   * upload.
+   */
+  static resumeUploads(options = {}, callback = noop) {
+    if (!RCTAudioRecorder.resumeUploads) {
+      setTimeout(() => callback(null, []), 0);
+      return;
+    }
+
+    RCTAudioRecorder.resumeUploads(options, callback);
+  }
+
   stop(callback = noop) {
     if (this._state >= MediaStates.RECORDING) {
       RCTAudioRecorder.stop(this._recorderId, (err) => {
@@ -134,6 +191,30 @@ class Recorder extends EventEmitter {
     return this;
   }
 
+  /**
+   * Emit `spectrum` events with band levels in dBFS of the input while
+   * recording. Options are `fftSize`, `window`, `bands` and `interval`.
+   */
+  startAnalyzer(options = {}, callback = noop) {
+    if (!RCTAudioRecorder.startAnalyzer) {
+      setTimeout(() => callback({ err: 'notsupported', message: 'Spectrum analysis is only supported on Android' }), 0);
+      return this;
+    }
+
+    RCTAudioRecorder.startAnalyzer(this._recorderId, options, callback);
+    return this;
+  }
+
+  stopAnalyzer(callback = noop) {
+    if (!RCTAudioRecorder.stopAnalyzer) {
+      setTimeout(callback, 0);
+      return this;
+    }
+
+    RCTAudioRecorder.stopAnalyzer(this._recorderId, callback);
+    return this;
+  }
+
   toggleRecord(callback = noop) {
     if (this._state === MediaStates.RECORDING) {
       this.stop((err) => {
@@ -153,12 +234,24 @@ class Recorder extends EventEmitter {
     RCTAudioRecorder.destroy(this._recorderId, callback);
   }
 
+  /**
+   * Latest metered input level in decibels, read synchronously where supported
+   */
+  get meterLevel() {
+    if (global.nativeCallSyncHook == null || RCTAudioRecorder.getMeterLevelSync == null) {
+      return this._meterLevel;
+    }
+
+    return RCTAudioRecorder.getMeterLevelSync(this._recorderId);
+  }
+
   get state()       { return this._state;                          }
   get canRecord()   { return this._state >= MediaStates.PREPARED;  }
   get canPrepare()  { return this._state == MediaStates.IDLE;      }
   get isRecording() { return this._state == MediaStates.RECORDING; }
   get isPrepared()  { return this._state == MediaStates.PREPARED;  }
   get fsPath()      { return this._fsPath; }
+  get startTime()   { return this._startTime; }
 }
 
 export default Recorder;
@@ -0,0 +1,244 @@
+'use strict';
+
+import {
+  NativeModules,
+  DeviceEventEmitter,
+} from 'react-native';
+
+import EventEmitter from 'eventemitter3';
+import MediaStates from './MediaStates';
+import { nextPlayerId } from './Player';
+
+// Only import specific items from lodash to keep build size down
+import noop from 'lodash/noop';
+
+var RCTAudioPlayer = NativeModules.AudioPlayer;
+
+const notSupported = callback => {
+  setTimeout(() => callback({ err: 'notsupported', message: 'Stream playback is only supported on Android' }), 0);
+};
+
+/**
+ * Plays 16-bit PCM that is appended in chunks with `write()`, starting as
+ * soon as enough has been buffered. Emits `bufferLevel`, `underrun` and,
+ * after `end()`, `ended` once everything has been played.
+ */
+class StreamPlayer extends EventEmitter {
+  constructor(options = {}) {
+    super();
+
+    this._playerId = nextPlayerId();
+    this._options = options;
+    this._state = MediaStates.IDLE;
+    this._volume = options.volume != null ? options.volume : 1.0;
+    this._speed = options.speed != null ? options.speed : 1.0;
+    this._pitch = options.pitch != null ? options.pitch : 1.0;
+    this._buffered = 0;
+    this._underruns = 0;
+    this._position = -1;
+
+    this._subscription = DeviceEventEmitter.addListener('RCTAudioPlayerEvent:' + this._playerId, (payload) => {
+      this._handleEvent(payload.event, payload.data);
+    });
+  }
+
+  _handleEvent(event, data) {
+    switch (event) {
+      case 'bufferLevel':
+        this._buffered = data.buffered;
+        break;
+      case 'underrun':
+        this._underruns = data.underruns;
+        break;
+      case 'ended':
+        this._state = MediaStates.PREPARED;
+        break;
+      case 'pause':
+      case 'forcePause':
+        this._state = MediaStates.PAUSED;
+        break;
+      case 'resume':
+        this._state = MediaStates.PLAYING;
+        break;
+    }
+
+    this.emit(event, data);
+  }
+
+  _storeInfo(err, info) {
+    if (!err && info) {
+      this._buffered = info.buffered;
+      this._underruns = info.underruns;
+      this._position = info.position;
+    }
+  }
+
+  /**
+   * Create the native stream. Options are `sampleRate` (default 44100),
+   * `channels` (1 or 2), `bufferDuration` and `startThreshold` in ms, and
+   * the initial `volume`, `speed` and `pitch`.
+   */
+  open(callback = noop) {
+    if (!RCTAudioPlayer.openStream) {
+      notSupported(callback);
+      return this;
+    }
+
+    RCTAudioPlayer.openStream(this._playerId, Object.assign({}, this._options, { volume: this._volume, speed: this._speed, pitch: this._pitch }), (err, info) => {
+      this._state = err ? MediaStates.ERROR : MediaStates.PREPARED;
+      this._storeInfo(err, info);
+      callback(err);
+    });
+
+    return this;
+  }
+
+  /**
+   * Append a base64 encoded chunk. Fails with `bufferfull` if there isn't
+   * room for it yet, in which case it should be written again later.
+   */
+  write(chunk, callback = noop) {
+    if (!RCTAudioPlayer.write) {
+      notSupported(callback);
+      return this;
+    }
+
+    RCTAudioPlayer.write(this._playerId, chunk, (err, info) => {
+      this._storeInfo(err, info);
+      callback(err);
+    });
+
+    return this;
+  }
+
+  /**
+   * Signal that no more chunks follow.
+   */
+  end(callback = noop) {
+    RCTAudioPlayer.endStream(this._playerId, callback);
+    return this;
+  }
+
+  play(callback = noop) {
+    RCTAudioPlayer.play(this._playerId, (err, info) => {
+      this._state = err ? MediaStates.ERROR : MediaStates.PLAYING;
+      this._storeInfo(err, info);
+      callback(err);
+    });
+
+    return this;
+  }
+
+  pause(callback = noop) {
+    RCTAudioPlayer.pause(this._playerId, (err) => {
+      callback(err);
+    });
+
+    return this;
+  }
+
+  /**
+   * Stop playback and drop everything buffered, so that a new stream can be
+   * written.
+   */
+  stop(callback = noop) {
+    RCTAudioPlayer.stop(this._playerId, (err) => {
+      this._state = MediaStates.PREPARED;
+      this._buffered = 0;
+      this._position = 0;
+      callback(err);
+    });
+
+    return this;
+  }
+
+  /**
+   * Emit `spectrum` events with band levels in dBFS of what is played, see
+   * `Player.startAnalyzer()`.
+   */
+  startAnalyzer(options = {}, callback = noop) {
+    RCTAudioPlayer.startAnalyzer(this._playerId, options, callback);
+    return this;
+  }
+
+  stopAnalyzer(callback = noop) {
+    RCTAudioPlayer.stopAnalyzer(this._playerId, callback);
+    return this;
+  }
+
+  destroy(callback = noop) {
+    this._subscription.remove();
+    this._state = MediaStates.DESTROYED;
+    RCTAudioPlayer.destroy(this._playerId, callback);
+  }
+
+  set volume(value) {
+    this._volume = value;
+    if (this._state !== MediaStates.IDLE && this._state !== MediaStates.DESTROYED) {
+      RCTAudioPlayer.set(this._playerId, { volume: value }, noop);
+    }
+  }
+
+  get volume() {
+    return this._volume;
+  }
+
+  /**
+   * Playback speed, changed natively without changing the pitch (0.25 to 4).
+   */
+  set speed(value) {
+    this._speed = value;
+    if (this._state !== MediaStates.IDLE && this._state !== MediaStates.DESTROYED) {
+      RCTAudioPlayer.set(this._playerId, { speed: value }, noop);
+    }
+  }
+
+  get speed() {
+    return this._speed;
+  }
+
+  /**
+   * Pitch factor, e.g. 2 for an octave up, independent of the speed (0.25 to 4).
+   */
+  set pitch(value) {
+    this._pitch = value;
+    if (this._state !== MediaStates.IDLE && this._state !== MediaStates.DESTROYED) {
+      RCTAudioPlayer.set(this._playerId, { pitch: value }, noop);
+    }
+  }
+
+  get pitch() {
+    return this._pitch;
+  }
+
+  get state() {
+    return this._state;
+  }
+
+  get isPlaying() {
+    return this._state === MediaStates.PLAYING;
+  }
+
+  /**
+   * Milliseconds played since the stream was opened or stopped. Read
+   * synchronously from native code, except when debugging JS remotely.
+   */
+  get currentTime() {
+    if (global.nativeCallSyncHook != null && RCTAudioPlayer.getCurrentTimeSync != null) {
+      return RCTAudioPlayer.getCurrentTimeSync(this._playerId);
+    }
+
+    return this._position;
+  }
+
+  /** Milliseconds of audio buffered natively, as of the last event or call. */
+  get buffered() {
+    return this._buffered;
+  }
+
+  get underruns() {
+    return this._underruns;
+  }
+}
+
+export default StreamPlayer;
@@ -0,0 +1,95 @@
+'use strict';
+
+import {
+  NativeModules,
+  DeviceEventEmitter,
+} from 'react-native';
+
+import EventEmitter from 'eventemitter3';
+
+// Only import specific items from lodash to keep build size down
+import noop from 'lodash/noop';
+
+var RCTAudioRecorder = NativeModules.AudioRecorder;
+
+var jobId = 0;
+
+const notSupported = callback => {
+  setTimeout(() => callback({ err: 'notsupported', message: 'Transcoding is only supported on Android' }), 0);
+};
+
+/**
+ * A queued or running transcoding job. Emits `progress` events with
+ * `{ progress }` between 0 and 1.
+ */
+class TranscodeJob extends EventEmitter {
+  constructor(src, dst, options, callback) {
+    super();
+
+    this._jobId = jobId++;
+
+    if (!RCTAudioRecorder.transcode) {
+      notSupported(callback);
+      return;
+    }
+
+    this._subscription = DeviceEventEmitter.addListener('RCTAudioTranscodeEvent:' + this._jobId, (payload) => {
+      this.emit(payload.event, payload.data);
+    });
+
+    RCTAudioRecorder.transcode(this._jobId, src, dst, options, (err, fsPath) => {
+      this._subscription.remove();
+      callback(err, fsPath);
+    });
+  }
+
+  /**
+   * Cancel the job. Its callback is called with a `cancelled` error.
+   */
+  cancel(callback = noop) {
+    if (!RCTAudioRecorder.cancelTranscode) {
+      setTimeout(callback, 0);
+      return;
+    }
+
+    RCTAudioRecorder.cancelTranscode(this._jobId, callback);
+  }
+}
+
+const Transcoder = {
+  /**
+   * Re-encode the file at `src` into `dst`, e.g. to compress a recording.
+   * Jobs run in the background, highest `priority` first.
+   */
+  transcode(src, dst, options = {}, callback = noop) {
+    return new TranscodeJob(src, dst, options, callback);
+  },
+
+  /**
+   * Copy the part of `src` between `startMs` and `endMs` into `dst` without
+   * re-encoding. A negative `endMs` keeps everything after `startMs`.
+   */
+  trim(src, dst, startMs, endMs = -1, callback = noop) {
+    if (!RCTAudioRecorder.trim) {
+      notSupported(callback);
+      return;
+    }
+
+    RCTAudioRecorder.trim(src, dst, startMs, endMs, callback);
+  },
+
+  /**
+   * Join files with the same codec, sample rate and channel count into `dst`
+   * without re-encoding.
+   */
+  concat(srcs, dst, callback = noop) {
+    if (!RCTAudioRecorder.concat) {
+      notSupported(callback);
+      return;
+    }
+
+    RCTAudioRecorder.concat(srcs, dst, callback);
+  },
+};
+
+export default Transcoder;
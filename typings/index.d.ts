@@ -29,13 +29,17 @@ interface BaseError<T> {
  * For more details, see:
  * https://github.com/react-native-community/react-native-audio-toolkit/blob/master/docs/API.md#user-content-callbacks
  */
-export type PlayerError = BaseError<"seekfail">;
+export type PlayerError = BaseError<"seekfail" | "analyzefail" | "probefail" | "analyzerfail" | "notsupported">;
+
+export type StreamError = BaseError<"bufferfull" | "invalidchunk" | "invalidformat" | "invalidstate" | "notsupported">;
 
 /**
  * For more details, see:
  * https://github.com/react-native-community/react-native-audio-toolkit/blob/master/docs/API.md#user-content-callbacks
  */
-export type RecorderError = BaseError<"notsupported">;
+export type RecorderError = BaseError<"notsupported" | "uploadfail" | "analyzerfail">;
+
+export type TranscodeError = BaseError<"notsupported" | "invalidpath" | "notfound" | "cancelled" | "transcodefail" | "editfail">;
 
 interface PlayerOptions {
     /**
@@ -52,6 +56,21 @@ interface PlayerOptions {
      */
     continuesToPlayInBackground?: boolean;
 
+    /**
+     * (Android only) While the app is in the background and this player continues to play, run a foreground
+     * service with a media notification and MediaSession. This keeps the app from being killed under memory
+     * pressure, so the player doesn't need to be prepared again, and allows pausing/resuming from the
+     * notification, lock screen and headset buttons. Requires `continuesToPlayInBackground`.
+     * (Default: false)
+     */
+    foregroundService?: boolean;
+
+    /**
+     * (Android only) Title shown in the playback notification when `foregroundService` is used.
+     * (Default: app name)
+     */
+    title?: string;
+
     /**
      * (iOS only) Define the audio session category
      * (Default: Playback)
@@ -64,6 +83,122 @@ interface PlayerOptions {
      * (Default: false)
      */
     mixWithOthers?: boolean;
+
+    /**
+     * (Android only) Apply the gain stored by `Player.analyzeLoudness()` for this file when it is prepared.
+     * (Default: false)
+     */
+    normalizeLoudness?: boolean;
+
+    /**
+     * (Android only) Loudness in LUFS that `normalizeLoudness` should bring the file to.
+     * (Default: -18)
+     */
+    targetLoudness?: number;
+}
+
+interface ProbeResult {
+    path: string;
+
+    /**
+     * Duration in milliseconds, `-1` if unknown.
+     */
+    duration?: number;
+
+    /**
+     * MIME type of the audio track, for example `audio/mp4a-latm`.
+     */
+    codec?: string;
+
+    /**
+     * Sample rate in Hz, `-1` if unknown.
+     */
+    sampleRate?: number;
+
+    /**
+     * Number of channels, `-1` if unknown.
+     */
+    channels?: number;
+
+    /**
+     * Bitrate in bits per second, `-1` if unknown.
+     */
+    bitrate?: number;
+
+    err?: PlayerError;
+}
+
+interface LoudnessOptions {
+    /**
+     * Loudness in LUFS that the returned `gain` should bring the file to. Files are boosted by at most
+     * 12 dB, and files quieter than -50 LUFS aren't changed. (Default: -18)
+     */
+    targetLoudness?: number;
+}
+
+interface LoudnessResult {
+    path: string;
+
+    /**
+     * Integrated loudness in LUFS.
+     */
+    loudness?: number;
+
+    /**
+     * Sample peak in dBFS.
+     */
+    peak?: number;
+
+    /**
+     * Gain in millibels that brings the file to the target loudness without clipping.
+     */
+    gain?: number;
+
+    err?: PlayerError;
+}
+
+interface AnalyzerOptions {
+    /**
+     * Number of samples per FFT, a power of two. Players other than streams are limited to 1024.
+     * (Default: 1024)
+     */
+    fftSize?: number;
+
+    /**
+     * Window applied before the FFT: 'hann', 'hamming', 'blackman' or 'rectangular' (Default: 'hann')
+     */
+    window?: string;
+
+    /**
+     * Number of logarithmically spaced bands between 20 Hz and Nyquist (Default: 32)
+     */
+    bands?: number;
+
+    /**
+     * Minimum milliseconds between `spectrum` events. Frames analyzed in between are coalesced. (Default: 50)
+     */
+    interval?: number;
+}
+
+/**
+ * Data of `spectrum` events.
+ */
+interface SpectrumData {
+    /**
+     * Level of each band in dBFS, from low to high frequencies, with -100 as the floor.
+     */
+    bands: number[];
+}
+
+interface PlayerSetOptions {
+    volume?: number;
+    wakeLock?: boolean;
+    looping?: boolean;
+    loopStart?: number | null;
+    loopEnd?: number | null;
+    speed?: number;
+    gain?: number | null;
+    equalizer?: number[] | null;
 }
 
 /**
@@ -78,6 +213,74 @@ declare class Player extends EventEmitter {
      */
     constructor(path: string, options?: PlayerOptions);
 
+    /**
+     * Read duration, codec, sample rate, channels and bitrate of the given files without preparing a player
+     * for each of them. Files are read in parallel and results are kept in an in-memory LRU cache. Android only.
+     *
+     * @param paths Paths to probe, in the same format as accepted by the constructor.
+     * @param callback Called once all files have been probed, with one result per path in the same order.
+     */
+    static probe(paths: string[], callback?: ((err: PlayerError | null, results: ProbeResult[]) => void)): void;
+
+    /**
+     * Measure integrated loudness and peak of the given files. Files are analyzed in parallel and results
+     * for local files are cached on disk, keyed by path, size and modification time. Android only.
+     *
+     * @param paths Paths to analyze, in the same format as accepted by the constructor.
+     * @param options
+     * @param callback Called once all files have been analyzed, with one result per path in the same order.
+     */
+    static analyzeLoudness(paths: string[], options?: LoudnessOptions,
+        callback?: ((err: PlayerError | null, results: LoudnessResult[]) => void)): void;
+
+    /**
+     * Start playback of many prepared players with a single native call.
+     *
+     * @param callback Called with an array containing an error or `null` for every player, in the same order.
+     */
+    static playMany(players: Player[], callback?: ((err: PlayerError | null, errors: (PlayerError | null)[]) => void)): void;
+
+    /**
+     * Pause many players with a single native call.
+     *
+     * @param callback Called with an array containing an error or `null` for every player, in the same order.
+     */
+    static pauseMany(players: Player[], callback?: ((err: PlayerError | null, errors: (PlayerError | null)[]) => void)): void;
+
+    /**
+     * Apply options to many players with a single native call. Options are the same as the writable
+     * properties of a player, e.g. `{ volume: 0.5 }`.
+     *
+     * @param callback Called with an array containing an error or `null` for every command, in the same order.
+     */
+    static setMany(commands: { player: Player, options: PlayerSetOptions }[],
+        callback?: ((err: PlayerError | null, errors: (PlayerError | null)[]) => void)): void;
+
+    /**
+     * Destroy many players with a single native call. The players should no longer be used.
+     *
+     * @param callback Called with an array containing an error or `null` for every player, in the same order.
+     */
+    static destroyMany(players: Player[], callback?: ((err: PlayerError | null, errors: (PlayerError | null)[]) => void)): void;
+
+    /**
+     * (Android only) Limit the number of prepared players. Idle players beyond the limit are released,
+     * least recently used first, and prepared again transparently when they are used. Idle players are
+     * also released when the system is low on memory.
+     *
+     * @param count Maximum number of prepared players, or 0 for no limit (default).
+     */
+    static setMaxPreparedPlayers(count: number): void;
+
+    /**
+     * (Android only) Recreate the players that existed when the app was last running. Each player is
+     * prepared and seeked back to its position, with its speed, volume and loop settings restored.
+     * Players of inline `data:` URLs are not persisted.
+     *
+     * @param callback Called with the restored players. Players that failed to prepare are in the `ERROR` state.
+     */
+    static restoreSessions(callback: ((err: PlayerError | null, players: Player[]) => void)): void;
+
     /**
      * Prepare playback of the file provided during initialization. This method is optional to call but might be
      * useful to preload the file so that the file starts playing immediately when calling `play()`.
@@ -125,6 +328,14 @@ declare class Player extends EventEmitter {
      */
     destroy(callback?: ((err: PlayerError | null) => void)): void;
 
+    /**
+     * (Android only) Emit `spectrum` events with the band levels of what is played. Uses a `Visualizer`, which
+     * requires the RECORD_AUDIO permission. The analyzer is released when the player is destroyed or evicted.
+     */
+    startAnalyzer(options?: AnalyzerOptions, callback?: ((err: PlayerError | null) => void)): this;
+
+    stopAnalyzer(callback?: ((err: PlayerError | null) => void)): this;
+
     /**
      * Seek in currently playing media.
      * 
@@ -143,6 +354,8 @@ declare class Player extends EventEmitter {
     /**
      * Get/set current playback position in milliseconds. It's recommended to do seeking via `seek()`,
      * as it is not possible to pass a callback when setting the `currentTime` property.
+     *
+     * On Android the position is read synchronously from native code, except when debugging JS remotely.
      */
     currentTime: number;
 
@@ -157,6 +370,18 @@ declare class Player extends EventEmitter {
      */
     looping: boolean;
 
+    /**
+     * (Android only) Get/set the start of the looped region in milliseconds. `null` loops from the start of the
+     * file. Default is `null`.
+     */
+    loopStart: number | null;
+
+    /**
+     * (Android only) Get/set the end of the looped region in milliseconds. `null` loops at the end of the file.
+     * Default is `null`.
+     */
+    loopEnd: number | null;
+
     /**
      * Get/set the playback speed for audio.
      * Default is `1.0`.
@@ -165,9 +390,34 @@ declare class Player extends EventEmitter {
      */
     speed: number;
 
+    /**
+     * Get/set scrub mode. Set to `true` while the user drags a seek bar: seeks issued with `seek()` are then
+     * coalesced to the latest position and use fast, keyframe-accurate seeking where supported (Android 8.0+).
+     * Setting it back to `false` finishes with a precise seek to the last requested position.
+     * Default is `false`. Android only.
+     */
+    scrubbing: boolean;
+
+    /**
+     * Get/set a loudness normalization gain in millibels (1/100 dB). Negative values attenuate the volume,
+     * positive values boost it using a LoudnessEnhancer. The gain is remembered per file and reapplied when
+     * the same file is prepared again. Set to `null` or `0` to disable.
+     * Default is `null`. Android only.
+     */
+    gain: number | null;
+
+    /**
+     * Get/set equalizer band levels in millibels, lowest frequency band first. Levels are clamped to the
+     * range supported by the device and levels for bands the device doesn't have are ignored.
+     * Set to `null` to disable the equalizer.
+     * Default is `null`. Android only.
+     */
+    equalizer: number[] | null;
+
     /**
      * Get duration of prepared/playing media in milliseconds.
      * If no duration is available (for example live streams), `-1` is returned.
+     * On Android this is read synchronously from native code, except when debugging JS remotely.
      */
     readonly duration: number;
 
@@ -192,7 +442,8 @@ declare class Player extends EventEmitter {
     readonly canPrepare: boolean;
 
     /**
-     * `true` if player is playing.
+     * `true` if player is playing. On Android this is read synchronously from native code, except when
+     * debugging JS remotely.
      */
     readonly isPlaying: boolean;
 
@@ -261,6 +512,76 @@ interface RecorderOptions {
      * e.g. 250 will fire 4 time in a second.
      */
     meteringInterval: number;
+
+    /**
+     * Audio source to record from, Android only.
+     *
+     * Possible values: 'default', 'mic', 'camcorder', 'voiceRecognition', 'voiceCommunication', 'unprocessed'
+     *
+     * 'unprocessed' falls back to 'voiceRecognition' on devices that don't support it.
+     *
+     * (Default: 'mic')
+     */
+    audioSource: string;
+
+    /**
+     * Upload the recording in chunks while it is being recorded, Android only.
+     */
+    upload: UploadOptions;
+}
+
+interface UploadOptions {
+    /**
+     * URL that every chunk is POSTed to, identified by the `X-Upload-Id`, `X-Chunk-Index` and
+     * `Content-Range` headers.
+     */
+    url: string;
+
+    /**
+     * URL that the JSON manifest listing all chunks is POSTed to after `stop()` (Default: `url`)
+     */
+    manifestUrl?: string;
+
+    /**
+     * Additional request headers. They aren't persisted, so they have to be passed to
+     * `Recorder.resumeUploads()` again.
+     */
+    headers?: { [name: string]: string };
+
+    /**
+     * Identifies the upload (Default: a random UUID)
+     */
+    uploadId?: string;
+
+    /**
+     * Size of the uploaded chunks in bytes (Default: 65536)
+     */
+    chunkSize?: number;
+
+    /**
+     * Maximum number of chunks waiting to be uploaded. Reading from the recording pauses while the
+     * queue is full. (Default: 64)
+     */
+    maxPendingChunks?: number;
+
+    /**
+     * Number of attempts before the upload fails with an `uploadError` event (Default: 5)
+     */
+    maxAttempts?: number;
+}
+
+interface ResumeUploadsOptions {
+    /**
+     * Request headers, e.g. for authorization
+     */
+    headers?: { [name: string]: string };
+}
+
+interface UploadResult {
+    uploadId: string;
+    size?: number;
+    chunks?: number;
+    err?: RecorderError;
 }
 
 /**
@@ -305,8 +626,9 @@ declare class Recorder extends EventEmitter {
     stop(callback?: ((err: RecorderError | null) => void)): this;
 
     /**
-     * 
-     * @param callback 
+     * Pause recording. Calling `record()` again continues recording into the same file.
+     *
+     * @param callback Callback is called after recording has paused or with an error object.
      */
     pause(callback?: ((err: RecorderError | null) => void)): this;
 
@@ -323,12 +645,49 @@ declare class Recorder extends EventEmitter {
      */
     destroy(callback?: ((err: RecorderError | null) => void)): void;
 
+    /**
+     * (Android 10+) Emit `spectrum` events with the band levels of the input until the recorder is stopped.
+     * Fails with `notsupported` on older versions, which can't capture the input twice.
+     */
+    startAnalyzer(options?: AnalyzerOptions, callback?: ((err: RecorderError | null) => void)): this;
+
+    stopAnalyzer(callback?: ((err: RecorderError | null) => void)): this;
+
+    /**
+     * Start many prepared recorders with a single native call, e.g. to capture several audio sources at once.
+     * On Android the recorders are started back to back and their `startTime` can be used to align the recordings.
+     *
+     * @param callback Called with an array containing an error or `null` for every recorder, in the same order.
+     */
+    static recordMany(recorders: Recorder[], callback?: ((err: RecorderError | null, errors: (RecorderError | null)[]) => void)): void;
+
+    /**
+     * (Android only) Finish uploads that failed or were interrupted in an earlier session, see `upload` in
+     * `RecorderOptions`.
+     *
+     * @param options `headers` are sent with every request, as they aren't persisted with the upload.
+     * @param callback Called with a result for every upload once all of them have finished or failed.
+     */
+    static resumeUploads(options?: ResumeUploadsOptions, callback?: ((err: RecorderError | null, results: UploadResult[]) => void)): void;
+
+    /**
+     * (Android only) Time at which recording started, in milliseconds on the `SystemClock.elapsedRealtime()` clock
+     * shared by all recorders, or -1 before recording has started.
+     */
+    readonly startTime: number;
+
     /**
      * Get the filesystem path of file being recorded to.
      * Available after `prepare()` call has invoked its callback successfully.
      */
     readonly fsPath: string;
 
+    /**
+     * Latest input level in decibels (-160 is silence), measured when `meteringInterval` is set.
+     * On Android this is read synchronously from native code, except when debugging JS remotely.
+     */
+    readonly meterLevel: number;
+
     /**
      * Get the recording state.
      */
@@ -355,4 +714,256 @@ declare class Recorder extends EventEmitter {
     readonly isPrepared: boolean;
 }
 
-export { Player, Recorder, MediaStates };
+interface OperationMetrics {
+    count: number;
+
+    /**
+     * Latencies in milliseconds.
+     */
+    mean: number;
+    max: number;
+    p50: number;
+    p90: number;
+    p99: number;
+}
+
+interface AudioMetrics {
+    operations: {
+        /**
+         * Time from `prepare()` until the player is prepared.
+         */
+        prepare: OperationMetrics;
+        play: OperationMetrics;
+
+        /**
+         * Time from `seek()` until the seek completes.
+         */
+        seek: OperationMetrics;
+        recorderPrepare: OperationMetrics;
+        recorderStop: OperationMetrics;
+        emitEvent: OperationMetrics;
+    };
+
+    /**
+     * Count of native errors by Android `what`/`extra` code.
+     */
+    errors: { source: "player" | "recorder", what: number, extra: number, count: number }[];
+
+    /**
+     * Errors that could not be counted because too many distinct codes occurred.
+     */
+    droppedErrors: number;
+}
+
+/**
+ * Latency histograms and error counters collected natively. Android only.
+ */
+declare const Metrics: {
+    get(callback?: ((err: PlayerError | null, metrics: AudioMetrics) => void)): void;
+    reset(callback?: ((err: PlayerError | null) => void)): void;
+
+    /**
+     * Emit systrace sections for player and recorder operations. (Default: false)
+     */
+    setTracingEnabled(enabled: boolean): void;
+};
+
+interface TranscodeOptions {
+    /**
+     * Output format, see `format` in `RecorderOptions`. Also 'opus' on Android 10+.
+     * (Default: based on `dst` file extension)
+     */
+    format?: string;
+
+    /**
+     * Output encoder, see `encoder` in `RecorderOptions`. Also 'opus' on Android 10+.
+     * (Default: based on `dst` file extension)
+     */
+    encoder?: string;
+
+    /**
+     * Bitrate of the output, in bits per second (Default: 64000)
+     */
+    bitrate?: number;
+
+    /**
+     * Jobs with a higher priority are started first (Default: 0)
+     */
+    priority?: number;
+}
+
+/**
+ * A queued or running transcoding job. Emits `progress` events with `{ progress }` between 0 and 1.
+ */
+declare class TranscodeJob extends EventEmitter {
+    /**
+     * Cancel the job. The callback of `transcode()` is called with a `cancelled` error.
+     */
+    cancel(callback?: ((err: TranscodeError | null) => void)): void;
+}
+
+/**
+ * Background re-encoding of audio files. Android only.
+ */
+declare const Transcoder: {
+    /**
+     * Decode `src` and encode it into `dst` with the given format, encoder and bitrate. Sample rate and channel
+     * count are kept. Jobs run on a small pool of background workers.
+     *
+     * @param callback Called with the filesystem path of `dst` once the job has finished.
+     */
+    transcode(src: string, dst: string, options?: TranscodeOptions,
+        callback?: ((err: TranscodeError | null, fsPath: string) => void)): TranscodeJob;
+
+    /**
+     * Copy the part of `src` between `startMs` and `endMs` into `dst` by copying compressed frames, without
+     * re-encoding. The cut happens at frame boundaries.
+     *
+     * @param endMs End of the kept part, or a negative value to keep everything after `startMs` (Default: -1)
+     * @param callback Called with the filesystem path of `dst` once done.
+     */
+    trim(src: string, dst: string, startMs: number, endMs?: number,
+        callback?: ((err: TranscodeError | null, fsPath: string) => void)): void;
+
+    /**
+     * Join files that share the same codec, sample rate and channel count into `dst`, without re-encoding.
+     *
+     * @param callback Called with the filesystem path of `dst` once done.
+     */
+    concat(srcs: string[], dst: string, callback?: ((err: TranscodeError | null, fsPath: string) => void)): void;
+};
+
+interface StreamOptions {
+    /**
+     * Sample rate of the PCM data (Default: 44100)
+     */
+    sampleRate?: number;
+
+    /**
+     * Number of interleaved channels, 1 or 2 (Default: 1)
+     */
+    channels?: number;
+
+    /**
+     * Capacity of the native buffer in milliseconds (Default: 2000)
+     */
+    bufferDuration?: number;
+
+    /**
+     * Milliseconds that must be buffered before playback starts, or resumes after an underrun (Default: 200)
+     */
+    startThreshold?: number;
+
+    /**
+     * Initial volume (Default: 1.0)
+     */
+    volume?: number;
+
+    /**
+     * Initial playback speed, changed without changing the pitch (Default: 1.0)
+     */
+    speed?: number;
+
+    /**
+     * Initial pitch factor, independent of the speed (Default: 1.0)
+     */
+    pitch?: number;
+
+    /**
+     * Keep playing when the app is sent to the background, see `PlayerOptions` (Default: false)
+     */
+    continuesToPlayInBackground?: boolean;
+
+    /**
+     * Run a foreground service with a media notification while playing in the background, see `PlayerOptions`
+     * (Default: false)
+     */
+    foregroundService?: boolean;
+
+    /**
+     * Title shown in the playback notification when `foregroundService` is used. (Default: app name)
+     */
+    title?: string;
+
+    /**
+     * Play without taking audio focus, so other apps keep playing (Default: false)
+     */
+    mixWithOthers?: boolean;
+}
+
+/**
+ * Plays 16-bit little endian PCM appended in chunks with `write()`, starting as soon as `startThreshold` is
+ * buffered. Emits `bufferLevel` (`{ buffered }`), `underrun` (`{ underruns }`) and, after `end()`, `ended`.
+ * Android only.
+ */
+declare class StreamPlayer extends EventEmitter {
+    constructor(options?: StreamOptions);
+
+    /**
+     * Create the native stream. Chunks can be written once the callback was called.
+     */
+    open(callback?: ((err: StreamError | null) => void)): this;
+
+    /**
+     * Append a base64 encoded chunk. Chunks are accepted whole or not at all: on a `bufferfull` error the chunk
+     * should be written again once more of the buffer has been played.
+     */
+    write(chunk: string, callback?: ((err: StreamError | null) => void)): this;
+
+    /**
+     * Signal that no more chunks follow. `ended` is emitted once everything buffered has been played.
+     */
+    end(callback?: ((err: StreamError | null) => void)): this;
+
+    play(callback?: ((err: StreamError | null) => void)): this;
+
+    pause(callback?: ((err: StreamError | null) => void)): this;
+
+    /**
+     * Stop playback and drop everything buffered, so that a new stream can be written.
+     */
+    stop(callback?: ((err: StreamError | null) => void)): this;
+
+    destroy(callback?: ((err: StreamError | null) => void)): void;
+
+    /**
+     * Emit `spectrum` events with the band levels of what is played, analyzed from the PCM directly.
+     */
+    startAnalyzer(options?: AnalyzerOptions, callback?: ((err: StreamError | null) => void)): this;
+
+    stopAnalyzer(callback?: ((err: StreamError | null) => void)): this;
+
+    volume: number;
+
+    /**
+     * Playback speed from 0.25 to 4, changed without changing the pitch.
+     */
+    speed: number;
+
+    /**
+     * Pitch factor from 0.25 to 4, e.g. 2 for an octave up, independent of the speed.
+     */
+    pitch: number;
+
+    readonly state: MediaStates;
+
+    readonly isPlaying: boolean;
+
+    /**
+     * Milliseconds played since the stream was opened or stopped, which differs from the stream's own time
+     * when `speed` is changed. Read synchronously from native code, except when debugging JS remotely.
+     */
+    readonly currentTime: number;
+
+    /**
+     * Milliseconds of audio buffered natively, as of the last event or call.
+     */
+    readonly buffered: number;
+
+    /**
+     * Number of times playback ran out of data and had to buffer again.
+     */
+    readonly underruns: number;
+}
+
+export { Player, Recorder, MediaStates, Metrics, Transcoder, StreamPlayer };